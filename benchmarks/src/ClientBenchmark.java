@@ -0,0 +1,34 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de les consultes de clients contra la base de dades incrustada (EstatBaseDades).
+ * Amb moltes dades hi ha més clients que entrades a la memòria cau, i una part de les consultes hi falla.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientBenchmark {
+
+    private final ClientDAO clientDAO = new ClientDAO();
+
+    /**
+     * Consulta d'un client aleatori per ID.
+     */
+    @Benchmark
+    public Client obtenirClient(EstatBaseDades bd, ReservaBenchmark.Aleatori aleatori) {
+        return clientDAO.obtenirClient(bd.client(aleatori.seguent(bd.clients)));
+    }
+}
@@ -0,0 +1,202 @@
+import ch.vorburger.mariaDB4j.DB;
+import ch.vorburger.mariaDB4j.DBConfigurationBuilder;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base de dades MariaDB incrustada, compatible amb MySQL, que comparteixen els benchmarks d'una mateixa prova.
+ * En començar la prova s'engega en un directori temporal, es creen les taules i s'omple amb el nombre
+ * de reserves del paràmetre reserves; en acabar s'atura i es descarta.
+ *
+ * Les dades són deterministes: cada habitació té estades consecutives de dues nits amb un dia lliure entre elles,
+ * repartides de manera que una part queda en el passat i una part en el futur (reserves actives).
+ */
+@State(Scope.Benchmark)
+public class EstatBaseDades {
+
+    static final String NOM_BASE_DADES = "hotel_reserves";
+
+    // Files per lot en omplir la base de dades
+    private static final int MIDA_LOT = 5000;
+
+    // Proporció de reserves per habitació i de reserves per client
+    private static final int RESERVES_PER_HABITACIO = 1000;
+    private static final int RESERVES_PER_CLIENT = 10;
+
+    // Cada estada ocupa dues nits i deixa una nit lliure abans de la següent
+    static final int NITS_PER_ESTADA = 2;
+    static final int DIES_PER_ESTADA = NITS_PER_ESTADA + 1;
+
+    private static final String[] TIPUS = {"individual", "doble", "suite"};
+
+    @Param({"1000", "100000", "1000000"})
+    public int reserves;
+
+    int habitacions;
+    int clients;
+    // Data d'entrada de la primera estada de cada habitació
+    LocalDate primeraEntrada;
+    // Primera data a partir de la qual no hi ha cap reserva de les dades inicials
+    LocalDate finalDades;
+
+    // Comptador per repartir períodes lliures entre les reserves noves dels benchmarks
+    private final AtomicInteger reservesNoves = new AtomicInteger();
+
+    private DB baseDades;
+
+    /**
+     * Engega la base de dades, crea les taules, les omple i carrega l'índex de reserves.
+     * @throws Exception Si no s'ha pogut engegar o omplir la base de dades.
+     */
+    @Setup(Level.Trial)
+    public void engegar() throws Exception {
+        DBConfigurationBuilder configuracio = DBConfigurationBuilder.newBuilder();
+        // Port 0: se'n busca un de lliure
+        configuracio.setPort(0);
+        baseDades = DB.newEmbeddedDB(configuracio.build());
+        baseDades.start();
+        baseDades.createDB(NOM_BASE_DADES);
+
+        System.setProperty(ConnectionManager.PROPIETAT_URL, "jdbc:mysql://localhost:" + configuracio.getPort() + "/" +
+                NOM_BASE_DADES + "?rewriteBatchedStatements=true&useCursorFetch=true");
+        System.setProperty(ConnectionManager.PROPIETAT_USUARI, "root");
+        System.setProperty(ConnectionManager.PROPIETAT_CONTRASENYA, "");
+
+        habitacions = Math.max(10, reserves / RESERVES_PER_HABITACIO);
+        clients = Math.max(100, reserves / RESERVES_PER_CLIENT);
+
+        // La meitat de les estades de cada habitació queden abans d'avui
+        int estadesPerHabitacio = (reserves + habitacions - 1) / habitacions;
+        primeraEntrada = LocalDate.now().minusDays((long) estadesPerHabitacio / 2 * DIES_PER_ESTADA);
+        finalDades = primeraEntrada.plusDays((long) estadesPerHabitacio * DIES_PER_ESTADA);
+
+        InicialitzadorBaseDades.inicialitzar();
+        omplir();
+
+        // Tornar a carregar l'índex, ara amb les reserves inicials
+        IndexReserves.getInstancia().carregar();
+    }
+
+    /**
+     * Atura la base de dades i tanca el pool de connexions.
+     * @throws Exception Si no s'ha pogut aturar la base de dades.
+     */
+    @TearDown(Level.Trial)
+    public void aturar() throws Exception {
+        ConnectionManager.closeConnection();
+        if (baseDades != null) {
+            baseDades.stop();
+        }
+    }
+
+    /**
+     * Obté un número d'habitació de les dades inicials.
+     * @param index Un enter qualsevol.
+     * @return El número d'habitació.
+     */
+    int habitacio(int index) {
+        return 100 + Math.floorMod(index, habitacions);
+    }
+
+    /**
+     * Obté un ID de client de les dades inicials.
+     * @param index Un enter qualsevol.
+     * @return L'ID del client.
+     */
+    int client(int index) {
+        return 1 + Math.floorMod(index, clients);
+    }
+
+    /**
+     * Obté un índex que no s'ha utilitzat mai per a una reserva nova. Amb dataEntradaNova() i habitacio()
+     * dona un període lliure posterior a totes les dades inicials.
+     * @return L'índex de la reserva nova.
+     */
+    int seguentReservaNova() {
+        return reservesNoves.getAndIncrement();
+    }
+
+    /**
+     * Obté la data d'entrada d'una reserva nova.
+     * @param index L'índex obtingut amb seguentReservaNova().
+     * @return La data d'entrada, lliure per a l'habitació habitacio(index).
+     */
+    LocalDate dataEntradaNova(int index) {
+        return finalDades.plusDays((long) (index / habitacions) * DIES_PER_ESTADA);
+    }
+
+    private void omplir() throws SQLException {
+        try (Connection conn = ConnectionManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO habitacions (numero_habitacio, tipus, preu_per_nit, disponible) VALUES (?, ?, ?, TRUE)")) {
+                for (int i = 0; i < habitacions; i++) {
+                    stmt.setInt(1, habitacio(i));
+                    stmt.setString(2, TIPUS[i % TIPUS.length]);
+                    stmt.setDouble(3, preu(i));
+                    afegirAlLot(conn, stmt, i);
+                }
+                executarLot(conn, stmt);
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO clients (id_client, nom, cognoms, data_naixement, email, telefon) VALUES (?, ?, ?, ?, ?, ?)")) {
+                Date dataNaixement = Date.valueOf(LocalDate.of(1980, 1, 1));
+                for (int i = 0; i < clients; i++) {
+                    stmt.setInt(1, client(i));
+                    stmt.setString(2, "Nom" + i);
+                    stmt.setString(3, "Cognom" + i);
+                    stmt.setDate(4, dataNaixement);
+                    stmt.setString(5, "client" + i + "@hotel.cat");
+                    stmt.setString(6, String.format("6%08d", i));
+                    afegirAlLot(conn, stmt, i);
+                }
+                executarLot(conn, stmt);
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO reserves (numero_habitacio, id_client, data_entrada, data_sortida, total_a_pagar) " +
+                            "VALUES (?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < reserves; i++) {
+                    // Reserves consecutives van a habitacions diferents, com en un hotel ple
+                    LocalDate entrada = primeraEntrada.plusDays((long) (i / habitacions) * DIES_PER_ESTADA);
+                    stmt.setInt(1, habitacio(i));
+                    stmt.setInt(2, client(i * 31));
+                    stmt.setDate(3, Date.valueOf(entrada));
+                    stmt.setDate(4, Date.valueOf(entrada.plusDays(NITS_PER_ESTADA)));
+                    stmt.setDouble(5, NITS_PER_ESTADA * preu(i % habitacions));
+                    afegirAlLot(conn, stmt, i);
+                }
+                executarLot(conn, stmt);
+            }
+        }
+    }
+
+    private static double preu(int index) {
+        return 50 + (index % TIPUS.length) * 40;
+    }
+
+    private static void afegirAlLot(Connection conn, PreparedStatement stmt, int index) throws SQLException {
+        stmt.addBatch();
+        if ((index + 1) % MIDA_LOT == 0) {
+            executarLot(conn, stmt);
+        }
+    }
+
+    private static void executarLot(Connection conn, PreparedStatement stmt) throws SQLException {
+        stmt.executeBatch();
+        conn.commit();
+    }
+}
@@ -0,0 +1,93 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de les operacions de reserves contra la base de dades incrustada (EstatBaseDades).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservaBenchmark {
+
+    private final ReservaService reservaService = new ReservaService();
+    private final ReservaDAO reservaDAO = new ReservaDAO();
+
+    /**
+     * Generador de valors aleatoris propi de cada fil, amb llavor fixa perquè les proves siguin repetibles.
+     */
+    @State(Scope.Thread)
+    public static class Aleatori {
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        int seguent(int limit) {
+            return random.nextInt(limit);
+        }
+    }
+
+    /**
+     * Reserva completa a través del servei: validacions, bloqueig, transacció i actualització de l'índex.
+     * Cada invocació reserva un període lliure nou, posterior a les dades inicials.
+     */
+    @Benchmark
+    public int realitzarReserva(EstatBaseDades bd) {
+        int index = bd.seguentReservaNova();
+        LocalDate entrada = bd.dataEntradaNova(index);
+        return reservaService.realitzarReserva(bd.habitacio(index), bd.client(index), entrada,
+                entrada.plusDays(EstatBaseDades.NITS_PER_ESTADA));
+    }
+
+    /**
+     * Comprovació de disponibilitat d'un període futur, que respon l'índex en memòria.
+     */
+    @Benchmark
+    public boolean esHabitacioDisponiblePerPeriode(EstatBaseDades bd, Aleatori aleatori) {
+        LocalDate avui = LocalDate.now();
+        int dies = (int) (bd.finalDades.toEpochDay() - avui.toEpochDay());
+        LocalDate entrada = avui.plusDays(aleatori.seguent(Math.max(1, dies)));
+        return reservaDAO.esHabitacioDisponiblePerPeriode(bd.habitacio(aleatori.seguent(bd.habitacions)), entrada,
+                entrada.plusDays(EstatBaseDades.NITS_PER_ESTADA));
+    }
+
+    /**
+     * Comprovació de disponibilitat d'un període passat, que l'índex no cobreix i va a la base de dades.
+     */
+    @Benchmark
+    public boolean esHabitacioDisponiblePerPeriodePassat(EstatBaseDades bd, Aleatori aleatori) {
+        int dies = (int) (LocalDate.now().toEpochDay() - bd.primeraEntrada.toEpochDay());
+        LocalDate entrada = bd.primeraEntrada.plusDays(aleatori.seguent(Math.max(1, dies)));
+        return reservaDAO.esHabitacioDisponiblePerPeriode(bd.habitacio(aleatori.seguent(bd.habitacions)), entrada,
+                entrada.plusDays(EstatBaseDades.NITS_PER_ESTADA));
+    }
+
+    /**
+     * Llistat complet de les reserves actives (aproximadament la meitat de les dades inicials).
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Reserva> obtenirReservesActives() {
+        return reservaDAO.obtenirReservesActives();
+    }
+
+    /**
+     * Primera pàgina del llistat de reserves actives, per comparar-la amb el llistat complet.
+     */
+    @Benchmark
+    public Pagina<Reserva> obtenirReservesActivesPagina() {
+        return reservaDAO.obtenirReservesActivesPagina(null, 20);
+    }
+}
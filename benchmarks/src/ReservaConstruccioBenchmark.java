@@ -0,0 +1,61 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de la creació d'una reserva i el càlcul del total a pagar, sense base de dades.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReservaConstruccioBenchmark {
+
+    // Nombre de períodes diferents que es van alternant
+    private static final int PERIODES = 1024;
+
+    private Habitacio habitacio;
+    private Client client;
+    private LocalDate[] entrades;
+    private LocalDate[] sortides;
+    private int seguent;
+
+    /**
+     * Prepara una habitació, un client i períodes de durades diferents.
+     */
+    @Setup
+    public void preparar() {
+        habitacio = new Habitacio(101, "doble", 90.0, true);
+        client = new Client(1, "Nom", "Cognom", LocalDate.of(1980, 1, 1), "client@hotel.cat", "600000000");
+        entrades = new LocalDate[PERIODES];
+        sortides = new LocalDate[PERIODES];
+
+        LocalDate inici = LocalDate.now();
+        for (int i = 0; i < PERIODES; i++) {
+            entrades[i] = inici.plusDays(i);
+            sortides[i] = entrades[i].plusDays(1 + i % 14);
+        }
+    }
+
+    /**
+     * Crea una reserva i en retorna el total, calculat pel constructor.
+     */
+    @Benchmark
+    public double crearReserva() {
+        int i = seguent++ & (PERIODES - 1);
+        Reserva reserva = new Reserva(0, habitacio, client, entrades[i], sortides[i]);
+        return reserva.getTotalAPagar();
+    }
+}
@@ -0,0 +1,233 @@
+/**
+ * Arbre d'intervals tancats [inici, fi] sobre valors enters (per exemple dies d'època).
+ * És un arbre AVL ordenat per (inici, id) on cada node guarda el fi màxim del seu subarbre,
+ * de manera que afegir, eliminar i comprovar solapaments costa O(log n).
+ * No és segur per a fils; qui l'utilitzi ha de sincronitzar-ne l'accés.
+ */
+public class ArbreIntervals {
+
+    private Node arrel;
+    private int mida;
+
+    /**
+     * Afegeix un interval a l'arbre.
+     * @param id Identificador de l'interval (per exemple l'ID de la reserva).
+     * @param inici L'inici de l'interval (inclòs).
+     * @param fi El final de l'interval (inclòs).
+     */
+    public void afegir(int id, long inici, long fi) {
+        arrel = afegir(arrel, new Node(id, inici, fi));
+    }
+
+    /**
+     * Elimina un interval de l'arbre.
+     * @param id Identificador de l'interval.
+     * @param inici L'inici amb què es va afegir l'interval.
+     * @return true si s'ha trobat i eliminat, false en cas contrari.
+     */
+    public boolean eliminar(int id, long inici) {
+        int midaAnterior = mida;
+        arrel = eliminar(arrel, id, inici);
+        return mida < midaAnterior;
+    }
+
+    /**
+     * Indica si algun interval de l'arbre es solapa amb [inici, fi].
+     * @param inici L'inici de l'interval consultat (inclòs).
+     * @param fi El final de l'interval consultat (inclòs).
+     * @return true si hi ha algun solapament, false en cas contrari.
+     */
+    public boolean solapa(long inici, long fi) {
+        Node node = arrel;
+        while (node != null) {
+            if (node.inici <= fi && node.fi >= inici) {
+                return true;
+            }
+            // Si el subarbre esquerre pot contenir un solapament, és l'únic lloc on cal buscar:
+            // si no n'hi ha cap allà, cap interval de la dreta (inici més gran) tampoc no en tindrà.
+            if (node.esquerre != null && node.esquerre.fiMaxim >= inici) {
+                node = node.esquerre;
+            } else {
+                node = node.dret;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recorre, en ordre d'inici, tots els intervals de l'arbre que es solapen amb [inici, fi].
+     * @param inici L'inici de l'interval consultat (inclòs).
+     * @param fi El final de l'interval consultat (inclòs).
+     * @param visitant Rep cada interval solapat.
+     */
+    public void perCadaSolapament(long inici, long fi, Visitant visitant) {
+        perCadaSolapament(arrel, inici, fi, visitant);
+    }
+
+    private static void perCadaSolapament(Node node, long inici, long fi, Visitant visitant) {
+        // Cap interval del subarbre acaba prou tard per solapar-se
+        if (node == null || node.fiMaxim < inici) {
+            return;
+        }
+        perCadaSolapament(node.esquerre, inici, fi, visitant);
+        if (node.inici <= fi) {
+            if (node.fi >= inici) {
+                visitant.visitar(node.inici, node.fi);
+            }
+            // Els intervals de la dreta comencen després d'aquest; si aquest ja comença tard, no cal mirar-los
+            perCadaSolapament(node.dret, inici, fi, visitant);
+        }
+    }
+
+    /**
+     * Obté el nombre d'intervals de l'arbre.
+     * @return El nombre d'intervals.
+     */
+    public int getMida() {
+        return mida;
+    }
+
+    private Node afegir(Node node, Node nou) {
+        if (node == null) {
+            mida++;
+            return nou;
+        }
+
+        int comparacio = comparar(nou.inici, nou.id, node);
+        if (comparacio < 0) {
+            node.esquerre = afegir(node.esquerre, nou);
+        } else if (comparacio > 0) {
+            node.dret = afegir(node.dret, nou);
+        } else {
+            // El mateix interval ja hi és; només actualitzem el final
+            node.fi = nou.fi;
+        }
+        return equilibrar(node);
+    }
+
+    private Node eliminar(Node node, int id, long inici) {
+        if (node == null) {
+            return null;
+        }
+
+        int comparacio = comparar(inici, id, node);
+        if (comparacio < 0) {
+            node.esquerre = eliminar(node.esquerre, id, inici);
+        } else if (comparacio > 0) {
+            node.dret = eliminar(node.dret, id, inici);
+        } else {
+            mida--;
+            if (node.esquerre == null) {
+                return node.dret;
+            }
+            if (node.dret == null) {
+                return node.esquerre;
+            }
+            // Substituïm el node pel mínim del subarbre dret
+            Node successor = node.dret;
+            while (successor.esquerre != null) {
+                successor = successor.esquerre;
+            }
+            node.dret = eliminarMinim(node.dret);
+            successor.dret = node.dret;
+            successor.esquerre = node.esquerre;
+            return equilibrar(successor);
+        }
+        return equilibrar(node);
+    }
+
+    private Node eliminarMinim(Node node) {
+        if (node.esquerre == null) {
+            return node.dret;
+        }
+        node.esquerre = eliminarMinim(node.esquerre);
+        return equilibrar(node);
+    }
+
+    private static int comparar(long inici, int id, Node node) {
+        if (inici != node.inici) {
+            return inici < node.inici ? -1 : 1;
+        }
+        return Integer.compare(id, node.id);
+    }
+
+    private static int alcada(Node node) {
+        return node == null ? 0 : node.alcada;
+    }
+
+    private static void actualitzar(Node node) {
+        node.alcada = 1 + Math.max(alcada(node.esquerre), alcada(node.dret));
+        long maxim = node.fi;
+        if (node.esquerre != null) {
+            maxim = Math.max(maxim, node.esquerre.fiMaxim);
+        }
+        if (node.dret != null) {
+            maxim = Math.max(maxim, node.dret.fiMaxim);
+        }
+        node.fiMaxim = maxim;
+    }
+
+    private static Node equilibrar(Node node) {
+        actualitzar(node);
+        int balanc = alcada(node.esquerre) - alcada(node.dret);
+
+        if (balanc > 1) {
+            if (alcada(node.esquerre.esquerre) < alcada(node.esquerre.dret)) {
+                node.esquerre = rotarEsquerra(node.esquerre);
+            }
+            return rotarDreta(node);
+        }
+        if (balanc < -1) {
+            if (alcada(node.dret.dret) < alcada(node.dret.esquerre)) {
+                node.dret = rotarDreta(node.dret);
+            }
+            return rotarEsquerra(node);
+        }
+        return node;
+    }
+
+    private static Node rotarDreta(Node node) {
+        Node nouPare = node.esquerre;
+        node.esquerre = nouPare.dret;
+        nouPare.dret = node;
+        actualitzar(node);
+        actualitzar(nouPare);
+        return nouPare;
+    }
+
+    private static Node rotarEsquerra(Node node) {
+        Node nouPare = node.dret;
+        node.dret = nouPare.esquerre;
+        nouPare.esquerre = node;
+        actualitzar(node);
+        actualitzar(nouPare);
+        return nouPare;
+    }
+
+    /**
+     * Rep els intervals que recorre perCadaSolapament().
+     */
+    public interface Visitant {
+        void visitar(long inici, long fi);
+    }
+
+    /**
+     * Node de l'arbre: un interval i el fi màxim del seu subarbre.
+     */
+    private static class Node {
+        private final int id;
+        private final long inici;
+        private long fi;
+        private long fiMaxim;
+        private int alcada = 1;
+        private Node esquerre;
+        private Node dret;
+
+        Node(int id, long inici, long fi) {
+            this.id = id;
+            this.inici = inici;
+            this.fi = fi;
+            this.fiMaxim = fi;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bloquejos en memòria per número d'habitació, repartits en franges (lock striping).
+ * Dues reserves de la mateixa habitació s'esperen l'una a l'altra; reserves d'habitacions
+ * de franges diferents no es bloquegen mai entre elles.
+ * També mesura quantes vegades s'ha hagut d'esperar i quant de temps.
+ */
+public class BloquejosHabitacions {
+
+    private static final BloquejosHabitacions instancia =
+            new BloquejosHabitacions(Runtime.getRuntime().availableProcessors() * 16);
+
+    private final ReentrantLock[] franges;
+
+    private final LongAdder adquisicions = new LongAdder();
+    private final LongAdder esperes = new LongAdder();
+    private final LongAdder tempsEsperaTotalNanos = new LongAdder();
+    private final AtomicLong tempsEsperaMaximNanos = new AtomicLong();
+
+    /**
+     * Constructor amb el nombre mínim de franges (s'arrodoneix a la potència de dos superior).
+     * @param nombreFranges Nombre mínim de franges.
+     */
+    BloquejosHabitacions(int nombreFranges) {
+        int mida = Integer.highestOneBit(Math.max(64, nombreFranges) - 1) << 1;
+        this.franges = new ReentrantLock[mida];
+        for (int i = 0; i < mida; i++) {
+            franges[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Obté els bloquejos compartits per tota l'aplicació.
+     * @return Els bloquejos d'habitacions.
+     */
+    public static BloquejosHabitacions getInstancia() {
+        return instancia;
+    }
+
+    /**
+     * Bloqueja l'habitació fins que es tanqui el bloqueig retornat (per exemple amb try-with-resources).
+     * @param numeroHabitacio El número de l'habitació.
+     * @return El bloqueig adquirit.
+     */
+    public Bloqueig bloquejar(int numeroHabitacio) {
+        ReentrantLock lock = franges[franja(numeroHabitacio)];
+        adquirir(lock);
+        return new Bloqueig(lock);
+    }
+
+    /**
+     * Bloqueja totes les habitacions indicades fins que es tanqui el bloqueig retornat.
+     * Les franges s'adquireixen una sola vegada cadascuna i sempre en el mateix ordre, de manera que dos fils que
+     * bloquegen conjunts d'habitacions diferents no es poden encallar l'un a l'altre.
+     * @param numerosHabitacions Els números de les habitacions.
+     * @return El bloqueig adquirit.
+     */
+    public Bloqueig bloquejar(Collection<Integer> numerosHabitacions) {
+        TreeSet<Integer> indexos = new TreeSet<>();
+        for (int numeroHabitacio : numerosHabitacions) {
+            indexos.add(franja(numeroHabitacio));
+        }
+
+        ReentrantLock[] locks = new ReentrantLock[indexos.size()];
+        int i = 0;
+        for (int index : indexos) {
+            locks[i] = franges[index];
+            adquirir(locks[i++]);
+        }
+        return new Bloqueig(locks);
+    }
+
+    private void adquirir(ReentrantLock lock) {
+        adquisicions.increment();
+
+        if (!lock.tryLock()) {
+            long inici = System.nanoTime();
+            lock.lock();
+            long espera = System.nanoTime() - inici;
+
+            esperes.increment();
+            tempsEsperaTotalNanos.add(espera);
+            long maxim;
+            while (espera > (maxim = tempsEsperaMaximNanos.get())
+                    && !tempsEsperaMaximNanos.compareAndSet(maxim, espera)) {
+                // Un altre fil ha actualitzat el màxim; tornem a comparar
+            }
+        }
+    }
+
+    /**
+     * Obté els comptadors d'espera dels bloquejos.
+     * @return Les estadístiques dels bloquejos.
+     */
+    public Estadistiques getEstadistiques() {
+        return new Estadistiques(franges.length, adquisicions.sum(), esperes.sum(),
+                TimeUnit.NANOSECONDS.toMicros(tempsEsperaTotalNanos.sum()),
+                TimeUnit.NANOSECONDS.toMicros(tempsEsperaMaximNanos.get()));
+    }
+
+    private int franja(int numeroHabitacio) {
+        // Barregem els bits perquè habitacions consecutives caiguin en franges diferents
+        int hash = numeroHabitacio * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (franges.length - 1);
+    }
+
+    /**
+     * Bloqueig adquirit sobre una o més habitacions; s'allibera en tancar-lo.
+     */
+    public static class Bloqueig implements AutoCloseable {
+        private ReentrantLock[] locks;
+
+        Bloqueig(ReentrantLock... locks) {
+            this.locks = locks;
+        }
+
+        @Override
+        public void close() {
+            if (locks != null) {
+                for (int i = locks.length - 1; i >= 0; i--) {
+                    locks[i].unlock();
+                }
+                locks = null;
+            }
+        }
+    }
+
+    /**
+     * Fotografia dels comptadors dels bloquejos en un moment donat.
+     */
+    public static class Estadistiques {
+        private final int franges;
+        private final long adquisicions;
+        private final long esperes;
+        private final long tempsEsperaTotalMicros;
+        private final long tempsEsperaMaximMicros;
+
+        Estadistiques(int franges, long adquisicions, long esperes, long tempsEsperaTotalMicros,
+                      long tempsEsperaMaximMicros) {
+            this.franges = franges;
+            this.adquisicions = adquisicions;
+            this.esperes = esperes;
+            this.tempsEsperaTotalMicros = tempsEsperaTotalMicros;
+            this.tempsEsperaMaximMicros = tempsEsperaMaximMicros;
+        }
+
+        public int getFranges() {
+            return franges;
+        }
+
+        public long getAdquisicions() {
+            return adquisicions;
+        }
+
+        public long getEsperes() {
+            return esperes;
+        }
+
+        public long getTempsEsperaTotalMicros() {
+            return tempsEsperaTotalMicros;
+        }
+
+        public long getTempsEsperaMaximMicros() {
+            return tempsEsperaMaximMicros;
+        }
+
+        @Override
+        public String toString() {
+            return "Bloquejos habitacions [Franges: " + franges +
+                    ", Adquisicions: " + adquisicions +
+                    ", Esperes: " + esperes +
+                    ", Espera total: " + tempsEsperaTotalMicros + " µs" +
+                    ", Espera màxima: " + tempsEsperaMaximMicros + " µs]";
+        }
+    }
+}
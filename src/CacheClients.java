@@ -0,0 +1,326 @@
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Memòria cau LRU de clients, limitada en nombre d'entrades i amb temps de vida.
+ * Els clients s'indexen per ID i per email. Per no bloquejar tots els fils amb un sol lock,
+ * les entrades es reparteixen en segments per ID i cada segment fa el seu propi LRU.
+ * Sempre retorna còpies, perquè qui les rep les pot modificar abans de desar-les.
+ */
+public class CacheClients {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final ConcurrentMap<String, Integer> idPerEmail = new ConcurrentHashMap<>();
+    private final int maxEntrades;
+    private final long tempsVidaNanos;
+
+    // Augmenta a cada invalidació; una lectura iniciada abans no es pot desar
+    private final AtomicLong versio = new AtomicLong();
+
+    private final AtomicLong encerts = new AtomicLong();
+    private final AtomicLong fallades = new AtomicLong();
+    private final AtomicLong expulsions = new AtomicLong();
+    private final AtomicLong expiracions = new AtomicLong();
+    private final AtomicLong invalidacions = new AtomicLong();
+
+    /**
+     * Constructor amb la configuració de la memòria cau.
+     * @param maxEntrades Nombre màxim de clients guardats.
+     * @param tempsVidaMillis Temps màxim que es guarda un client des que es llegeix de la base de dades.
+     */
+    public CacheClients(int maxEntrades, long tempsVidaMillis) {
+        if (maxEntrades <= 0 || tempsVidaMillis <= 0) {
+            throw new IllegalArgumentException("Configuració de la memòria cau de clients no vàlida");
+        }
+
+        this.maxEntrades = maxEntrades;
+        this.tempsVidaNanos = TimeUnit.MILLISECONDS.toNanos(tempsVidaMillis);
+
+        int maxPerSegment = Math.max(1, (maxEntrades + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(maxPerSegment);
+        }
+    }
+
+    /**
+     * Obté la versió actual. S'ha de llegir abans de consultar la base de dades i passar-la en desar el resultat.
+     * @return La versió actual de la memòria cau.
+     */
+    public long getVersio() {
+        return versio.get();
+    }
+
+    /**
+     * Obté una còpia d'un client pel seu ID.
+     * @param idClient L'ID del client.
+     * @return Una còpia del client, o null si no hi és o ha caducat.
+     */
+    public Client obtenir(int idClient) {
+        Client client = segment(idClient).obtenir(idClient);
+        if (client == null) {
+            fallades.incrementAndGet();
+            return null;
+        }
+        encerts.incrementAndGet();
+        return copiar(client);
+    }
+
+    /**
+     * Obté una còpia d'un client pel seu email.
+     * @param email L'email del client.
+     * @return Una còpia del client, o null si no hi és o ha caducat.
+     */
+    public Client obtenirPerEmail(String email) {
+        Integer idClient = idPerEmail.get(normalitzar(email));
+        if (idClient == null) {
+            fallades.incrementAndGet();
+            return null;
+        }
+        Client client = obtenir(idClient);
+        if (client != null && !normalitzar(client.getEmail()).equals(normalitzar(email))) {
+            return null;
+        }
+        return client;
+    }
+
+    /**
+     * Desa un client llegit de la base de dades, si no hi ha hagut cap invalidació des de la lectura.
+     * @param client El client llegit.
+     * @param versioLectura La versió obtinguda amb getVersio() abans de llegir.
+     */
+    public void guardar(Client client, long versioLectura) {
+        segment(client.getIdClient()).guardar(copiar(client), versioLectura);
+    }
+
+    /**
+     * Elimina un client de la memòria cau, tant per ID com per email.
+     * @param idClient L'ID del client que ha canviat.
+     */
+    public void invalidar(int idClient) {
+        segment(idClient).invalidar(idClient);
+    }
+
+    /**
+     * Buida tota la memòria cau.
+     */
+    public void invalidarTot() {
+        for (Segment segment : segments) {
+            segment.buidar();
+        }
+    }
+
+    /**
+     * Obté els comptadors d'ús de la memòria cau.
+     * @return Les estadístiques de la memòria cau.
+     */
+    public Estadistiques getEstadistiques() {
+        int mida = 0;
+        for (Segment segment : segments) {
+            mida += segment.mida();
+        }
+        return new Estadistiques(encerts.get(), fallades.get(), expulsions.get(), expiracions.get(),
+                invalidacions.get(), mida, maxEntrades);
+    }
+
+    private Segment segment(int idClient) {
+        // Barregem els bits perquè IDs consecutius no caiguin sempre al mateix segment
+        int hash = idClient * 0x9E3779B9;
+        return segments[(hash >>> 16) & (SEGMENTS - 1)];
+    }
+
+    private static String normalitzar(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Client copiar(Client client) {
+        return new Client(client.getIdClient(), client.getNom(), client.getCognoms(),
+                client.getDataNaixement(), client.getEmail(), client.getTelefon());
+    }
+
+    /**
+     * Client guardat amb el moment en què caduca.
+     */
+    private static class Entrada {
+        private final Client client;
+        private final long caducaNanos;
+
+        Entrada(Client client, long caducaNanos) {
+            this.client = client;
+            this.caducaNanos = caducaNanos;
+        }
+    }
+
+    /**
+     * Part de la memòria cau amb el seu propi lock i el seu propi ordre LRU.
+     */
+    private class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<Integer, Entrada> entrades;
+
+        Segment(final int maxPerSegment) {
+            // Ordre d'accés: la primera entrada és la menys utilitzada recentment
+            this.entrades = new LinkedHashMap<Integer, Entrada>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Entrada> eldest) {
+                    if (size() > maxPerSegment) {
+                        idPerEmail.remove(normalitzar(eldest.getValue().client.getEmail()), eldest.getKey());
+                        expulsions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        Client obtenir(int idClient) {
+            lock.lock();
+            try {
+                Entrada entrada = entrades.get(idClient);
+                if (entrada == null) {
+                    return null;
+                }
+                if (System.nanoTime() - entrada.caducaNanos > 0) {
+                    entrades.remove(idClient);
+                    idPerEmail.remove(normalitzar(entrada.client.getEmail()), idClient);
+                    expiracions.incrementAndGet();
+                    return null;
+                }
+                return entrada.client;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void guardar(Client client, long versioLectura) {
+            lock.lock();
+            try {
+                if (versio.get() != versioLectura) {
+                    return;
+                }
+                Entrada anterior = entrades.put(client.getIdClient(),
+                        new Entrada(client, System.nanoTime() + tempsVidaNanos));
+                if (anterior != null) {
+                    idPerEmail.remove(normalitzar(anterior.client.getEmail()), client.getIdClient());
+                }
+                idPerEmail.put(normalitzar(client.getEmail()), client.getIdClient());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void invalidar(int idClient) {
+            lock.lock();
+            try {
+                versio.incrementAndGet();
+                invalidacions.incrementAndGet();
+                Entrada entrada = entrades.remove(idClient);
+                if (entrada != null) {
+                    idPerEmail.remove(normalitzar(entrada.client.getEmail()), idClient);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void buidar() {
+            lock.lock();
+            try {
+                versio.incrementAndGet();
+                for (Entrada entrada : entrades.values()) {
+                    idPerEmail.remove(normalitzar(entrada.client.getEmail()), entrada.client.getIdClient());
+                }
+                entrades.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int mida() {
+            lock.lock();
+            try {
+                return entrades.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Fotografia dels comptadors de la memòria cau en un moment donat.
+     */
+    public static class Estadistiques {
+        private final long encerts;
+        private final long fallades;
+        private final long expulsions;
+        private final long expiracions;
+        private final long invalidacions;
+        private final int entrades;
+        private final int maxEntrades;
+
+        Estadistiques(long encerts, long fallades, long expulsions, long expiracions, long invalidacions,
+                      int entrades, int maxEntrades) {
+            this.encerts = encerts;
+            this.fallades = fallades;
+            this.expulsions = expulsions;
+            this.expiracions = expiracions;
+            this.invalidacions = invalidacions;
+            this.entrades = entrades;
+            this.maxEntrades = maxEntrades;
+        }
+
+        public long getEncerts() {
+            return encerts;
+        }
+
+        public long getFallades() {
+            return fallades;
+        }
+
+        public long getExpulsions() {
+            return expulsions;
+        }
+
+        public long getExpiracions() {
+            return expiracions;
+        }
+
+        public long getInvalidacions() {
+            return invalidacions;
+        }
+
+        public int getEntrades() {
+            return entrades;
+        }
+
+        public int getMaxEntrades() {
+            return maxEntrades;
+        }
+
+        /**
+         * @return La proporció de consultes resoltes per la memòria cau (entre 0 i 1).
+         */
+        public double getRatioEncerts() {
+            long total = encerts + fallades;
+            return total == 0 ? 0.0 : (double) encerts / total;
+        }
+
+        @Override
+        public String toString() {
+            return "Cache clients [Encerts: " + encerts +
+                    ", Fallades: " + fallades +
+                    ", Ràtio: " + String.format("%.1f%%", getRatioEncerts() * 100) +
+                    ", Expulsions: " + expulsions +
+                    ", Expiracions: " + expiracions +
+                    ", Invalidacions: " + invalidacions +
+                    ", Entrades: " + entrades + "/" + maxEntrades + "]";
+        }
+    }
+}
@@ -0,0 +1,197 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memòria cau del catàleg d'habitacions, compartida per tots els HabitacioDAO.
+ * Guarda les habitacions consultades pel número i la llista completa d'habitacions.
+ * Sempre retorna còpies, perquè qui les rep les pot modificar abans de desar-les.
+ * Cada escriptura a la taula habitacions ha de cridar invalidar() amb el número afectat.
+ */
+public class CacheHabitacions {
+
+    private static final CacheHabitacions instancia = new CacheHabitacions();
+
+    private final ConcurrentMap<Integer, Habitacio> perNumero = new ConcurrentHashMap<>();
+    private volatile List<Habitacio> totes = null;
+
+    // Augmenta a cada invalidació; una lectura iniciada abans no es pot desar
+    private final AtomicLong versio = new AtomicLong();
+
+    private final AtomicLong encerts = new AtomicLong();
+    private final AtomicLong fallades = new AtomicLong();
+    private final AtomicLong invalidacions = new AtomicLong();
+
+    private CacheHabitacions() {
+    }
+
+    /**
+     * Obté la memòria cau compartida per tota l'aplicació.
+     * @return La memòria cau d'habitacions.
+     */
+    public static CacheHabitacions getInstancia() {
+        return instancia;
+    }
+
+    /**
+     * Obté la versió actual. S'ha de llegir abans de consultar la base de dades i passar-la en desar el resultat.
+     * @return La versió actual de la memòria cau.
+     */
+    public long getVersio() {
+        return versio.get();
+    }
+
+    /**
+     * Obté una còpia d'una habitació de la memòria cau.
+     * @param numeroHabitacio El número de l'habitació.
+     * @return Una còpia de l'habitació, o null si no hi és.
+     */
+    public Habitacio obtenir(int numeroHabitacio) {
+        Habitacio habitacio = perNumero.get(numeroHabitacio);
+        if (habitacio == null) {
+            fallades.incrementAndGet();
+            return null;
+        }
+        encerts.incrementAndGet();
+        return copiar(habitacio);
+    }
+
+    /**
+     * Obté una còpia de la llista completa d'habitacions.
+     * @return Les habitacions, o null si la llista no és a la memòria cau.
+     */
+    public List<Habitacio> obtenirTotes() {
+        List<Habitacio> llista = totes;
+        if (llista == null) {
+            fallades.incrementAndGet();
+            return null;
+        }
+        encerts.incrementAndGet();
+        List<Habitacio> copia = new ArrayList<>(llista.size());
+        for (Habitacio habitacio : llista) {
+            copia.add(copiar(habitacio));
+        }
+        return copia;
+    }
+
+    /**
+     * Desa una habitació llegida de la base de dades, si no hi ha hagut cap invalidació des de la lectura.
+     * @param habitacio L'habitació llegida.
+     * @param versioLectura La versió obtinguda amb getVersio() abans de llegir.
+     */
+    public synchronized void guardar(Habitacio habitacio, long versioLectura) {
+        if (versio.get() == versioLectura) {
+            perNumero.put(habitacio.getNumeroHabitacio(), copiar(habitacio));
+        }
+    }
+
+    /**
+     * Desa la llista completa d'habitacions, si no hi ha hagut cap invalidació des de la lectura.
+     * @param habitacions Les habitacions llegides.
+     * @param versioLectura La versió obtinguda amb getVersio() abans de llegir.
+     */
+    public synchronized void guardarTotes(List<Habitacio> habitacions, long versioLectura) {
+        if (versio.get() == versioLectura) {
+            List<Habitacio> copia = new ArrayList<>(habitacions.size());
+            for (Habitacio habitacio : habitacions) {
+                Habitacio guardada = copiar(habitacio);
+                copia.add(guardada);
+                perNumero.put(guardada.getNumeroHabitacio(), guardada);
+            }
+            totes = copia;
+        }
+    }
+
+    /**
+     * Invalida una habitació i la llista completa.
+     * @param numeroHabitacio El número de l'habitació que ha canviat.
+     */
+    public synchronized void invalidar(int numeroHabitacio) {
+        versio.incrementAndGet();
+        invalidacions.incrementAndGet();
+        totes = null;
+        perNumero.remove(numeroHabitacio);
+    }
+
+    /**
+     * Buida tota la memòria cau (per exemple després d'una càrrega massiva).
+     */
+    public synchronized void invalidarTot() {
+        versio.incrementAndGet();
+        invalidacions.incrementAndGet();
+        totes = null;
+        perNumero.clear();
+    }
+
+    /**
+     * Obté els comptadors d'ús de la memòria cau.
+     * @return Les estadístiques de la memòria cau.
+     */
+    public Estadistiques getEstadistiques() {
+        return new Estadistiques(encerts.get(), fallades.get(), invalidacions.get(), perNumero.size(), totes != null);
+    }
+
+    private static Habitacio copiar(Habitacio habitacio) {
+        return new Habitacio(habitacio.getNumeroHabitacio(), habitacio.getTipus(),
+                habitacio.getPreuPerNit(), habitacio.isDisponible());
+    }
+
+    /**
+     * Fotografia dels comptadors de la memòria cau en un moment donat.
+     */
+    public static class Estadistiques {
+        private final long encerts;
+        private final long fallades;
+        private final long invalidacions;
+        private final int entrades;
+        private final boolean catalegComplet;
+
+        Estadistiques(long encerts, long fallades, long invalidacions, int entrades, boolean catalegComplet) {
+            this.encerts = encerts;
+            this.fallades = fallades;
+            this.invalidacions = invalidacions;
+            this.entrades = entrades;
+            this.catalegComplet = catalegComplet;
+        }
+
+        public long getEncerts() {
+            return encerts;
+        }
+
+        public long getFallades() {
+            return fallades;
+        }
+
+        public long getInvalidacions() {
+            return invalidacions;
+        }
+
+        public int getEntrades() {
+            return entrades;
+        }
+
+        public boolean isCatalegComplet() {
+            return catalegComplet;
+        }
+
+        /**
+         * @return La proporció de consultes resoltes per la memòria cau (entre 0 i 1).
+         */
+        public double getRatioEncerts() {
+            long total = encerts + fallades;
+            return total == 0 ? 0.0 : (double) encerts / total;
+        }
+
+        @Override
+        public String toString() {
+            return "Cache habitacions [Encerts: " + encerts +
+                    ", Fallades: " + fallades +
+                    ", Ràtio: " + String.format("%.1f%%", getRatioEncerts() * 100) +
+                    ", Invalidacions: " + invalidacions +
+                    ", Entrades: " + entrades +
+                    ", Catàleg complet: " + (catalegComplet ? "Sí" : "No") + "]";
+        }
+    }
+}
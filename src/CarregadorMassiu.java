@@ -0,0 +1,732 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Càrrega massiva d'habitacions, clients i reserves des de fitxers CSV.
+ * Les files es validen amb les mateixes regles que els serveis i s'insereixen per lots
+ * (addBatch/executeBatch), confirmant una transacció per lot. Les reserves carregades només arriben a
+ * l'IndexReserves del procés que fa la càrrega; els servidors que ja estan en marxa s'han de reiniciar (o executar
+ * amb l'índex desactivat) perquè les tinguin en compte a les cerques. Les nits de cada lot de reserves se sumen a
+ * l'ocupació diària dins de la transacció del lot.
+ *
+ * Format dels fitxers (amb capçalera, separats per comes, dates en format aaaa-mm-dd):
+ *   habitacions: numero_habitacio,tipus,preu_per_nit[,disponible]
+ *   clients:     nom,cognoms,data_naixement,email,telefon
+ *   reserves:    numero_habitacio,id_client|email_client,data_entrada,data_sortida
+ */
+public class CarregadorMassiu {
+
+    private static final int MIDA_LOT = 1000;
+
+    private final int midaLot;
+
+    /**
+     * Constructor per defecte, amb lots de 1000 files.
+     */
+    public CarregadorMassiu() {
+        this(MIDA_LOT);
+    }
+
+    /**
+     * Constructor amb la mida dels lots.
+     * @param midaLot Nombre de files que s'insereixen en cada transacció.
+     */
+    public CarregadorMassiu(int midaLot) {
+        this.midaLot = midaLot;
+    }
+
+    /**
+     * Carrega habitacions d'un fitxer CSV.
+     * @param nom El nom del fitxer, per a l'informe.
+     * @param lector El contingut del fitxer.
+     * @return L'informe de la càrrega.
+     * @throws IOException Si hi ha algun problema en llegir el fitxer.
+     */
+    public InformeCarrega carregarHabitacions(String nom, Reader lector) throws IOException {
+        String sql = "INSERT INTO habitacions (numero_habitacio, tipus, preu_per_nit, disponible) VALUES (?, ?, ?, ?)";
+        InformeCarrega informe = new InformeCarrega(nom);
+        long inici = System.currentTimeMillis();
+
+        Set<Integer> numerosExistents = new HashSet<>();
+        for (Habitacio habitacio : new HabitacioDAO().obtenirTotesLesHabitacions()) {
+            numerosExistents.add(habitacio.getNumeroHabitacio());
+        }
+
+        try (LectorCsv csv = new LectorCsv(lector);
+             Connection conn = ConnectionManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            conn.setAutoCommit(false);
+            List<Integer> linies = new ArrayList<>();
+            String[] fila;
+
+            while ((fila = csv.seguent()) != null) {
+                informe.filaLlegida();
+                try {
+                    int numeroHabitacio = Integer.parseInt(csv.valor(fila, "numero_habitacio"));
+                    String tipus = csv.valor(fila, "tipus");
+                    double preuPerNit = Double.parseDouble(csv.valor(fila, "preu_per_nit"));
+                    String disponible = csv.valorOpcional(fila, "disponible");
+
+                    String error = HabitacioService.validarHabitacio(preuPerNit);
+                    if (error == null && !numerosExistents.add(numeroHabitacio)) {
+                        error = "Ja existeix una habitació amb el número " + numeroHabitacio;
+                    }
+                    if (error != null) {
+                        informe.filaRebutjada(csv.getLinia(), error);
+                        continue;
+                    }
+
+                    stmt.setInt(1, numeroHabitacio);
+                    stmt.setString(2, tipus);
+                    stmt.setDouble(3, preuPerNit);
+                    stmt.setBoolean(4, disponible == null || llegirBoolea(disponible));
+                    stmt.addBatch();
+                    linies.add(csv.getLinia());
+                } catch (IllegalArgumentException e) {
+                    informe.filaRebutjada(csv.getLinia(), e.getMessage());
+                    continue;
+                }
+
+                if (linies.size() >= midaLot) {
+                    executarLot(conn, stmt, linies, informe, false);
+                }
+            }
+            executarLot(conn, stmt, linies, informe, false);
+
+        } catch (SQLException e) {
+            System.err.println("Error en carregar les habitacions: " + e.getMessage());
+        } finally {
+            CacheHabitacions.getInstancia().invalidarTot();
+        }
+
+        informe.setMilisegons(System.currentTimeMillis() - inici);
+        return informe;
+    }
+
+    /**
+     * Carrega clients d'un fitxer CSV.
+     * @param nom El nom del fitxer, per a l'informe.
+     * @param lector El contingut del fitxer.
+     * @return L'informe de la càrrega, amb els ID generats per als clients inserits.
+     * @throws IOException Si hi ha algun problema en llegir el fitxer.
+     */
+    public InformeCarrega carregarClients(String nom, Reader lector) throws IOException {
+        String sql = "INSERT INTO clients (nom, cognoms, data_naixement, email, telefon) VALUES (?, ?, ?, ?, ?)";
+        InformeCarrega informe = new InformeCarrega(nom);
+        long inici = System.currentTimeMillis();
+
+        try (LectorCsv csv = new LectorCsv(lector);
+             Connection conn = ConnectionManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            conn.setAutoCommit(false);
+            Set<String> emailsFitxer = new HashSet<>();
+            List<Client> pendents = new ArrayList<>();
+            List<Integer> liniesPendents = new ArrayList<>();
+            String[] fila;
+
+            while ((fila = csv.seguent()) != null) {
+                informe.filaLlegida();
+                try {
+                    Client client = new Client(0, csv.valor(fila, "nom"), csv.valor(fila, "cognoms"),
+                            llegirData(csv.valor(fila, "data_naixement")), csv.valor(fila, "email"),
+                            csv.valor(fila, "telefon"));
+
+                    String error = ClientService.validarClient(client.getNom(), client.getCognoms(),
+                            client.getDataNaixement(), client.getEmail(), client.getTelefon());
+                    if (error == null && !emailsFitxer.add(normalitzar(client.getEmail()))) {
+                        error = "L'email " + client.getEmail() + " està repetit al fitxer";
+                    }
+                    if (error != null) {
+                        informe.filaRebutjada(csv.getLinia(), error);
+                        continue;
+                    }
+
+                    pendents.add(client);
+                    liniesPendents.add(csv.getLinia());
+                } catch (IllegalArgumentException e) {
+                    informe.filaRebutjada(csv.getLinia(), e.getMessage());
+                    continue;
+                }
+
+                if (pendents.size() >= midaLot) {
+                    inserirClients(conn, stmt, pendents, liniesPendents, informe);
+                }
+            }
+            inserirClients(conn, stmt, pendents, liniesPendents, informe);
+
+        } catch (SQLException e) {
+            System.err.println("Error en carregar els clients: " + e.getMessage());
+        }
+
+        informe.setMilisegons(System.currentTimeMillis() - inici);
+        return informe;
+    }
+
+    /**
+     * Carrega reserves d'un fitxer CSV. El client s'indica per id_client o per email_client.
+     * Com que poden ser reserves ja existents (per exemple històriques), no es comprova que les dates siguin futures.
+     * Sí que es rebutgen les que se solapen amb una altra reserva de la mateixa habitació, igual que a
+     * ReservaDAO.afegirReserva: cada lot bloqueja les seves habitacions (en memòria i amb SELECT ... FOR UPDATE, en
+     * ordre) fins que es confirma, de manera que la càrrega es pot fer mentre es reserva sense crear dobles reserves.
+     * @param nom El nom del fitxer, per a l'informe.
+     * @param lector El contingut del fitxer.
+     * @return L'informe de la càrrega, amb els ID generats per a les reserves inserides.
+     * @throws IOException Si hi ha algun problema en llegir el fitxer.
+     */
+    public InformeCarrega carregarReserves(String nom, Reader lector) throws IOException {
+        String sql = "INSERT INTO reserves (numero_habitacio, id_client, data_entrada, data_sortida, total_a_pagar) VALUES (?, ?, ?, ?, ?)";
+        InformeCarrega informe = new InformeCarrega(nom);
+        long inici = System.currentTimeMillis();
+
+        Map<Integer, Habitacio> habitacions = new HashMap<>();
+        for (Habitacio habitacio : new HabitacioDAO().obtenirTotesLesHabitacions()) {
+            habitacions.put(habitacio.getNumeroHabitacio(), habitacio);
+        }
+
+        try (LectorCsv csv = new LectorCsv(lector);
+             Connection conn = ConnectionManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            conn.setAutoCommit(false);
+            boolean perEmail = csv.teColumna("email_client");
+            List<FilaReserva> pendents = new ArrayList<>();
+            String[] fila;
+
+            while ((fila = csv.seguent()) != null) {
+                informe.filaLlegida();
+                try {
+                    FilaReserva reserva = new FilaReserva();
+                    reserva.linia = csv.getLinia();
+                    reserva.numeroHabitacio = Integer.parseInt(csv.valor(fila, "numero_habitacio"));
+                    if (perEmail) {
+                        reserva.emailClient = csv.valor(fila, "email_client");
+                    } else {
+                        reserva.idClient = Integer.parseInt(csv.valor(fila, "id_client"));
+                    }
+                    reserva.dataEntrada = llegirData(csv.valor(fila, "data_entrada"));
+                    reserva.dataSortida = llegirData(csv.valor(fila, "data_sortida"));
+
+                    String error = ReservaService.validarPeriode(reserva.dataEntrada, reserva.dataSortida);
+                    if (error == null && !habitacions.containsKey(reserva.numeroHabitacio)) {
+                        error = "No existeix cap habitació amb el número " + reserva.numeroHabitacio;
+                    }
+                    if (error != null) {
+                        informe.filaRebutjada(reserva.linia, error);
+                        continue;
+                    }
+
+                    pendents.add(reserva);
+                } catch (IllegalArgumentException e) {
+                    informe.filaRebutjada(csv.getLinia(), e.getMessage());
+                    continue;
+                }
+
+                if (pendents.size() >= midaLot) {
+                    inserirReserves(conn, stmt, pendents, habitacions, informe);
+                }
+            }
+            inserirReserves(conn, stmt, pendents, habitacions, informe);
+
+        } catch (SQLException e) {
+            System.err.println("Error en carregar les reserves: " + e.getMessage());
+        }
+
+        informe.setMilisegons(System.currentTimeMillis() - inici);
+        return informe;
+    }
+
+    /**
+     * Insereix un lot de clients, descartant abans els que ja existeixen a la base de dades.
+     */
+    private void inserirClients(Connection conn, PreparedStatement stmt, List<Client> pendents,
+                                List<Integer> linies, InformeCarrega informe) throws SQLException {
+        if (pendents.isEmpty()) {
+            return;
+        }
+
+        List<String> emails = new ArrayList<>();
+        for (Client client : pendents) {
+            emails.add(client.getEmail());
+        }
+        Map<String, Integer> existents = idsPerEmail(conn, emails);
+
+        List<Integer> liniesLot = new ArrayList<>();
+        for (int i = 0; i < pendents.size(); i++) {
+            Client client = pendents.get(i);
+            if (existents.containsKey(normalitzar(client.getEmail()))) {
+                informe.filaRebutjada(linies.get(i), "Ja existeix un client amb l'email " + client.getEmail());
+                continue;
+            }
+
+            stmt.setString(1, client.getNom());
+            stmt.setString(2, client.getCognoms());
+            stmt.setDate(3, Date.valueOf(client.getDataNaixement()));
+            stmt.setString(4, client.getEmail());
+            stmt.setString(5, client.getTelefon());
+            stmt.addBatch();
+            liniesLot.add(linies.get(i));
+        }
+
+        executarLot(conn, stmt, liniesLot, informe, true);
+        pendents.clear();
+        linies.clear();
+    }
+
+    /**
+     * Insereix un lot de reserves amb les seves habitacions bloquejades en memòria fins que el lot s'ha confirmat.
+     */
+    private void inserirReserves(Connection conn, PreparedStatement stmt, List<FilaReserva> pendents,
+                                 Map<Integer, Habitacio> habitacions, InformeCarrega informe) throws SQLException {
+        if (pendents.isEmpty()) {
+            return;
+        }
+
+        // Bloquejar les habitacions del lot fins que es confirmi, en el mateix ordre que qualsevol altre lot
+        Set<Integer> numeros = new TreeSet<>();
+        for (FilaReserva fila : pendents) {
+            numeros.add(fila.numeroHabitacio);
+        }
+        BloquejosHabitacions.Bloqueig bloqueig = BloquejosHabitacions.getInstancia().bloquejar(numeros);
+        try {
+            inserirReservesBloquejades(conn, stmt, pendents, numeros, habitacions, informe);
+        } finally {
+            bloqueig.close();
+        }
+        pendents.clear();
+    }
+
+    /**
+     * Insereix un lot de reserves amb les habitacions ja bloquejades en memòria: bloqueja les files de les habitacions,
+     * rebutja les reserves que se solapen amb una altra i confirma la resta.
+     */
+    private void inserirReservesBloquejades(Connection conn, PreparedStatement stmt, List<FilaReserva> pendents,
+                                            Set<Integer> numeros, Map<Integer, Habitacio> habitacions,
+                                            InformeCarrega informe) throws SQLException {
+        // Resoldre els clients del lot amb una sola consulta
+        Map<String, Integer> idsPerEmail = null;
+        Set<Integer> idsExistents = null;
+        if (pendents.get(0).emailClient != null) {
+            List<String> emails = new ArrayList<>();
+            for (FilaReserva fila : pendents) {
+                emails.add(fila.emailClient);
+            }
+            idsPerEmail = idsPerEmail(conn, emails);
+        } else {
+            List<Integer> ids = new ArrayList<>();
+            for (FilaReserva fila : pendents) {
+                ids.add(fila.idClient);
+            }
+            idsExistents = idsExistents(conn, ids);
+        }
+
+        Map<Integer, String> tipus = new HashMap<>();
+        try {
+            for (int numero : numeros) {
+                tipus.put(numero, ReservaDAO.bloquejarHabitacio(conn, numero));
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            informe.lotRebutjat(pendents.get(0).linia, pendents.get(pendents.size() - 1).linia, pendents.size(),
+                    e.getMessage());
+            return;
+        }
+
+        List<Integer> liniesLot = new ArrayList<>();
+        List<Reserva> reservesLot = new ArrayList<>();
+        OcupacioDiariaDAO.Increments increments = new OcupacioDiariaDAO.Increments();
+
+        for (FilaReserva fila : pendents) {
+            int idClient;
+            if (idsPerEmail != null) {
+                Integer id = idsPerEmail.get(normalitzar(fila.emailClient));
+                if (id == null) {
+                    informe.filaRebutjada(fila.linia, "No existeix cap client amb l'email " + fila.emailClient);
+                    continue;
+                }
+                idClient = id;
+            } else {
+                if (!idsExistents.contains(fila.idClient)) {
+                    informe.filaRebutjada(fila.linia, "No existeix cap client amb l'ID " + fila.idClient);
+                    continue;
+                }
+                idClient = fila.idClient;
+            }
+
+            if (tipus.get(fila.numeroHabitacio) == null) {
+                informe.filaRebutjada(fila.linia, "No existeix cap habitació amb el número " + fila.numeroHabitacio);
+                continue;
+            }
+            if (seSolapa(fila, reservesLot) || ReservaDAO.hiHaSolapament(conn, fila.numeroHabitacio,
+                    fila.dataEntrada, fila.dataSortida, true)) {
+                informe.filaRebutjada(fila.linia, "L'habitació " + fila.numeroHabitacio +
+                        " ja està reservada per al període");
+                continue;
+            }
+
+            Client client = new Client();
+            client.setIdClient(idClient);
+            Reserva reserva = new Reserva(0, habitacions.get(fila.numeroHabitacio), client,
+                    fila.dataEntrada, fila.dataSortida);
+
+            stmt.setInt(1, fila.numeroHabitacio);
+            stmt.setInt(2, idClient);
+            stmt.setDate(3, Date.valueOf(fila.dataEntrada));
+            stmt.setDate(4, Date.valueOf(fila.dataSortida));
+            stmt.setDouble(5, reserva.getTotalAPagar());
+            stmt.addBatch();
+            liniesLot.add(fila.linia);
+            reservesLot.add(reserva);
+            increments.afegirEstada(tipus.get(fila.numeroHabitacio), fila.dataEntrada, fila.dataSortida,
+                    reserva.getTotalAPagar());
+        }
+
+        if (liniesLot.isEmpty()) {
+            conn.rollback(); // Allibera les files de les habitacions bloquejades
+            return;
+        }
+        List<Integer> claus = executarLot(conn, stmt, liniesLot, informe, true, increments);
+
+        // Mantenir al dia l'índex de disponibilitat d'aquest procés amb les reserves confirmades. Només serveix si el
+        // carregador s'executa dins del procés que atén les cerques; els altres processos no el veuen (IndexReserves)
+        for (int i = 0; i < claus.size() && i < reservesLot.size(); i++) {
+            Reserva reserva = reservesLot.get(i);
+            IndexReserves.getInstancia().afegir(reserva.getNumeroHabitacio(), claus.get(i),
+                    reserva.getDataEntrada(), reserva.getDataSortida());
+        }
+    }
+
+    /**
+     * Indica si la fila se solapa amb alguna reserva del mateix lot que encara no s'ha confirmat.
+     */
+    private static boolean seSolapa(FilaReserva fila, List<Reserva> reservesLot) {
+        for (Reserva reserva : reservesLot) {
+            if (reserva.getNumeroHabitacio() == fila.numeroHabitacio
+                    && reserva.getDataEntrada().isBefore(fila.dataSortida)
+                    && fila.dataEntrada.isBefore(reserva.getDataSortida())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Executa el lot preparat a la sentència i el confirma. Si falla, es desfà sencer i es marca com a rebutjat.
+     * @return Les claus generades, si se'n demanen i el lot s'ha confirmat.
+     */
+    private List<Integer> executarLot(Connection conn, PreparedStatement stmt, List<Integer> linies,
+                                      InformeCarrega informe, boolean ambClaus) throws SQLException {
+        return executarLot(conn, stmt, linies, informe, ambClaus, null);
+    }
+
+    /**
+     * Executa el lot preparat a la sentència i, en la mateixa transacció, els canvis a l'ocupació diària.
+     * @param increments Els canvis a l'ocupació diària del lot, o null si no n'hi ha.
+     * @return Les claus generades, si se'n demanen i el lot s'ha confirmat.
+     */
+    private List<Integer> executarLot(Connection conn, PreparedStatement stmt, List<Integer> linies,
+                                      InformeCarrega informe, boolean ambClaus,
+                                      OcupacioDiariaDAO.Increments increments) throws SQLException {
+        List<Integer> claus = new ArrayList<>();
+        if (linies.isEmpty()) {
+            return claus;
+        }
+
+        try {
+            stmt.executeBatch();
+            if (ambClaus) {
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    while (generatedKeys.next()) {
+                        claus.add(generatedKeys.getInt(1));
+                    }
+                }
+            }
+            if (increments != null) {
+                increments.aplicar(conn);
+            }
+            conn.commit();
+
+            informe.filesInserides(linies.size());
+            for (Integer clau : claus) {
+                informe.clauGenerada(clau);
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            stmt.clearBatch();
+            claus.clear();
+            informe.lotRebutjat(linies.get(0), linies.get(linies.size() - 1), linies.size(), e.getMessage());
+        }
+
+        linies.clear();
+        return claus;
+    }
+
+    /**
+     * Obté els ID dels clients amb els emails indicats, indexats per l'email normalitzat.
+     */
+    private Map<String, Integer> idsPerEmail(Connection conn, Collection<String> emails) throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        String sql = "SELECT id_client, email FROM clients WHERE email IN (" + marcadors(emails.size()) + ")";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (String email : emails) {
+                stmt.setString(index++, email);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.put(normalitzar(rs.getString("email")), rs.getInt("id_client"));
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Obté quins dels ID de client indicats existeixen a la base de dades.
+     */
+    private Set<Integer> idsExistents(Connection conn, Collection<Integer> idsClients) throws SQLException {
+        Set<Integer> ids = new HashSet<>();
+        String sql = "SELECT id_client FROM clients WHERE id_client IN (" + marcadors(idsClients.size()) + ")";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (Integer id : idsClients) {
+                stmt.setInt(index++, id);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt("id_client"));
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    private static String marcadors(int quantitat) {
+        StringBuilder marcadors = new StringBuilder();
+        for (int i = 0; i < quantitat; i++) {
+            marcadors.append(i == 0 ? "?" : ", ?");
+        }
+        return marcadors.toString();
+    }
+
+    private static String normalitzar(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static LocalDate llegirData(String valor) {
+        try {
+            return LocalDate.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Data no vàlida: " + valor);
+        }
+    }
+
+    private static boolean llegirBoolea(String valor) {
+        String normalitzat = valor.trim().toLowerCase(Locale.ROOT);
+        return normalitzat.equals("true") || normalitzat.equals("1") || normalitzat.equals("s")
+                || normalitzat.equals("si") || normalitzat.equals("sí");
+    }
+
+    /**
+     * Dades d'una fila del fitxer de reserves abans de resoldre el client.
+     */
+    private static class FilaReserva {
+        private int linia;
+        private int numeroHabitacio;
+        private int idClient;
+        private String emailClient;
+        private LocalDate dataEntrada;
+        private LocalDate dataSortida;
+    }
+
+    /**
+     * Lector de CSV senzill: primera línia de capçalera, camps separats per comes i
+     * camps opcionalment entre cometes dobles (amb "" per escriure una cometa).
+     */
+    private static class LectorCsv implements AutoCloseable {
+        private final BufferedReader lector;
+        private final Map<String, Integer> columnes = new HashMap<>();
+        private int linia = 0;
+
+        LectorCsv(Reader lector) throws IOException {
+            this.lector = new BufferedReader(lector);
+            String capcalera = this.lector.readLine();
+            linia++;
+            if (capcalera == null) {
+                throw new IOException("El fitxer és buit");
+            }
+            String[] noms = separar(capcalera.replace("\uFEFF", ""));
+            for (int i = 0; i < noms.length; i++) {
+                columnes.put(noms[i].trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+
+        /**
+         * @return La següent fila no buida, o null al final del fitxer.
+         */
+        String[] seguent() throws IOException {
+            String text;
+            while ((text = lector.readLine()) != null) {
+                linia++;
+                if (!text.trim().isEmpty()) {
+                    return separar(text);
+                }
+            }
+            return null;
+        }
+
+        int getLinia() {
+            return linia;
+        }
+
+        boolean teColumna(String nom) {
+            return columnes.containsKey(nom);
+        }
+
+        String valor(String[] fila, String columna) {
+            String valor = valorOpcional(fila, columna);
+            if (valor == null) {
+                throw new IllegalArgumentException("Falta la columna " + columna);
+            }
+            return valor;
+        }
+
+        String valorOpcional(String[] fila, String columna) {
+            Integer index = columnes.get(columna);
+            if (index == null || index >= fila.length) {
+                return null;
+            }
+            return fila[index].trim();
+        }
+
+        private static String[] separar(String text) {
+            List<String> camps = new ArrayList<>();
+            StringBuilder camp = new StringBuilder();
+            boolean entreCometes = false;
+
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (entreCometes) {
+                    if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        camp.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        entreCometes = false;
+                    } else {
+                        camp.append(c);
+                    }
+                } else if (c == '"') {
+                    entreCometes = true;
+                } else if (c == ',') {
+                    camps.add(camp.toString());
+                    camp.setLength(0);
+                } else {
+                    camp.append(c);
+                }
+            }
+            camps.add(camp.toString());
+
+            return camps.toArray(new String[0]);
+        }
+
+        @Override
+        public void close() throws IOException {
+            lector.close();
+        }
+    }
+
+    /**
+     * Carrega els fitxers indicats, en aquest ordre: habitacions, clients i reserves.
+     * Amb --reconstruir-ocupacio, en acabar torna a calcular l'ocupació diària a partir de totes les reserves
+     * (per exemple després d'inserir reserves directament a la base de dades); es pot fer servir sense fitxers.
+     * Ús: java CarregadorMassiu [--habitacions fitxer.csv] [--clients fitxer.csv] [--reserves fitxer.csv]
+     *     [--reconstruir-ocupacio]
+     * @param args Arguments de la línia d'ordres.
+     */
+    public static void main(String[] args) {
+        Map<String, String> fitxers = new HashMap<>();
+        boolean reconstruirOcupacio = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--reconstruir-ocupacio")) {
+                reconstruirOcupacio = true;
+            } else if (i + 1 < args.length) {
+                fitxers.put(args[i], args[++i]);
+            }
+        }
+
+        if (fitxers.isEmpty() && !reconstruirOcupacio) {
+            System.out.println("Ús: java CarregadorMassiu [--habitacions fitxer.csv] [--clients fitxer.csv] [--reserves fitxer.csv] " +
+                    "[--reconstruir-ocupacio]");
+            return;
+        }
+
+        CarregadorMassiu carregador = new CarregadorMassiu();
+        try {
+            List<InformeCarrega> informes = new ArrayList<>();
+            if (fitxers.containsKey("--habitacions")) {
+                String fitxer = fitxers.get("--habitacions");
+                try (Reader lector = Files.newBufferedReader(Paths.get(fitxer), StandardCharsets.UTF_8)) {
+                    informes.add(carregador.carregarHabitacions(fitxer, lector));
+                }
+            }
+            if (fitxers.containsKey("--clients")) {
+                String fitxer = fitxers.get("--clients");
+                try (Reader lector = Files.newBufferedReader(Paths.get(fitxer), StandardCharsets.UTF_8)) {
+                    informes.add(carregador.carregarClients(fitxer, lector));
+                }
+            }
+            if (fitxers.containsKey("--reserves")) {
+                String fitxer = fitxers.get("--reserves");
+                try (Reader lector = Files.newBufferedReader(Paths.get(fitxer), StandardCharsets.UTF_8)) {
+                    informes.add(carregador.carregarReserves(fitxer, lector));
+                }
+                System.out.println("Els processos que ja estaven en marxa amb l'índex de reserves carregat no veuran " +
+                        "aquestes reserves a les cerques de disponibilitat fins que es reiniciïn.");
+            }
+
+            for (InformeCarrega informe : informes) {
+                System.out.println(informe);
+                for (String error : informe.getErrors()) {
+                    System.out.println("  " + error);
+                }
+            }
+
+            if (reconstruirOcupacio) {
+                int files = new OcupacioDiariaDAO().reconstruir();
+                if (files >= 0) {
+                    System.out.println("Ocupació diària reconstruïda: " + files + " files (dia i tipus).");
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error en la càrrega massiva: " + e.getMessage());
+        } finally {
+            ConnectionManager.closeConnection();
+        }
+    }
+}
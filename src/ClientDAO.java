@@ -2,44 +2,70 @@ import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * DAO per gestionar les operacions CRUD de clients a la base de dades.
+ * Les consultes per ID i per email passen per una memòria cau LRU compartida que les escriptures invaliden.
  */
 public class ClientDAO {
 
+    // Configuració per defecte de la memòria cau de clients
+    private static final int CACHE_MAX_ENTRADES = 10000;
+    private static final long CACHE_TEMPS_VIDA_MS = 10 * 60 * 1000;
+
+    private static volatile CacheClients cache = new CacheClients(CACHE_MAX_ENTRADES, CACHE_TEMPS_VIDA_MS);
+
+    /**
+     * Canvia la configuració de la memòria cau de clients. Els clients guardats es descarten.
+     * @param maxEntrades Nombre màxim de clients guardats.
+     * @param tempsVidaMillis Temps màxim que es guarda un client.
+     */
+    public static void configurarCache(int maxEntrades, long tempsVidaMillis) {
+        cache = new CacheClients(maxEntrades, tempsVidaMillis);
+    }
+
+    /**
+     * Obté les estadístiques de la memòria cau de clients.
+     * @return Les estadístiques de la memòria cau.
+     */
+    public static CacheClients.Estadistiques obtenirEstadistiquesCache() {
+        return cache.getEstadistiques();
+    }
+
     /**
      * Afegeix un nou client a la base de dades.
      * @param client El client a afegir.
      * @return l'ID del client afegit o -1 si hi ha hagut algun error.
      */
     public int afegirClient(Client client) {
-        String sql = "INSERT INTO clients (nom, cognoms, data_naixement, email, telefon) VALUES (?, ?, ?, ?, ?)";
-
-        try (Connection conn = ConnectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ClientDAO.afegirClient")) {
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.CLIENT_INSERIR.preparar(conn)) {
 
-            stmt.setString(1, client.getNom());
-            stmt.setString(2, client.getCognoms());
-            stmt.setDate(3, Date.valueOf(client.getDataNaixement()));
-            stmt.setString(4, client.getEmail());
-            stmt.setString(5, client.getTelefon());
+                stmt.setString(1, client.getNom());
+                stmt.setString(2, client.getCognoms());
+                stmt.setDate(3, Date.valueOf(client.getDataNaixement()));
+                stmt.setString(4, client.getEmail());
+                stmt.setString(5, client.getTelefon());
 
-            int files = stmt.executeUpdate();
+                int files = stmt.executeUpdate();
 
-            if (files > 0) {
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        return generatedKeys.getInt(1);
+                if (files > 0) {
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            return generatedKeys.getInt(1);
+                        }
                     }
                 }
+
+            } catch (SQLException e) {
+                System.err.println("Error en afegir el client: " + e.getMessage());
+                mesura.error();
             }
 
-        } catch (SQLException e) {
-            System.err.println("Error en afegir el client: " + e.getMessage());
+            return -1;
         }
-
-        return -1;
     }
 
     /**
@@ -48,19 +74,22 @@ public class ClientDAO {
      * @return true si s'ha eliminat correctament, false en cas contrari.
      */
     public boolean eliminarClient(int idClient) {
-        String sql = "DELETE FROM clients WHERE id_client = ?";
-
-        try (Connection conn = ConnectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ClientDAO.eliminarClient")) {
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.CLIENT_ELIMINAR.preparar(conn)) {
 
-            stmt.setInt(1, idClient);
+                stmt.setInt(1, idClient);
 
-            int files = stmt.executeUpdate();
-            return files > 0;
+                int files = stmt.executeUpdate();
+                return files > 0;
 
-        } catch (SQLException e) {
-            System.err.println("Error en eliminar el client: " + e.getMessage());
-            return false;
+            } catch (SQLException e) {
+                System.err.println("Error en eliminar el client: " + e.getMessage());
+                mesura.error();
+                return false;
+            } finally {
+                invalidarCache(idClient);
+            }
         }
     }
 
@@ -70,24 +99,27 @@ public class ClientDAO {
      * @return true si s'ha actualitzat correctament, false en cas contrari.
      */
     public boolean actualitzarClient(Client client) {
-        String sql = "UPDATE clients SET nom = ?, cognoms = ?, data_naixement = ?, email = ?, telefon = ? WHERE id_client = ?";
+        try (Metriques.Mesura mesura = Metriques.iniciar("ClientDAO.actualitzarClient")) {
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.CLIENT_ACTUALITZAR.preparar(conn)) {
 
-        try (Connection conn = ConnectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, client.getNom());
+                stmt.setString(2, client.getCognoms());
+                stmt.setDate(3, Date.valueOf(client.getDataNaixement()));
+                stmt.setString(4, client.getEmail());
+                stmt.setString(5, client.getTelefon());
+                stmt.setInt(6, client.getIdClient());
 
-            stmt.setString(1, client.getNom());
-            stmt.setString(2, client.getCognoms());
-            stmt.setDate(3, Date.valueOf(client.getDataNaixement()));
-            stmt.setString(4, client.getEmail());
-            stmt.setString(5, client.getTelefon());
-            stmt.setInt(6, client.getIdClient());
+                int files = stmt.executeUpdate();
+                return files > 0;
 
-            int files = stmt.executeUpdate();
-            return files > 0;
-
-        } catch (SQLException e) {
-            System.err.println("Error en actualitzar el client: " + e.getMessage());
-            return false;
+            } catch (SQLException e) {
+                System.err.println("Error en actualitzar el client: " + e.getMessage());
+                mesura.error();
+                return false;
+            } finally {
+                invalidarCache(client.getIdClient());
+            }
         }
     }
 
@@ -97,24 +129,78 @@ public class ClientDAO {
      * @return El client o null si no s'ha trobat.
      */
     public Client obtenirClient(int idClient) {
-        String sql = "SELECT * FROM clients WHERE id_client = ?";
+        try (Metriques.Mesura mesura = Metriques.iniciar("ClientDAO.obtenirClient")) {
+            // Dins d'una unitat de treball, la mateixa instància que ja s'hi hagi carregat
+            Client carregat = UnitatTreball.buscar(Client.class, idClient);
+            if (carregat != null) {
+                return mesura.objecte(carregat);
+            }
 
-        try (Connection conn = ConnectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            CacheClients cache = ClientDAO.cache;
+            Client enCache = cache.obtenir(idClient);
+            if (enCache != null) {
+                return mesura.objecte(UnitatTreball.registrar(Client.class, idClient, enCache));
+            }
 
-            stmt.setInt(1, idClient);
+            long versio = cache.getVersio();
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToClient(rs);
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.CLIENT_PER_ID.preparar(conn)) {
+
+                stmt.setInt(1, idClient);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        Client client = mapResultSetToClient(rs);
+                        cache.guardar(client, versio);
+                        return mesura.objecte(UnitatTreball.registrar(Client.class, idClient, client));
+                    }
                 }
+
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir el client: " + e.getMessage());
+                mesura.error();
             }
 
-        } catch (SQLException e) {
-            System.err.println("Error en obtenir el client: " + e.getMessage());
+            return null;
         }
+    }
+
+    /**
+     * Obté un client pel seu email.
+     * @param email L'email del client a obtenir.
+     * @return El client o null si no s'ha trobat.
+     */
+    public Client obtenirClientPerEmail(String email) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ClientDAO.obtenirClientPerEmail")) {
+            CacheClients cache = ClientDAO.cache;
+            Client enCache = cache.obtenirPerEmail(email);
+            if (enCache != null) {
+                return mesura.objecte(UnitatTreball.registrar(Client.class, enCache.getIdClient(), enCache));
+            }
+
+            long versio = cache.getVersio();
 
-        return null;
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.CLIENT_PER_EMAIL.preparar(conn)) {
+
+                stmt.setString(1, email);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        Client client = mapResultSetToClient(rs);
+                        cache.guardar(client, versio);
+                        return mesura.objecte(UnitatTreball.registrar(Client.class, client.getIdClient(), client));
+                    }
+                }
+
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir el client per email: " + e.getMessage());
+                mesura.error();
+            }
+
+            return null;
+        }
     }
 
     /**
@@ -122,22 +208,95 @@ public class ClientDAO {
      * @return Una llista amb tots els clients.
      */
     public List<Client> obtenirTotsElsClients() {
-        String sql = "SELECT * FROM clients";
-        List<Client> clients = new ArrayList<>();
+        try (Metriques.Mesura mesura = Metriques.iniciar("ClientDAO.obtenirTotsElsClients")) {
+            List<Client> clients = new ArrayList<>();
 
-        try (Connection conn = ConnectionManager.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.CLIENTS_TOTS.preparar(conn);
+                 ResultSet rs = stmt.executeQuery()) {
 
-            while (rs.next()) {
-                clients.add(mapResultSetToClient(rs));
+                while (rs.next()) {
+                    clients.add(mapResultSetToClient(rs));
+                }
+
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir tots els clients: " + e.getMessage());
+                mesura.error();
             }
 
+            return mesura.llista(clients);
+        }
+    }
+
+    /**
+     * Obté una pàgina de clients ordenats per ID, a partir del darrer client de la pàgina anterior.
+     * Com que busca directament per la clau primària, el temps no depèn de la profunditat de la pàgina.
+     * @param despresDeId L'ID del darrer client de la pàgina anterior, o 0 per a la primera pàgina.
+     * @param mida El nombre màxim de clients de la pàgina.
+     * @return La pàgina de clients, buida si hi ha hagut algun error.
+     */
+    public Pagina<Client> obtenirClientsPagina(int despresDeId, int mida) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ClientDAO.obtenirClientsPagina")) {
+            List<Client> clients = new ArrayList<>();
+
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.CLIENTS_PAGINA.preparar(conn)) {
+
+                stmt.setInt(1, despresDeId);
+                // Demanem una fila de més per saber si hi ha una pàgina següent
+                stmt.setInt(2, mida + 1);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        clients.add(mapResultSetToClient(rs));
+                    }
+                }
+
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir la pàgina de clients: " + e.getMessage());
+                mesura.error();
+            }
+
+            return mesura.pagina(Pagina.deFiles(clients, mida));
+        }
+    }
+
+    /**
+     * Obté tots els clients com un Stream que es llegeix a mesura que es consumeix, amb memòria constant.
+     * El Stream manté una connexió oberta i s'ha de tancar (per exemple amb try-with-resources).
+     * @return Un Stream amb tots els clients, buit si hi ha hagut algun error.
+     */
+    public Stream<Client> streamTotsElsClients() {
+        String sql = "SELECT * FROM clients ORDER BY id_client";
+        // La mesura dura fins que es tanca el Stream i compta les files que s'han llegit
+        Metriques.Mesura mesura = Metriques.iniciar("ClientDAO.streamTotsElsClients");
+
+        try {
+            return StreamConsulta.executar(sql, rs -> {
+                mesura.files(1);
+                return mapResultSetToClient(rs);
+            }).onClose(mesura::close);
         } catch (SQLException e) {
             System.err.println("Error en obtenir tots els clients: " + e.getMessage());
+            mesura.error();
+            mesura.close();
+            return Stream.empty();
         }
+    }
 
-        return clients;
+    /**
+     * Invalida un client de la memòria cau i del mapa d'identitats de la unitat de treball. Dins d'una unitat
+     * la memòria cau es torna a invalidar en acabar-la, per si mentrestant s'hi ha guardat la fila encara sense confirmar.
+     * @param idClient L'ID del client.
+     */
+    private static void invalidarCache(int idClient) {
+        CacheClients cache = ClientDAO.cache;
+        cache.invalidar(idClient);
+        UnitatTreball.oblidar(Client.class, idClient);
+        UnitatTreball unitat = UnitatTreball.getActual();
+        if (unitat != null) {
+            unitat.enAcabar(() -> cache.invalidar(idClient));
+        }
     }
 
     /**
@@ -146,7 +305,7 @@ public class ClientDAO {
      * @return L'objecte Client.
      * @throws SQLException Si hi ha algun problema amb l'accés a les dades.
      */
-    private Client mapResultSetToClient(ResultSet rs) throws SQLException {
+    static Client mapResultSetToClient(ResultSet rs) throws SQLException {
         Client client = new Client();
         client.setIdClient(rs.getInt("id_client"));
         client.setNom(rs.getString("nom"));
@@ -1,8 +1,11 @@
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Servei que gestiona les operacions de negoci relacionades amb els clients.
+ * Cada operació que escriu s'executa dins d'una UnitatTreball: una sola connexió i un sol commit.
  */
 public class ClientService {
 
@@ -25,34 +28,59 @@ public class ClientService {
      * @return l'ID del client afegit o -1 si hi ha hagut algun error.
      */
     public int afegirClient(String nom, String cognoms, LocalDate dataNaixement, String email, String telefon) {
-        // Validacions
+        try (Metriques.Mesura mesura = Metriques.iniciar("ClientService.afegirClient");
+             UnitatTreball unitat = UnitatTreball.iniciar()) {
+            // Validacions
+            String error = validarClient(nom, cognoms, dataNaixement, email, telefon);
+            if (error != null) {
+                System.err.println("Error: " + error);
+                mesura.error();
+                return -1;
+            }
+
+            if (clientDAO.obtenirClientPerEmail(email) != null) {
+                System.err.println("Error: Ja existeix un client amb l'email " + email);
+                mesura.error();
+                return -1;
+            }
+
+            Client client = new Client(0, nom, cognoms, dataNaixement, email, telefon);
+            int idClient = clientDAO.afegirClient(client);
+            return mesura.clau(idClient != -1 && unitat.confirmar() ? idClient : -1);
+        }
+    }
+
+    /**
+     * Valida les dades d'un client.
+     * @param nom El nom del client.
+     * @param cognoms Els cognoms del client.
+     * @param dataNaixement La data de naixement del client.
+     * @param email L'email del client.
+     * @param telefon El telèfon del client.
+     * @return El missatge d'error, o null si les dades són vàlides.
+     */
+    public static String validarClient(String nom, String cognoms, LocalDate dataNaixement, String email, String telefon) {
         if (nom == null || nom.trim().isEmpty()) {
-            System.err.println("Error: El nom no pot estar buit");
-            return -1;
+            return "El nom no pot estar buit";
         }
 
         if (cognoms == null || cognoms.trim().isEmpty()) {
-            System.err.println("Error: Els cognoms no poden estar buits");
-            return -1;
+            return "Els cognoms no poden estar buits";
         }
 
         if (dataNaixement == null) {
-            System.err.println("Error: La data de naixement no pot estar buida");
-            return -1;
+            return "La data de naixement no pot estar buida";
         }
 
         if (email == null || email.trim().isEmpty() || !email.contains("@")) {
-            System.err.println("Error: L'email no és vàlid");
-            return -1;
+            return "L'email no és vàlid";
         }
 
         if (telefon == null || telefon.trim().isEmpty()) {
-            System.err.println("Error: El telèfon no pot estar buit");
-            return -1;
+            return "El telèfon no pot estar buit";
         }
 
-        Client client = new Client(0, nom, cognoms, dataNaixement, email, telefon);
-        return clientDAO.afegirClient(client);
+        return null;
     }
 
     /**
@@ -61,13 +89,17 @@ public class ClientService {
      * @return true si s'ha eliminat correctament, false en cas contrari.
      */
     public boolean eliminarClient(int idClient) {
-        // Verificar que el client existeixi
-        if (clientDAO.obtenirClient(idClient) == null) {
-            System.err.println("Error: No existeix cap client amb l'ID " + idClient);
-            return false;
-        }
+        try (Metriques.Mesura mesura = Metriques.iniciar("ClientService.eliminarClient");
+             UnitatTreball unitat = UnitatTreball.iniciar()) {
+            // Verificar que el client existeixi
+            if (clientDAO.obtenirClient(idClient) == null) {
+                System.err.println("Error: No existeix cap client amb l'ID " + idClient);
+                mesura.error();
+                return false;
+            }
 
-        return clientDAO.eliminarClient(idClient);
+            return mesura.correcte(clientDAO.eliminarClient(idClient) && unitat.confirmar());
+        }
     }
 
     /**
@@ -81,62 +113,161 @@ public class ClientService {
      * @return true si s'ha actualitzat correctament, false en cas contrari.
      */
     public boolean actualitzarClient(int idClient, String nom, String cognoms, LocalDate dataNaixement, String email, String telefon) {
-        // Verificar que el client existeixi
-        Client client = clientDAO.obtenirClient(idClient);
-        if (client == null) {
-            System.err.println("Error: No existeix cap client amb l'ID " + idClient);
-            return false;
-        }
+        try (Metriques.Mesura mesura = Metriques.iniciar("ClientService.actualitzarClient");
+             UnitatTreball unitat = UnitatTreball.iniciar()) {
+            // Verificar que el client existeixi
+            Client client = clientDAO.obtenirClient(idClient);
+            if (client == null) {
+                System.err.println("Error: No existeix cap client amb l'ID " + idClient);
+                mesura.error();
+                return false;
+            }
 
-        // Validacions
-        if (nom == null || nom.trim().isEmpty()) {
-            System.err.println("Error: El nom no pot estar buit");
-            return false;
+            // Validacions
+            String error = validarClient(nom, cognoms, dataNaixement, email, telefon);
+            if (error != null) {
+                System.err.println("Error: " + error);
+                mesura.error();
+                return false;
+            }
+
+            client.setNom(nom);
+            client.setCognoms(cognoms);
+            client.setDataNaixement(dataNaixement);
+            client.setEmail(email);
+            client.setTelefon(telefon);
+
+            return mesura.correcte(clientDAO.actualitzarClient(client) && unitat.confirmar());
         }
+    }
 
-        if (cognoms == null || cognoms.trim().isEmpty()) {
-            System.err.println("Error: Els cognoms no poden estar buits");
-            return false;
+    /**
+     * Obté un client pel seu ID.
+     * @param idClient L'ID del client.
+     * @return El client o null si no s'ha trobat.
+     */
+    public Client obtenirClient(int idClient) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ClientService.obtenirClient")) {
+            return mesura.objecte(clientDAO.obtenirClient(idClient));
         }
+    }
 
-        if (dataNaixement == null) {
-            System.err.println("Error: La data de naixement no pot estar buida");
-            return false;
+    /**
+     * Obté un client pel seu email.
+     * @param email L'email del client.
+     * @return El client o null si no s'ha trobat.
+     */
+    public Client obtenirClientPerEmail(String email) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ClientService.obtenirClientPerEmail")) {
+            return mesura.objecte(clientDAO.obtenirClientPerEmail(email));
         }
+    }
 
-        if (email == null || email.trim().isEmpty() || !email.contains("@")) {
-            System.err.println("Error: L'email no és vàlid");
-            return false;
+    /**
+     * Obté tots els clients.
+     * @return Una llista amb tots els clients.
+     */
+    public List<Client> obtenirTotsElsClients() {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ClientService.obtenirTotsElsClients")) {
+            return mesura.llista(clientDAO.obtenirTotsElsClients());
         }
+    }
 
-        if (telefon == null || telefon.trim().isEmpty()) {
-            System.err.println("Error: El telèfon no pot estar buit");
-            return false;
+    /**
+     * Obté una pàgina de clients ordenats per ID.
+     * @param anterior El darrer client de la pàgina anterior, o null per a la primera pàgina.
+     * @param mida El nombre màxim de clients de la pàgina.
+     * @return La pàgina de clients.
+     */
+    public Pagina<Client> obtenirClientsPagina(Client anterior, int mida) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ClientService.obtenirClientsPagina")) {
+            return mesura.pagina(clientDAO.obtenirClientsPagina(anterior == null ? 0 : anterior.getIdClient(), mida));
         }
+    }
+
+    /**
+     * Obté tots els clients com un Stream que es llegeix a mesura que es consumeix.
+     * S'ha de tancar en acabar (per exemple amb try-with-resources).
+     * @return Un Stream amb tots els clients.
+     */
+    public Stream<Client> streamTotsElsClients() {
+        return clientDAO.streamTotsElsClients();
+    }
 
-        client.setNom(nom);
-        client.setCognoms(cognoms);
-        client.setDataNaixement(dataNaixement);
-        client.setEmail(email);
-        client.setTelefon(telefon);
+    // Variants asíncrones: s'executen a ExecutorAsincron i no bloquegen qui les crida
 
-        return clientDAO.actualitzarClient(client);
+    /**
+     * Versió asíncrona d'afegirClient().
+     * @param nom El nom del client.
+     * @param cognoms Els cognoms del client.
+     * @param dataNaixement La data de naixement del client.
+     * @param email L'email del client.
+     * @param telefon El telèfon del client.
+     * @return Un CompletableFuture amb l'ID del client afegit o -1 si hi ha hagut algun error.
+     */
+    public CompletableFuture<Integer> afegirClientAsync(String nom, String cognoms, LocalDate dataNaixement,
+                                                        String email, String telefon) {
+        return ExecutorAsincron.executar(() -> afegirClient(nom, cognoms, dataNaixement, email, telefon));
     }
 
     /**
-     * Obté un client pel seu ID.
+     * Versió asíncrona d'eliminarClient().
+     * @param idClient L'ID del client a eliminar.
+     * @return Un CompletableFuture amb true si s'ha eliminat correctament, false en cas contrari.
+     */
+    public CompletableFuture<Boolean> eliminarClientAsync(int idClient) {
+        return ExecutorAsincron.executar(() -> eliminarClient(idClient));
+    }
+
+    /**
+     * Versió asíncrona d'actualitzarClient().
+     * @param idClient L'ID del client a actualitzar.
+     * @param nom El nou nom del client.
+     * @param cognoms Els nous cognoms del client.
+     * @param dataNaixement La nova data de naixement del client.
+     * @param email El nou email del client.
+     * @param telefon El nou telèfon del client.
+     * @return Un CompletableFuture amb true si s'ha actualitzat correctament, false en cas contrari.
+     */
+    public CompletableFuture<Boolean> actualitzarClientAsync(int idClient, String nom, String cognoms,
+                                                             LocalDate dataNaixement, String email, String telefon) {
+        return ExecutorAsincron.executar(() ->
+                actualitzarClient(idClient, nom, cognoms, dataNaixement, email, telefon));
+    }
+
+    /**
+     * Versió asíncrona d'obtenirClient().
      * @param idClient L'ID del client.
-     * @return El client o null si no s'ha trobat.
+     * @return Un CompletableFuture amb el client o null si no s'ha trobat.
      */
-    public Client obtenirClient(int idClient) {
-        return clientDAO.obtenirClient(idClient);
+    public CompletableFuture<Client> obtenirClientAsync(int idClient) {
+        return ExecutorAsincron.executar(() -> obtenirClient(idClient));
     }
 
     /**
-     * Obté tots els clients.
-     * @return Una llista amb tots els clients.
+     * Versió asíncrona d'obtenirClientPerEmail().
+     * @param email L'email del client.
+     * @return Un CompletableFuture amb el client o null si no s'ha trobat.
      */
-    public List<Client> obtenirTotsElsClients() {
-        return clientDAO.obtenirTotsElsClients();
+    public CompletableFuture<Client> obtenirClientPerEmailAsync(String email) {
+        return ExecutorAsincron.executar(() -> obtenirClientPerEmail(email));
+    }
+
+    /**
+     * Versió asíncrona d'obtenirTotsElsClients().
+     * @return Un CompletableFuture amb una llista amb tots els clients.
+     */
+    public CompletableFuture<List<Client>> obtenirTotsElsClientsAsync() {
+        return ExecutorAsincron.executar(() -> obtenirTotsElsClients());
+    }
+
+    /**
+     * Versió asíncrona d'obtenirClientsPagina().
+     * @param anterior El darrer client de la pàgina anterior, o null per a la primera pàgina.
+     * @param mida El nombre màxim de clients de la pàgina.
+     * @return Un CompletableFuture amb la pàgina de clients.
+     */
+    public CompletableFuture<Pagina<Client>> obtenirClientsPaginaAsync(Client anterior, int mida) {
+        return ExecutorAsincron.executar(() -> obtenirClientsPagina(anterior, mida));
     }
-}
\ No newline at end of file
+}
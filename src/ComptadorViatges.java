@@ -0,0 +1,38 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compta els viatges d'anada i tornada a la base de dades: execucions de sentències, commits, rollbacks,
+ * canvis d'autocommit i validacions de connexions. El pool de connexions els registra automàticament.
+ * A més del total, es porta un comptador per fil, perquè qui executa una operació pugui saber
+ * quants viatges ha costat (restant el valor d'abans i el de després).
+ */
+public class ComptadorViatges {
+
+    private static final ThreadLocal<long[]> perFil = ThreadLocal.withInitial(() -> new long[1]);
+    private static final LongAdder total = new LongAdder();
+
+    private ComptadorViatges() {
+    }
+
+    /**
+     * Registra un viatge a la base de dades del fil actual.
+     */
+    static void registrar() {
+        perFil.get()[0]++;
+        total.increment();
+    }
+
+    /**
+     * @return Els viatges que ha fet el fil actual des que ha començat.
+     */
+    public static long getViatgesFil() {
+        return perFil.get()[0];
+    }
+
+    /**
+     * @return Els viatges que han fet tots els fils.
+     */
+    public static long getTotal() {
+        return total.sum();
+    }
+}
@@ -1,85 +1,121 @@
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
- * Classe que gestiona la connexió amb la base de dades.
+ * Classe que gestiona les connexions amb la base de dades a través d'un pool.
  */
 public class ConnectionManager {
 
     // Paràmetres de connexió a la base de dades
-    private static final String URL = "jdbc:mysql://localhost:3306/hotel_reserves";
+    // rewriteBatchedStatements agrupa els lots d'INSERT (addBatch) en una sola sentència;
+    // useCursorFetch fa que les consultes amb fetch size (StreamConsulta) llegeixin el resultat per blocs;
+    // useServerPrepStmts prepara les sentències al servidor, que el pool reutilitza per connexió (vegeu Consulta)
+    private static final String BASE_DADES = "hotel_reserves";
+    private static final String URL = "jdbc:mysql://localhost:3306/" + BASE_DADES +
+            "?rewriteBatchedStatements=true&useCursorFetch=true&useServerPrepStmts=true";
     private static final String USER = "root";
     private static final String PASSWORD = "2012";
 
-    private static Connection connection = null;
+    // Propietats del sistema que substitueixen els paràmetres de connexió (per exemple als benchmarks)
+    static final String PROPIETAT_URL = "hotel.db.url";
+    static final String PROPIETAT_USUARI = "hotel.db.usuari";
+    static final String PROPIETAT_CONTRASENYA = "hotel.db.contrasenya";
+
+    // Paràmetres del pool de connexions
+    private static final int POOL_MIDA_MINIMA = 2;
+    private static final int POOL_MIDA_MAXIMA = 10;
+    private static final long POOL_TEMPS_ESPERA_MS = 5000;
+    private static final long POOL_TEMPS_INACTIVITAT_MS = 5 * 60 * 1000;
+    private static final int POOL_TEMPS_VALIDACIO_S = 2;
+
+    private static volatile ConnectionPool pool = null;
 
     /**
-     * Obté una connexió a la base de dades.
+     * Obté una connexió del pool de connexions.
+     * Cal tancar-la en acabar (per exemple amb try-with-resources) perquè torni al pool.
+     * Si el fil té una UnitatTreball oberta, es retorna la connexió de la unitat i el tancament no fa res.
      * @return La connexió a la base de dades.
      * @throws SQLException Si hi ha algun problema amb la connexió.
      */
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                // Carregar el driver de MySQL
-                Class.forName("com.mysql.cj.jdbc.Driver");
+        UnitatTreball unitat = UnitatTreball.getActual();
+        if (unitat != null) {
+            return unitat.getConnexio();
+        }
+        return getPool().getConnection();
+    }
 
-                // Establir la connexió
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
-            } catch (ClassNotFoundException e) {
-                throw new SQLException("No s'ha trobat el driver de MySQL", e);
-            }
+    /**
+     * Obté una connexió del pool encara que hi hagi una unitat de treball oberta (la fa servir la mateixa unitat).
+     * @return La connexió a la base de dades.
+     * @throws SQLException Si hi ha algun problema amb la connexió.
+     */
+    static Connection getConnexioPool() throws SQLException {
+        return getPool().getConnection();
+    }
+
+    /**
+     * Tanca el pool i totes les connexions a la base de dades.
+     */
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
         }
-        return connection;
     }
 
     /**
-     * Tanca la connexió a la base de dades.
+     * Indica si les connexions van a la base de dades de l'hotel: no s'ha indicat cap URL amb hotel.db.url, o la
+     * indicada apunta a una base de dades amb el mateix nom.
+     * @return true si es fa servir la base de dades de l'hotel, false si s'ha indicat una altra base de dades.
      */
-    public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            System.err.println("Error en tancar la connexió: " + e.getMessage());
+    static boolean isBaseDadesHotel() {
+        String url = System.getProperty(PROPIETAT_URL);
+        if (url == null) {
+            return true;
         }
+        int parametres = url.indexOf('?');
+        String sensParametres = parametres >= 0 ? url.substring(0, parametres) : url;
+        return sensParametres.substring(sensParametres.lastIndexOf('/') + 1).equalsIgnoreCase(BASE_DADES);
     }
 
     /**
-     * Script SQL per crear les taules de la base de dades.
-     * @return String amb les comandes SQL per crear les taules.
+     * Obté les estadístiques actuals del pool de connexions.
+     * @return Les estadístiques del pool, o null si encara no s'ha creat.
      */
-    public static String getCreateTablesScript() {
-        return "CREATE DATABASE IF NOT EXISTS hotel_reserves;\n" +
-                "USE hotel_reserves;\n\n" +
+    public static ConnectionPool.Estadistiques getPoolStatistics() {
+        ConnectionPool actual = pool;
+        return actual != null ? actual.getEstadistiques() : null;
+    }
 
-                "CREATE TABLE IF NOT EXISTS habitacions (\n" +
-                "  numero_habitacio INT PRIMARY KEY,\n" +
-                "  tipus VARCHAR(50) NOT NULL,\n" +
-                "  preu_per_nit DOUBLE NOT NULL,\n" +
-                "  disponible BOOLEAN NOT NULL DEFAULT TRUE\n" +
-                ");\n\n" +
+    /**
+     * Obté el pool de connexions, creant-lo la primera vegada.
+     * @return El pool de connexions.
+     * @throws SQLException Si no s'ha trobat el driver de MySQL.
+     */
+    private static ConnectionPool getPool() throws SQLException {
+        ConnectionPool actual = pool;
+        if (actual != null) {
+            return actual;
+        }
+        return crearPool();
+    }
 
-                "CREATE TABLE IF NOT EXISTS clients (\n" +
-                "  id_client INT PRIMARY KEY AUTO_INCREMENT,\n" +
-                "  nom VARCHAR(100) NOT NULL,\n" +
-                "  cognoms VARCHAR(200) NOT NULL,\n" +
-                "  data_naixement DATE NOT NULL,\n" +
-                "  email VARCHAR(200) UNIQUE NOT NULL,\n" +
-                "  telefon VARCHAR(20) NOT NULL\n" +
-                ");\n\n" +
+    private static synchronized ConnectionPool crearPool() throws SQLException {
+        if (pool == null) {
+            try {
+                // Carregar el driver de MySQL
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("No s'ha trobat el driver de MySQL", e);
+            }
 
-                "CREATE TABLE IF NOT EXISTS reserves (\n" +
-                "  id_reserva INT PRIMARY KEY AUTO_INCREMENT,\n" +
-                "  numero_habitacio INT NOT NULL,\n" +
-                "  id_client INT NOT NULL,\n" +
-                "  data_entrada DATE NOT NULL,\n" +
-                "  data_sortida DATE NOT NULL,\n" +
-                "  total_a_pagar DOUBLE NOT NULL,\n" +
-                "  FOREIGN KEY (numero_habitacio) REFERENCES habitacions(numero_habitacio),\n" +
-                "  FOREIGN KEY (id_client) REFERENCES clients(id_client)\n" +
-                ");";
+            // Els paràmetres es llegeixen en crear el pool; després de closeConnection() es poden canviar
+            pool = new ConnectionPool(System.getProperty(PROPIETAT_URL, URL),
+                    System.getProperty(PROPIETAT_USUARI, USER),
+                    System.getProperty(PROPIETAT_CONTRASENYA, PASSWORD), POOL_MIDA_MINIMA, POOL_MIDA_MAXIMA,
+                    POOL_TEMPS_ESPERA_MS, POOL_TEMPS_INACTIVITAT_MS, POOL_TEMPS_VALIDACIO_S);
+        }
+        return pool;
     }
 }
\ No newline at end of file
@@ -0,0 +1,657 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool de connexions JDBC amb mida mínima i màxima.
+ * Les connexions es validen en prestar-les, les inactives es tanquen passat un temps
+ * i els prèstecs esperen com a màxim el temps indicat.
+ * Les connexions retornades per getConnection() tornen al pool quan es crida close().
+ * Cada viatge a la base de dades que es fa a través del pool es registra a ComptadorViatges.
+ * Les sentències de les consultes registrades a Consulta es preparen una sola vegada per connexió física:
+ * en tancar-les tornen a la connexió i el següent prepareStatement amb el mateix SQL les reutilitza.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int midaMinima;
+    private final int midaMaxima;
+    private final long tempsEsperaMaximMillis;
+    private final long tempsInactivitatMillis;
+    private final int tempsValidacioSegons;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition connexioRetornada = lock.newCondition();
+
+    // Connexions inactives; la primera és la darrera retornada
+    private final Deque<ConnexioFisica> inactives = new ArrayDeque<>();
+    private final ScheduledExecutorService manteniment;
+
+    private int totalConnexions = 0;
+    private int esperant = 0;
+    private boolean tancat = false;
+
+    // Comptadors per a les estadístiques
+    private long totalPrestecs = 0;
+    private long tempsEsperaTotalNanos = 0;
+    private long tempsEsperaMaximNanos = 0;
+    private long totalTimeouts = 0;
+    private long connexionsCreades = 0;
+    private long connexionsDescartades = 0;
+
+    /**
+     * Constructor amb tots els paràmetres del pool.
+     * @param url L'URL JDBC de la base de dades.
+     * @param user L'usuari de la base de dades.
+     * @param password La contrasenya de l'usuari.
+     * @param midaMinima Nombre de connexions que es mantenen obertes encara que estiguin inactives.
+     * @param midaMaxima Nombre màxim de connexions obertes alhora.
+     * @param tempsEsperaMaximMillis Temps màxim d'espera per obtenir una connexió.
+     * @param tempsInactivitatMillis Temps d'inactivitat a partir del qual es tanca una connexió sobrant.
+     * @param tempsValidacioSegons Temps màxim per validar una connexió abans de prestar-la.
+     */
+    public ConnectionPool(String url, String user, String password, int midaMinima, int midaMaxima,
+                          long tempsEsperaMaximMillis, long tempsInactivitatMillis, int tempsValidacioSegons) {
+        if (midaMinima < 0 || midaMaxima <= 0 || midaMinima > midaMaxima) {
+            throw new IllegalArgumentException("Mides del pool no vàlides: mínim " + midaMinima + ", màxim " + midaMaxima);
+        }
+
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.midaMinima = midaMinima;
+        this.midaMaxima = midaMaxima;
+        this.tempsEsperaMaximMillis = tempsEsperaMaximMillis;
+        this.tempsInactivitatMillis = tempsInactivitatMillis;
+        this.tempsValidacioSegons = tempsValidacioSegons;
+
+        this.manteniment = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread fil = new Thread(r, "manteniment-pool-connexions");
+            fil.setDaemon(true);
+            return fil;
+        });
+        long periode = Math.max(1000, tempsInactivitatMillis / 2);
+        manteniment.scheduleWithFixedDelay(this::mantenir, 0, periode, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Obté una connexió del pool, creant-ne una de nova si cal i no s'ha arribat al màxim.
+     * @return Una connexió vàlida que torna al pool en tancar-la.
+     * @throws SQLException Si el pool està tancat, s'esgota el temps d'espera o no es pot connectar.
+     */
+    public Connection getConnection() throws SQLException {
+        long inici = System.nanoTime();
+        long limit = inici + TimeUnit.MILLISECONDS.toNanos(tempsEsperaMaximMillis);
+
+        while (true) {
+            ConnexioFisica candidata = null;
+
+            lock.lock();
+            try {
+                while (!tancat && inactives.isEmpty() && totalConnexions >= midaMaxima) {
+                    long restant = limit - System.nanoTime();
+                    if (restant <= 0) {
+                        totalTimeouts++;
+                        throw new SQLTimeoutException("No s'ha pogut obtenir cap connexió en " + tempsEsperaMaximMillis + " ms");
+                    }
+                    esperant++;
+                    try {
+                        connexioRetornada.awaitNanos(restant);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("S'ha interromput l'espera d'una connexió", e);
+                    } finally {
+                        esperant--;
+                    }
+                }
+
+                if (tancat) {
+                    throw new SQLException("El pool de connexions està tancat");
+                }
+
+                if (!inactives.isEmpty()) {
+                    candidata = inactives.pollFirst();
+                } else {
+                    // Reservem el lloc abans de connectar per no superar el màxim
+                    totalConnexions++;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (candidata == null) {
+                candidata = crearConnexio();
+            } else if (!esValida(candidata)) {
+                descartar(candidata);
+                continue;
+            }
+
+            registrarPrestec(System.nanoTime() - inici);
+            return candidata.prestar();
+        }
+    }
+
+    /**
+     * Tanca totes les connexions inactives i impedeix nous prèstecs.
+     * Les connexions prestades es tanquen quan es retornen.
+     */
+    public void close() {
+        manteniment.shutdownNow();
+
+        lock.lock();
+        try {
+            tancat = true;
+            while (!inactives.isEmpty()) {
+                tancarFisica(inactives.pollFirst());
+            }
+            connexioRetornada.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Obté una fotografia de l'estat actual del pool.
+     * @return Les estadístiques del pool.
+     */
+    public Estadistiques getEstadistiques() {
+        lock.lock();
+        try {
+            return new Estadistiques(totalConnexions - inactives.size(), inactives.size(), esperant,
+                    totalPrestecs, TimeUnit.NANOSECONDS.toMillis(tempsEsperaTotalNanos),
+                    TimeUnit.NANOSECONDS.toMillis(tempsEsperaMaximNanos), totalTimeouts,
+                    connexionsCreades, connexionsDescartades);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Crea una nova connexió física. El lloc ja ha d'estar reservat a totalConnexions.
+     */
+    private ConnexioFisica crearConnexio() throws SQLException {
+        try {
+            Connection connexio = DriverManager.getConnection(url, user, password);
+            lock.lock();
+            try {
+                connexionsCreades++;
+            } finally {
+                lock.unlock();
+            }
+            return new ConnexioFisica(connexio);
+        } catch (SQLException e) {
+            alliberarLloc();
+            throw e;
+        }
+    }
+
+    /**
+     * Comprova que una connexió inactiva encara funcioni abans de prestar-la.
+     */
+    private boolean esValida(ConnexioFisica connexio) {
+        try {
+            ComptadorViatges.registrar();
+            return connexio.fisica.isValid(tempsValidacioSegons);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Retorna una connexió al pool, restablint l'estat que hagi pogut canviar l'usuari.
+     */
+    private void retornar(ConnexioFisica connexio) {
+        try {
+            if (connexio.fisica.isClosed()) {
+                descartar(connexio);
+                return;
+            }
+            if (!connexio.fisica.getAutoCommit()) {
+                connexio.fisica.rollback();
+                connexio.fisica.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            descartar(connexio);
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (tancat) {
+                totalConnexions--;
+                tancarFisica(connexio);
+                return;
+            }
+            connexio.darrerUs = System.nanoTime();
+            inactives.addFirst(connexio);
+            connexioRetornada.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tanca una connexió que no es pot reutilitzar i allibera el seu lloc al pool.
+     */
+    private void descartar(ConnexioFisica connexio) {
+        tancarFisica(connexio);
+        lock.lock();
+        try {
+            connexionsDescartades++;
+        } finally {
+            lock.unlock();
+        }
+        alliberarLloc();
+    }
+
+    private void alliberarLloc() {
+        lock.lock();
+        try {
+            totalConnexions--;
+            connexioRetornada.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void registrarPrestec(long esperaNanos) {
+        lock.lock();
+        try {
+            totalPrestecs++;
+            tempsEsperaTotalNanos += esperaNanos;
+            tempsEsperaMaximNanos = Math.max(tempsEsperaMaximNanos, esperaNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tasca periòdica: tanca les connexions inactives sobrants i manté la mida mínima.
+     */
+    private void mantenir() {
+        long limitInactivitat = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(tempsInactivitatMillis);
+        Deque<ConnexioFisica> caducades = new ArrayDeque<>();
+        int aCrear;
+
+        lock.lock();
+        try {
+            if (tancat) {
+                return;
+            }
+            // Les més antigues són al final de la cua
+            Iterator<ConnexioFisica> it = inactives.descendingIterator();
+            while (it.hasNext() && totalConnexions > midaMinima) {
+                ConnexioFisica connexio = it.next();
+                if (connexio.darrerUs - limitInactivitat > 0) {
+                    break;
+                }
+                it.remove();
+                totalConnexions--;
+                connexionsDescartades++;
+                caducades.add(connexio);
+            }
+            aCrear = midaMinima - totalConnexions;
+            totalConnexions += Math.max(0, aCrear);
+        } finally {
+            lock.unlock();
+        }
+
+        for (ConnexioFisica connexio : caducades) {
+            tancarFisica(connexio);
+        }
+
+        for (int i = 0; i < aCrear; i++) {
+            try {
+                retornar(crearConnexio());
+            } catch (SQLException e) {
+                System.err.println("Error en obrir una connexió del pool: " + e.getMessage());
+                // crearConnexio ja ha alliberat el lloc d'aquesta; alliberem els que queden
+                for (int j = i + 1; j < aCrear; j++) {
+                    alliberarLloc();
+                }
+                break;
+            }
+        }
+    }
+
+    private void tancarFisica(ConnexioFisica connexio) {
+        try {
+            connexio.fisica.close();
+        } catch (SQLException e) {
+            System.err.println("Error en tancar una connexió del pool: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Connexió física gestionada pel pool.
+     */
+    private class ConnexioFisica {
+        private final Connection fisica;
+        private long darrerUs = System.nanoTime();
+
+        // Sentències preparades de les consultes registrades que ara no fa servir ningú
+        private final Map<Consulta, PreparedStatement> sentencies = new EnumMap<>(Consulta.class);
+
+        ConnexioFisica(Connection fisica) {
+            this.fisica = fisica;
+        }
+
+        /**
+         * Obté la sentència d'una consulta registrada, preparant-la si no n'hi ha cap de lliure.
+         */
+        synchronized PreparedStatement agafarSentencia(Consulta consulta) throws SQLException {
+            PreparedStatement sentencia = sentencies.remove(consulta);
+            if (sentencia == null) {
+                consulta.registrarPreparacio();
+                sentencia = consulta.isAmbClaus()
+                        ? fisica.prepareStatement(consulta.getSql(), Statement.RETURN_GENERATED_KEYS)
+                        : fisica.prepareStatement(consulta.getSql());
+            }
+            return sentencia;
+        }
+
+        /**
+         * Guarda una sentència per reutilitzar-la.
+         * @return false si ja n'hi havia una de guardada per a la mateixa consulta i s'ha de tancar.
+         */
+        synchronized boolean tornarSentencia(Consulta consulta, PreparedStatement sentencia) {
+            if (sentencies.containsKey(consulta)) {
+                return false;
+            }
+            sentencies.put(consulta, sentencia);
+            return true;
+        }
+
+        /**
+         * Crea la connexió lògica que es lliura a l'usuari.
+         */
+        Connection prestar() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new ConnexioPrestada(this));
+        }
+    }
+
+    /**
+     * Connexió lògica: delega a la connexió física fins que es tanca i llavors la retorna al pool.
+     */
+    private class ConnexioPrestada implements InvocationHandler {
+        private ConnexioFisica connexio;
+
+        ConnexioPrestada(ConnexioFisica connexio) {
+            this.connexio = connexio;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (connexio != null) {
+                        ConnexioFisica aRetornar = connexio;
+                        connexio = null;
+                        retornar(aRetornar);
+                    }
+                    return null;
+                case "isClosed":
+                    return connexio == null || connexio.fisica.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConnexioPrestada[" + (connexio == null ? "retornada" : connexio.fisica) + "]";
+                case "commit":
+                case "rollback":
+                case "setAutoCommit":
+                    ComptadorViatges.registrar();
+                    break;
+                default:
+                    break;
+            }
+
+            if (connexio == null) {
+                throw new SQLException("La connexió ja s'ha retornat al pool");
+            }
+
+            Consulta consulta = method.getName().equals("prepareStatement") ? consultaRegistrada(args) : null;
+            if (consulta != null) {
+                return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                        new SentenciaComptada(connexio.agafarSentencia(consulta), (Connection) proxy, consulta, connexio));
+            }
+
+            Object resultat;
+            try {
+                resultat = method.invoke(connexio.fisica, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            // Les sentències creades també passen pel pool, per comptar-ne les execucions
+            if (resultat instanceof Statement && method.getReturnType().isInterface()) {
+                return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{method.getReturnType()},
+                        new SentenciaComptada((Statement) resultat, (Connection) proxy, null, null));
+            }
+            return resultat;
+        }
+
+        /**
+         * Indica quina consulta registrada es prepara amb aquests arguments de prepareStatement, si n'és alguna.
+         * Només es reutilitzen les sentències amb les opcions per defecte (i les claus generades si la consulta en té).
+         */
+        private Consulta consultaRegistrada(Object[] args) {
+            if (args == null || args.length == 0 || args.length > 2 || !(args[0] instanceof String)) {
+                return null;
+            }
+            Consulta consulta = Consulta.perSql((String) args[0]);
+            if (consulta == null) {
+                return null;
+            }
+            boolean ambClaus = args.length == 2 && Integer.valueOf(Statement.RETURN_GENERATED_KEYS).equals(args[1]);
+            boolean senseOpcions = args.length == 1 || Integer.valueOf(Statement.NO_GENERATED_KEYS).equals(args[1]);
+            if (consulta.isAmbClaus() ? ambClaus : senseOpcions) {
+                return consulta;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Sentència d'una connexió prestada: delega a la sentència real i registra cada execució com un viatge.
+     * Si és d'una consulta registrada, també en mesura les execucions i, en tancar-la, la torna a la connexió física.
+     */
+    private static class SentenciaComptada implements InvocationHandler {
+        private final Statement sentencia;
+        private final Connection connexio;
+        private final Consulta consulta;
+        private final ConnexioFisica propietaria;
+        private boolean tancada = false;
+
+        /**
+         * @param consulta La consulta registrada, o null si no ho és.
+         * @param propietaria La connexió física on s'ha de tornar la sentència en tancar-la, o null per tancar-la.
+         */
+        SentenciaComptada(Statement sentencia, Connection connexio, Consulta consulta, ConnexioFisica propietaria) {
+            this.sentencia = sentencia;
+            this.connexio = connexio;
+            this.consulta = consulta;
+            this.propietaria = propietaria;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nom = method.getName();
+            if (nom.equals("getConnection")) {
+                // Mai la connexió física, perquè en tancar-la no es perdi del pool
+                return connexio;
+            } else if (nom.equals("equals")) {
+                return proxy == args[0];
+            } else if (nom.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (propietaria != null && nom.equals("close")) {
+                tornar();
+                return null;
+            } else if (propietaria != null && nom.equals("isClosed")) {
+                return tancada || sentencia.isClosed();
+            }
+
+            if (tancada) {
+                throw new SQLException("La sentència ja s'ha tancat");
+            }
+
+            if (!nom.startsWith("execute")) {
+                return delegar(method, args);
+            }
+
+            ComptadorViatges.registrar();
+            if (consulta == null) {
+                return delegar(method, args);
+            }
+            long inici = System.nanoTime();
+            try {
+                return delegar(method, args);
+            } finally {
+                consulta.registrarExecucio(System.nanoTime() - inici);
+            }
+        }
+
+        private Object delegar(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(sentencia, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Deixa la sentència a punt per a la propera crida i la torna a la connexió física.
+         * Si no es pot reutilitzar, es tanca.
+         */
+        private void tornar() {
+            if (tancada) {
+                return;
+            }
+            tancada = true;
+
+            PreparedStatement preparada = (PreparedStatement) sentencia;
+            try {
+                // El ResultSet que hagi quedat obert i la configuració de qui l'ha fet servir no passen al següent
+                ResultSet resultat = preparada.getResultSet();
+                if (resultat != null) {
+                    resultat.close();
+                }
+                preparada.clearParameters();
+                preparada.clearBatch();
+                preparada.setFetchSize(0);
+                preparada.setMaxRows(0);
+                preparada.setQueryTimeout(0);
+                if (!propietaria.fisica.isClosed() && propietaria.tornarSentencia(consulta, preparada)) {
+                    return;
+                }
+            } catch (SQLException e) {
+                // No es pot reutilitzar; es tanca
+            }
+
+            try {
+                preparada.close();
+            } catch (SQLException e) {
+                System.err.println("Error en tancar una sentència: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Fotografia de l'estat del pool en un moment donat.
+     */
+    public static class Estadistiques {
+        private final int actives;
+        private final int inactives;
+        private final int esperant;
+        private final long totalPrestecs;
+        private final long tempsEsperaTotalMillis;
+        private final long tempsEsperaMaximMillis;
+        private final long timeouts;
+        private final long connexionsCreades;
+        private final long connexionsDescartades;
+
+        Estadistiques(int actives, int inactives, int esperant, long totalPrestecs, long tempsEsperaTotalMillis,
+                      long tempsEsperaMaximMillis, long timeouts, long connexionsCreades, long connexionsDescartades) {
+            this.actives = actives;
+            this.inactives = inactives;
+            this.esperant = esperant;
+            this.totalPrestecs = totalPrestecs;
+            this.tempsEsperaTotalMillis = tempsEsperaTotalMillis;
+            this.tempsEsperaMaximMillis = tempsEsperaMaximMillis;
+            this.timeouts = timeouts;
+            this.connexionsCreades = connexionsCreades;
+            this.connexionsDescartades = connexionsDescartades;
+        }
+
+        public int getActives() {
+            return actives;
+        }
+
+        public int getInactives() {
+            return inactives;
+        }
+
+        public int getEsperant() {
+            return esperant;
+        }
+
+        public long getTotalPrestecs() {
+            return totalPrestecs;
+        }
+
+        public long getTempsEsperaTotalMillis() {
+            return tempsEsperaTotalMillis;
+        }
+
+        public long getTempsEsperaMaximMillis() {
+            return tempsEsperaMaximMillis;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        public long getConnexionsCreades() {
+            return connexionsCreades;
+        }
+
+        public long getConnexionsDescartades() {
+            return connexionsDescartades;
+        }
+
+        @Override
+        public String toString() {
+            return "Pool [Actives: " + actives +
+                    ", Inactives: " + inactives +
+                    ", Esperant: " + esperant +
+                    ", Prèstecs: " + totalPrestecs +
+                    ", Espera total: " + tempsEsperaTotalMillis + " ms" +
+                    ", Espera màxima: " + tempsEsperaMaximMillis + " ms" +
+                    ", Timeouts: " + timeouts +
+                    ", Creades: " + connexionsCreades +
+                    ", Descartades: " + connexionsDescartades + "]";
+        }
+    }
+}
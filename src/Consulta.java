@@ -0,0 +1,222 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registre de les consultes amb nom que fan servir els DAO.
+ * El pool de connexions guarda la sentència preparada de cada consulta registrada a cada connexió física
+ * i la reutilitza en lloc de tornar-la a preparar; també compta les execucions i el temps de cadascuna.
+ * Les consultes que es construeixen en temps d'execució (filtres opcionals, llistes IN...) no hi són.
+ */
+public enum Consulta {
+
+    // Reserves
+    RESERVA_INSERIR("INSERT INTO reserves (numero_habitacio, id_client, data_entrada, data_sortida, total_a_pagar) " +
+            "VALUES (?, ?, ?, ?, ?)", true),
+    RESERVA_ELIMINAR("DELETE FROM reserves WHERE id_reserva = ?"),
+    RESERVA_PER_ID(ReservaDAO.SELECT_RESERVA_COMPLETA + " WHERE r.id_reserva = ?"),
+    RESERVA_PER_ID_SENSE_RELACIONS("SELECT id_reserva, numero_habitacio, id_client, data_entrada, data_sortida, " +
+            "total_a_pagar FROM reserves WHERE id_reserva = ?"),
+    RESERVES_ACTIVES(ReservaDAO.SELECT_RESERVA_COMPLETA + " WHERE r.data_sortida >= CURRENT_DATE()" +
+            " ORDER BY r.data_entrada"),
+    RESERVES_ACTIVES_PRIMERA_PAGINA(ReservaDAO.SELECT_RESERVA_COMPLETA + " WHERE r.data_sortida >= CURRENT_DATE()" +
+            " ORDER BY r.data_entrada, r.id_reserva LIMIT ?"),
+    RESERVES_ACTIVES_PAGINA(ReservaDAO.SELECT_RESERVA_COMPLETA + " WHERE r.data_sortida >= CURRENT_DATE()" +
+            " AND (r.data_entrada > ? OR (r.data_entrada = ? AND r.id_reserva > ?))" +
+            " ORDER BY r.data_entrada, r.id_reserva LIMIT ?"),
+    RESERVES_CLIENT(ReservaDAO.SELECT_RESERVA_COMPLETA + " WHERE r.id_client = ? ORDER BY r.data_entrada"),
+    RESUMS_ACTIUS_PRIMERA_PAGINA(ReservaDAO.SELECT_RESUM + " WHERE r.data_sortida >= CURRENT_DATE()" +
+            " ORDER BY r.data_entrada, r.id_reserva LIMIT ?"),
+    RESUMS_ACTIUS_PAGINA(ReservaDAO.SELECT_RESUM + " WHERE r.data_sortida >= CURRENT_DATE()" +
+            " AND (r.data_entrada > ? OR (r.data_entrada = ? AND r.id_reserva > ?))" +
+            " ORDER BY r.data_entrada, r.id_reserva LIMIT ?"),
+    RESUMS_CLIENT(ReservaDAO.SELECT_RESUM + " WHERE r.id_client = ? ORDER BY r.data_entrada"),
+    // Dues estades [entrada, sortida) es solapen si cadascuna comença abans que acabi l'altra
+    RESERVA_SOLAPAMENT("SELECT COUNT(*) FROM reserves WHERE numero_habitacio = ? AND data_entrada < ? AND data_sortida > ?"),
+    RESERVA_SOLAPAMENT_BLOQUEJANT("SELECT COUNT(*) FROM reserves " +
+            "WHERE numero_habitacio = ? AND data_entrada < ? AND data_sortida > ? FOR UPDATE"),
+    // Reserves d'una habitació per moure-les a l'ocupació diària d'un altre tipus (amb la fila de l'habitació bloquejada)
+    RESERVES_HABITACIO_BLOQUEJANT("SELECT data_entrada, data_sortida, total_a_pagar FROM reserves " +
+            "WHERE numero_habitacio = ? FOR UPDATE"),
+    // Reserves que encara no han acabat, per carregar IndexReserves
+    RESERVES_VIGENTS("SELECT id_reserva, numero_habitacio, data_entrada, data_sortida FROM reserves " +
+            "WHERE data_sortida >= ?"),
+    HABITACIO_BLOQUEJAR("SELECT tipus FROM habitacions WHERE numero_habitacio = ? FOR UPDATE"),
+
+    // Habitacions
+    HABITACIO_INSERIR("INSERT INTO habitacions (numero_habitacio, tipus, preu_per_nit, disponible) VALUES (?, ?, ?, ?)"),
+    HABITACIO_ELIMINAR("DELETE FROM habitacions WHERE numero_habitacio = ?"),
+    HABITACIO_ACTUALITZAR("UPDATE habitacions SET tipus = ?, preu_per_nit = ?, disponible = ? WHERE numero_habitacio = ?"),
+    HABITACIO_PER_NUMERO("SELECT * FROM habitacions WHERE numero_habitacio = ?"),
+    HABITACIONS_TOTES("SELECT * FROM habitacions"),
+    HABITACIONS_PAGINA("SELECT * FROM habitacions WHERE numero_habitacio > ? ORDER BY numero_habitacio LIMIT ?"),
+
+    // Clients
+    CLIENT_INSERIR("INSERT INTO clients (nom, cognoms, data_naixement, email, telefon) VALUES (?, ?, ?, ?, ?)", true),
+    CLIENT_ELIMINAR("DELETE FROM clients WHERE id_client = ?"),
+    CLIENT_ACTUALITZAR("UPDATE clients SET nom = ?, cognoms = ?, data_naixement = ?, email = ?, telefon = ? " +
+            "WHERE id_client = ?"),
+    CLIENT_PER_ID("SELECT * FROM clients WHERE id_client = ?"),
+    CLIENT_PER_EMAIL("SELECT * FROM clients WHERE email = ?"),
+    CLIENTS_TOTS("SELECT * FROM clients"),
+    CLIENTS_PAGINA("SELECT * FROM clients WHERE id_client > ? ORDER BY id_client LIMIT ?"),
+
+    // Informes
+    INFORME_HABITACIONS_PER_TIPUS("SELECT tipus, COUNT(*) AS habitacions FROM habitacions WHERE disponible = TRUE " +
+            "GROUP BY tipus"),
+    // Les vendes es llegeixen de l'ocupació diària precalculada: un rang de la clau primària (data, tipus)
+    INFORME_VENDES_PER_NIT("SELECT data, SUM(nits_venudes) AS nits_venudes, SUM(ingressos) AS ingressos " +
+            "FROM ocupacio_diaria WHERE data >= ? AND data < ? GROUP BY data"),
+    INFORME_VENDES_PER_TIPUS("SELECT tipus, SUM(nits_venudes) AS nits_venudes, SUM(ingressos) AS ingressos " +
+            "FROM ocupacio_diaria WHERE data >= ? AND data < ? GROUP BY tipus"),
+
+    // Ocupació diària
+    OCUPACIO_DIARIA_SUMAR("INSERT INTO ocupacio_diaria (data, tipus, nits_venudes, ingressos) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE nits_venudes = nits_venudes + VALUES(nits_venudes), " +
+            "ingressos = ingressos + VALUES(ingressos)"),
+    OCUPACIO_DIARIA_BUIDAR("DELETE FROM ocupacio_diaria");
+
+    private static final Map<String, Consulta> perSql = new HashMap<>();
+
+    static {
+        for (Consulta consulta : values()) {
+            perSql.put(consulta.sql, consulta);
+        }
+    }
+
+    private final String sql;
+    private final boolean ambClaus;
+
+    private final LongAdder execucions = new LongAdder();
+    private final LongAdder tempsNanos = new LongAdder();
+    private final LongAdder preparacions = new LongAdder();
+
+    Consulta(String sql) {
+        this(sql, false);
+    }
+
+    Consulta(String sql, boolean ambClaus) {
+        this.sql = sql;
+        this.ambClaus = ambClaus;
+    }
+
+    /**
+     * Prepara la consulta a la connexió. Si la connexió és del pool, es reutilitza la sentència
+     * que ja s'hi havia preparat; igualment s'ha de tancar en acabar.
+     * @param conn La connexió.
+     * @return La sentència preparada (amb les claus generades disponibles si és una inserció amb clau automàtica).
+     * @throws SQLException Si hi ha algun problema amb l'accés a les dades.
+     */
+    public PreparedStatement preparar(Connection conn) throws SQLException {
+        return ambClaus ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) : conn.prepareStatement(sql);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return true si la sentència s'ha de preparar amb Statement.RETURN_GENERATED_KEYS.
+     */
+    public boolean isAmbClaus() {
+        return ambClaus;
+    }
+
+    /**
+     * Busca la consulta registrada amb aquest SQL.
+     * @param sql El text de la consulta.
+     * @return La consulta, o null si no està registrada.
+     */
+    static Consulta perSql(String sql) {
+        return perSql.get(sql);
+    }
+
+    void registrarExecucio(long nanos) {
+        execucions.increment();
+        tempsNanos.add(nanos);
+    }
+
+    void registrarPreparacio() {
+        preparacions.increment();
+    }
+
+    /**
+     * Obté les estadístiques de totes les consultes executades, de més a menys temps total.
+     * @return Les estadístiques de les consultes.
+     */
+    public static List<Estadistiques> getEstadistiques() {
+        List<Estadistiques> estadistiques = new ArrayList<>();
+        for (Consulta consulta : values()) {
+            if (consulta.execucions.sum() > 0 || consulta.preparacions.sum() > 0) {
+                estadistiques.add(new Estadistiques(consulta.name(), consulta.execucions.sum(),
+                        TimeUnit.NANOSECONDS.toMicros(consulta.tempsNanos.sum()), consulta.preparacions.sum()));
+            }
+        }
+        estadistiques.sort((a, b) -> Long.compare(b.tempsTotalMicros, a.tempsTotalMicros));
+        return estadistiques;
+    }
+
+    /**
+     * Torna a començar els comptadors de totes les consultes.
+     */
+    public static void reiniciar() {
+        for (Consulta consulta : values()) {
+            consulta.execucions.reset();
+            consulta.tempsNanos.reset();
+            consulta.preparacions.reset();
+        }
+    }
+
+    /**
+     * Fotografia de les execucions d'una consulta.
+     */
+    public static class Estadistiques {
+        private final String nom;
+        private final long execucions;
+        private final long tempsTotalMicros;
+        private final long preparacions;
+
+        Estadistiques(String nom, long execucions, long tempsTotalMicros, long preparacions) {
+            this.nom = nom;
+            this.execucions = execucions;
+            this.tempsTotalMicros = tempsTotalMicros;
+            this.preparacions = preparacions;
+        }
+
+        public String getNom() {
+            return nom;
+        }
+
+        public long getExecucions() {
+            return execucions;
+        }
+
+        public long getTempsTotalMicros() {
+            return tempsTotalMicros;
+        }
+
+        /**
+         * @return Les vegades que s'ha hagut de preparar la sentència (la resta de prèstecs l'han reutilitzada).
+         */
+        public long getPreparacions() {
+            return preparacions;
+        }
+
+        public double getMitjanaMillis() {
+            return execucions == 0 ? 0 : tempsTotalMicros / 1000.0 / execucions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Consulta [Nom: %s, Execucions: %d, Temps total: %.1f ms, Mitjana: %.3f ms, " +
+                    "Preparacions: %d]", nom, execucions, tempsTotalMicros / 1000.0, getMitjanaMillis(), preparacions);
+        }
+    }
+}
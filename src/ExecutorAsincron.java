@@ -0,0 +1,110 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executor compartit per les variants asíncrones (...Async) dels serveis.
+ * Si la JVM té fils virtuals (Java 21 o posterior) s'executa cada tasca en un fil virtual, de manera que milers de
+ * peticions en curs no necessiten milers de fils del sistema. Amb versions anteriors es fa servir un nombre fix de
+ * fils de plataforma i les tasques que no hi caben esperen a la cua: com que cada tasca acaba fent servir una
+ * connexió del pool, més fils només esperarien una connexió.
+ *
+ * Les tasques s'executen en un altre fil i, per tant, fora de la UnitatTreball de qui les crida: cada variant
+ * asíncrona obre la seva pròpia unitat (transacció i mapa d'identitats), que es confirma o es desfà pel seu compte.
+ * Si una operació ha de formar part d'una unitat oberta, s'ha de cridar la versió síncrona des del mateix fil.
+ */
+public class ExecutorAsincron {
+
+    // Fils de plataforma quan no hi ha fils virtuals
+    private static final int FILS_PLATAFORMA = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+
+    private static final AtomicInteger comptadorFils = new AtomicInteger();
+
+    private static ExecutorService executor = null;
+    private static boolean filsVirtuals = false;
+
+    private ExecutorAsincron() {
+    }
+
+    /**
+     * Executa una operació a l'executor compartit.
+     * @param operacio L'operació a executar.
+     * @return Un CompletableFuture amb el resultat de l'operació.
+     */
+    public static <T> CompletableFuture<T> executar(Supplier<T> operacio) {
+        return CompletableFuture.supplyAsync(operacio, getExecutor());
+    }
+
+    /**
+     * Obté l'executor compartit; es crea la primera vegada.
+     * @return L'executor.
+     */
+    public static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = crearFilsVirtuals();
+            filsVirtuals = executor != null;
+            if (executor == null) {
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(FILS_PLATAFORMA, FILS_PLATAFORMA, 60, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(), tasca -> {
+                            Thread fil = new Thread(tasca, "hotel-async-" + comptadorFils.incrementAndGet());
+                            fil.setDaemon(true);
+                            return fil;
+                        });
+                pool.allowCoreThreadTimeOut(true);
+                executor = pool;
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * @return true si les tasques s'executen en fils virtuals.
+     */
+    public static synchronized boolean usaFilsVirtuals() {
+        getExecutor();
+        return filsVirtuals;
+    }
+
+    /**
+     * Deixa d'acceptar tasques i espera que acabin les que estan en curs.
+     * @param esperaMillis El temps màxim d'espera.
+     * @return true si totes les tasques han acabat a temps.
+     */
+    public static boolean tancar(long esperaMillis) {
+        ExecutorService actual;
+        synchronized (ExecutorAsincron.class) {
+            actual = executor;
+            executor = null;
+        }
+        if (actual == null) {
+            return true;
+        }
+
+        actual.shutdown();
+        try {
+            return actual.awaitTermination(esperaMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Crea un executor de fils virtuals per reflexió, perquè el codi es pugui compilar i executar amb Java 8.
+     * @return L'executor, o null si la JVM no té fils virtuals.
+     */
+    private static ExecutorService crearFilsVirtuals() {
+        try {
+            Method metode = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) metode.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
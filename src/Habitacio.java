@@ -10,6 +10,7 @@ public class Habitacio implements Serializable {
     private int numeroHabitacio;
     private String tipus;
     private double preuPerNit;
+    // Interruptor manual: false si l'habitació està fora de servei. Si està ocupada o no es dedueix de les reserves.
     private boolean disponible;
 
     /**
@@ -67,6 +68,6 @@ public class Habitacio implements Serializable {
         return "Habitació [Número: " + numeroHabitacio +
                 ", Tipus: " + tipus +
                 ", Preu per nit: " + preuPerNit +
-                ", Disponible: " + (disponible ? "Sí" : "No") + "]";
+                ", En servei: " + (disponible ? "Sí" : "No") + "]";
     }
 }
\ No newline at end of file
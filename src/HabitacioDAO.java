@@ -1,34 +1,44 @@
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * DAO per gestionar les operacions CRUD d'habitacions a la base de dades.
+ * Les lectures passen per CacheHabitacions i les escriptures la invaliden.
  */
 public class HabitacioDAO {
 
+    private final CacheHabitacions cache = CacheHabitacions.getInstancia();
+
     /**
      * Afegeix una nova habitació a la base de dades.
      * @param habitacio L'habitació a afegir.
      * @return true si s'ha afegit correctament, false en cas contrari.
      */
     public boolean afegirHabitacio(Habitacio habitacio) {
-        String sql = "INSERT INTO habitacions (numero_habitacio, tipus, preu_per_nit, disponible) VALUES (?, ?, ?, ?)";
-
-        try (Connection conn = ConnectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, habitacio.getNumeroHabitacio());
-            stmt.setString(2, habitacio.getTipus());
-            stmt.setDouble(3, habitacio.getPreuPerNit());
-            stmt.setBoolean(4, habitacio.isDisponible());
-
-            int files = stmt.executeUpdate();
-            return files > 0;
-
-        } catch (SQLException e) {
-            System.err.println("Error en afegir l'habitació: " + e.getMessage());
-            return false;
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioDAO.afegirHabitacio")) {
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.HABITACIO_INSERIR.preparar(conn)) {
+
+                stmt.setInt(1, habitacio.getNumeroHabitacio());
+                stmt.setString(2, habitacio.getTipus());
+                stmt.setDouble(3, habitacio.getPreuPerNit());
+                stmt.setBoolean(4, habitacio.isDisponible());
+
+                int files = stmt.executeUpdate();
+                return files > 0;
+
+            } catch (SQLException e) {
+                System.err.println("Error en afegir l'habitació: " + e.getMessage());
+                mesura.error();
+                return false;
+            } finally {
+                invalidarCache(habitacio.getNumeroHabitacio());
+            }
         }
     }
 
@@ -38,45 +48,94 @@ public class HabitacioDAO {
      * @return true si s'ha eliminat correctament, false en cas contrari.
      */
     public boolean eliminarHabitacio(int numeroHabitacio) {
-        String sql = "DELETE FROM habitacions WHERE numero_habitacio = ?";
-
-        try (Connection conn = ConnectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioDAO.eliminarHabitacio")) {
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.HABITACIO_ELIMINAR.preparar(conn)) {
 
-            stmt.setInt(1, numeroHabitacio);
+                stmt.setInt(1, numeroHabitacio);
 
-            int files = stmt.executeUpdate();
-            return files > 0;
+                int files = stmt.executeUpdate();
+                return files > 0;
 
-        } catch (SQLException e) {
-            System.err.println("Error en eliminar l'habitació: " + e.getMessage());
-            return false;
+            } catch (SQLException e) {
+                System.err.println("Error en eliminar l'habitació: " + e.getMessage());
+                mesura.error();
+                return false;
+            } finally {
+                invalidarCache(numeroHabitacio);
+            }
         }
     }
 
     /**
      * Actualitza la informació d'una habitació a la base de dades.
+     * Si canvia el tipus, les nits de les reserves de l'habitació passen a l'ocupació diària del tipus nou dins de
+     * la mateixa transacció, amb la fila de l'habitació bloquejada com quan es reserva.
      * @param habitacio L'habitació amb la informació actualitzada.
      * @return true si s'ha actualitzat correctament, false en cas contrari.
      */
     public boolean actualitzarHabitacio(Habitacio habitacio) {
-        String sql = "UPDATE habitacions SET tipus = ?, preu_per_nit = ?, disponible = ? WHERE numero_habitacio = ?";
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioDAO.actualitzarHabitacio")) {
+            try (Connection conn = ConnectionManager.getConnection()) {
+                conn.setAutoCommit(false);
+
+                String tipusAnterior = ReservaDAO.bloquejarHabitacio(conn, habitacio.getNumeroHabitacio());
+                if (tipusAnterior == null) {
+                    conn.rollback();
+                    return false;
+                }
 
-        try (Connection conn = ConnectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+                try (PreparedStatement stmt = Consulta.HABITACIO_ACTUALITZAR.preparar(conn)) {
+                    stmt.setString(1, habitacio.getTipus());
+                    stmt.setDouble(2, habitacio.getPreuPerNit());
+                    stmt.setBoolean(3, habitacio.isDisponible());
+                    stmt.setInt(4, habitacio.getNumeroHabitacio());
+                    stmt.executeUpdate();
+                }
 
-            stmt.setString(1, habitacio.getTipus());
-            stmt.setDouble(2, habitacio.getPreuPerNit());
-            stmt.setBoolean(3, habitacio.isDisponible());
-            stmt.setInt(4, habitacio.getNumeroHabitacio());
+                if (!tipusAnterior.equalsIgnoreCase(habitacio.getTipus())) {
+                    moureOcupacio(conn, habitacio.getNumeroHabitacio(), tipusAnterior, habitacio.getTipus());
+                }
+                conn.commit();
+                return true;
+
+            } catch (SQLException e) {
+                System.err.println("Error en actualitzar l'habitació: " + e.getMessage());
+                mesura.error();
+                return false;
+            } finally {
+                invalidarCache(habitacio.getNumeroHabitacio());
+            }
+        }
+    }
 
-            int files = stmt.executeUpdate();
-            return files > 0;
+    /**
+     * Passa les nits de totes les reserves d'una habitació d'un tipus a un altre a l'ocupació diària.
+     * @param conn La connexió, amb una transacció oberta i la fila de l'habitació bloquejada.
+     * @param numeroHabitacio El número de l'habitació.
+     * @param tipusAnterior El tipus on ara hi ha les nits.
+     * @param tipusNou El tipus on han d'anar.
+     * @throws SQLException Si hi ha algun problema amb l'accés a les dades.
+     */
+    private void moureOcupacio(Connection conn, int numeroHabitacio, String tipusAnterior, String tipusNou)
+            throws SQLException {
+        OcupacioDiariaDAO.Increments increments = new OcupacioDiariaDAO.Increments();
 
-        } catch (SQLException e) {
-            System.err.println("Error en actualitzar l'habitació: " + e.getMessage());
-            return false;
+        try (PreparedStatement stmt = Consulta.RESERVES_HABITACIO_BLOQUEJANT.preparar(conn)) {
+            stmt.setInt(1, numeroHabitacio);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    LocalDate entrada = rs.getDate("data_entrada").toLocalDate();
+                    LocalDate sortida = rs.getDate("data_sortida").toLocalDate();
+                    double total = rs.getDouble("total_a_pagar");
+                    increments.treureEstada(tipusAnterior, entrada, sortida, total);
+                    increments.afegirEstada(tipusNou, entrada, sortida, total);
+                }
+            }
         }
+
+        increments.aplicar(conn);
     }
 
     /**
@@ -85,24 +144,40 @@ public class HabitacioDAO {
      * @return L'habitació o null si no s'ha trobat.
      */
     public Habitacio obtenirHabitacio(int numeroHabitacio) {
-        String sql = "SELECT * FROM habitacions WHERE numero_habitacio = ?";
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioDAO.obtenirHabitacio")) {
+            // Dins d'una unitat de treball, la mateixa instància que ja s'hi hagi carregat
+            Habitacio carregada = UnitatTreball.buscar(Habitacio.class, numeroHabitacio);
+            if (carregada != null) {
+                return mesura.objecte(carregada);
+            }
 
-        try (Connection conn = ConnectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            Habitacio enCache = cache.obtenir(numeroHabitacio);
+            if (enCache != null) {
+                return mesura.objecte(UnitatTreball.registrar(Habitacio.class, numeroHabitacio, enCache));
+            }
 
-            stmt.setInt(1, numeroHabitacio);
+            long versio = cache.getVersio();
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToHabitacio(rs);
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.HABITACIO_PER_NUMERO.preparar(conn)) {
+
+                stmt.setInt(1, numeroHabitacio);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        Habitacio habitacio = mapResultSetToHabitacio(rs);
+                        cache.guardar(habitacio, versio);
+                        return mesura.objecte(UnitatTreball.registrar(Habitacio.class, numeroHabitacio, habitacio));
+                    }
                 }
+
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir l'habitació: " + e.getMessage());
+                mesura.error();
             }
 
-        } catch (SQLException e) {
-            System.err.println("Error en obtenir l'habitació: " + e.getMessage());
+            return null;
         }
-
-        return null;
     }
 
     /**
@@ -110,45 +185,205 @@ public class HabitacioDAO {
      * @return Una llista amb totes les habitacions.
      */
     public List<Habitacio> obtenirTotesLesHabitacions() {
-        String sql = "SELECT * FROM habitacions";
-        List<Habitacio> habitacions = new ArrayList<>();
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioDAO.obtenirTotesLesHabitacions")) {
+            List<Habitacio> enCache = cache.obtenirTotes();
+            if (enCache != null) {
+                return mesura.llista(enCache);
+            }
+
+            List<Habitacio> habitacions = new ArrayList<>();
+            long versio = cache.getVersio();
 
-        try (Connection conn = ConnectionManager.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.HABITACIONS_TOTES.preparar(conn);
+                 ResultSet rs = stmt.executeQuery()) {
 
-            while (rs.next()) {
-                habitacions.add(mapResultSetToHabitacio(rs));
+                while (rs.next()) {
+                    habitacions.add(mapResultSetToHabitacio(rs));
+                }
+                cache.guardarTotes(habitacions, versio);
+
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir totes les habitacions: " + e.getMessage());
+                mesura.error();
             }
 
+            return mesura.llista(habitacions);
+        }
+    }
+
+    /**
+     * Obté una pàgina d'habitacions ordenades per número, a partir de la darrera habitació de la pàgina anterior.
+     * Com que busca directament per la clau primària, el temps no depèn de la profunditat de la pàgina.
+     * @param despresDeNumero El número de la darrera habitació de la pàgina anterior, o 0 per a la primera pàgina.
+     * @param mida El nombre màxim d'habitacions de la pàgina.
+     * @return La pàgina d'habitacions, buida si hi ha hagut algun error.
+     */
+    public Pagina<Habitacio> obtenirHabitacionsPagina(int despresDeNumero, int mida) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioDAO.obtenirHabitacionsPagina")) {
+            List<Habitacio> habitacions = new ArrayList<>();
+
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.HABITACIONS_PAGINA.preparar(conn)) {
+
+                stmt.setInt(1, despresDeNumero);
+                // Demanem una fila de més per saber si hi ha una pàgina següent
+                stmt.setInt(2, mida + 1);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        habitacions.add(mapResultSetToHabitacio(rs));
+                    }
+                }
+
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir la pàgina d'habitacions: " + e.getMessage());
+                mesura.error();
+            }
+
+            return mesura.pagina(Pagina.deFiles(habitacions, mida));
+        }
+    }
+
+    /**
+     * Obté totes les habitacions com un Stream que es llegeix a mesura que es consumeix, sense passar per la memòria cau.
+     * El Stream manté una connexió oberta i s'ha de tancar (per exemple amb try-with-resources).
+     * @return Un Stream amb totes les habitacions, buit si hi ha hagut algun error.
+     */
+    public Stream<Habitacio> streamTotesLesHabitacions() {
+        String sql = "SELECT * FROM habitacions ORDER BY numero_habitacio";
+        // La mesura dura fins que es tanca el Stream i compta les files que s'han llegit
+        Metriques.Mesura mesura = Metriques.iniciar("HabitacioDAO.streamTotesLesHabitacions");
+
+        try {
+            return StreamConsulta.executar(sql, rs -> {
+                mesura.files(1);
+                return mapResultSetToHabitacio(rs);
+            }).onClose(mesura::close);
         } catch (SQLException e) {
             System.err.println("Error en obtenir totes les habitacions: " + e.getMessage());
+            mesura.error();
+            mesura.close();
+            return Stream.empty();
         }
-
-        return habitacions;
     }
 
     /**
-     * Obté totes les habitacions disponibles de la base de dades.
-     * @return Una llista amb totes les habitacions disponibles.
+     * Obté les habitacions disponibles ara: les que estan en servei i no tenen cap reserva per a la nit d'avui.
+     * La disponibilitat es dedueix de les reserves (el camp disponible només indica si l'habitació està en servei),
+     * de manera que normalment la respon el mapa d'ocupació d'IndexReserves sense consultar la base de dades.
+     * Com cercarHabitacionsLliures, suposa que aquest procés és l'únic que fa reserves si l'índex està carregat.
+     * @return Una llista amb les habitacions disponibles, ordenades per número.
      */
     public List<Habitacio> obtenirHabitacionsDisponibles() {
-        String sql = "SELECT * FROM habitacions WHERE disponible = TRUE";
-        List<Habitacio> habitacions = new ArrayList<>();
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioDAO.obtenirHabitacionsDisponibles")) {
+            LocalDate avui = LocalDate.now();
+            List<Habitacio> habitacions = cercarHabitacionsLliures(avui, avui.plusDays(1), null, null, null);
+            habitacions.sort(Comparator.comparingInt(Habitacio::getNumeroHabitacio));
+            return mesura.llista(habitacions);
+        }
+    }
+
+    /**
+     * Obté les estadístiques de la memòria cau d'habitacions.
+     * @return Les estadístiques de la memòria cau.
+     */
+    public static CacheHabitacions.Estadistiques obtenirEstadistiquesCache() {
+        return CacheHabitacions.getInstancia().getEstadistiques();
+    }
 
-        try (Connection conn = ConnectionManager.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+    /**
+     * Cerca les habitacions en servei que no tenen cap reserva durant el període [dataEntrada, dataSortida),
+     * filtrades per tipus i preu i ordenades de més barata a més cara.
+     * Si el mapa d'ocupació d'IndexReserves cobreix el període, es filtra el catàleg en memòria sense consultar les reserves.
+     * L'índex només veu les reserves d'aquest procés; si n'hi ha d'altres que escriuen, s'ha de desactivar perquè la
+     * cerca es faci amb SQL (vegeu IndexReserves).
+     * @param dataEntrada La data d'entrada.
+     * @param dataSortida La data de sortida (no inclosa).
+     * @param tipus El tipus d'habitació, o null per a qualsevol tipus.
+     * @param preuMinim El preu per nit mínim, o null per no limitar-lo.
+     * @param preuMaxim El preu per nit màxim, o null per no limitar-lo.
+     * @return Una llista amb les habitacions lliures.
+     */
+    public List<Habitacio> cercarHabitacionsLliures(LocalDate dataEntrada, LocalDate dataSortida, String tipus,
+                                                    Double preuMinim, Double preuMaxim) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioDAO.cercarHabitacionsLliures")) {
+            Set<Integer> ocupades = IndexReserves.getInstancia().habitacionsOcupades(dataEntrada, dataSortida);
+            if (ocupades != null) {
+                List<Habitacio> lliures = new ArrayList<>();
+                for (Habitacio habitacio : obtenirTotesLesHabitacions()) {
+                    // Mateixos filtres que la consulta SQL (la comparació de tipus de MySQL no distingeix majúscules)
+                    if (habitacio.isDisponible() && !ocupades.contains(habitacio.getNumeroHabitacio())
+                            && (tipus == null || tipus.equalsIgnoreCase(habitacio.getTipus()))
+                            && (preuMinim == null || habitacio.getPreuPerNit() >= preuMinim)
+                            && (preuMaxim == null || habitacio.getPreuPerNit() <= preuMaxim)) {
+                        lliures.add(habitacio);
+                    }
+                }
+                lliures.sort(Comparator.comparingDouble(Habitacio::getPreuPerNit)
+                        .thenComparingInt(Habitacio::getNumeroHabitacio));
+                return mesura.llista(lliures);
+            }
 
-            while (rs.next()) {
-                habitacions.add(mapResultSetToHabitacio(rs));
+            StringBuilder sql = new StringBuilder("SELECT h.* FROM habitacions h WHERE h.disponible = TRUE");
+            if (tipus != null) {
+                sql.append(" AND h.tipus = ?");
+            }
+            if (preuMinim != null) {
+                sql.append(" AND h.preu_per_nit >= ?");
+            }
+            if (preuMaxim != null) {
+                sql.append(" AND h.preu_per_nit <= ?");
             }
+            sql.append(" AND NOT EXISTS (SELECT 1 FROM reserves r WHERE r.numero_habitacio = h.numero_habitacio" +
+                    " AND r.data_entrada < ? AND r.data_sortida > ?)" +
+                    " ORDER BY h.preu_per_nit, h.numero_habitacio");
 
-        } catch (SQLException e) {
-            System.err.println("Error en obtenir les habitacions disponibles: " + e.getMessage());
+            List<Habitacio> habitacions = new ArrayList<>();
+
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+                int index = 1;
+                if (tipus != null) {
+                    stmt.setString(index++, tipus);
+                }
+                if (preuMinim != null) {
+                    stmt.setDouble(index++, preuMinim);
+                }
+                if (preuMaxim != null) {
+                    stmt.setDouble(index++, preuMaxim);
+                }
+                stmt.setDate(index++, Date.valueOf(dataSortida));
+                stmt.setDate(index, Date.valueOf(dataEntrada));
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        habitacions.add(mapResultSetToHabitacio(rs));
+                    }
+                }
+
+            } catch (SQLException e) {
+                System.err.println("Error en cercar les habitacions lliures: " + e.getMessage());
+                mesura.error();
+            }
+
+            return mesura.llista(habitacions);
         }
+    }
 
-        return habitacions;
+    /**
+     * Invalida una habitació de la memòria cau i del mapa d'identitats de la unitat de treball. Dins d'una unitat
+     * la memòria cau es torna a invalidar en acabar-la, per si mentrestant s'hi ha guardat la fila encara sense confirmar.
+     * @param numeroHabitacio El número de l'habitació.
+     */
+    private void invalidarCache(int numeroHabitacio) {
+        cache.invalidar(numeroHabitacio);
+        UnitatTreball.oblidar(Habitacio.class, numeroHabitacio);
+        UnitatTreball unitat = UnitatTreball.getActual();
+        if (unitat != null) {
+            unitat.enAcabar(() -> cache.invalidar(numeroHabitacio));
+        }
     }
 
     /**
@@ -157,7 +392,7 @@ public class HabitacioDAO {
      * @return L'objecte Habitacio.
      * @throws SQLException Si hi ha algun problema amb l'accés a les dades.
      */
-    private Habitacio mapResultSetToHabitacio(ResultSet rs) throws SQLException {
+    static Habitacio mapResultSetToHabitacio(ResultSet rs) throws SQLException {
         Habitacio habitacio = new Habitacio();
         habitacio.setNumeroHabitacio(rs.getInt("numero_habitacio"));
         habitacio.setTipus(rs.getString("tipus"));
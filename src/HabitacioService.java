@@ -1,7 +1,12 @@
+import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Servei que gestiona les operacions de negoci relacionades amb les habitacions.
+ * Cada operació que escriu s'executa dins d'una UnitatTreball: una sola connexió i un sol commit.
  */
 public class HabitacioService {
 
@@ -22,20 +27,39 @@ public class HabitacioService {
      * @return true si s'ha afegit correctament, false en cas contrari.
      */
     public boolean afegirHabitacio(int numeroHabitacio, String tipus, double preuPerNit) {
-        // Verificar que el número de l'habitació no existeixi
-        if (habitacioDAO.obtenirHabitacio(numeroHabitacio) != null) {
-            System.err.println("Error: Ja existeix una habitació amb el número " + numeroHabitacio);
-            return false;
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioService.afegirHabitacio");
+             UnitatTreball unitat = UnitatTreball.iniciar()) {
+            // Verificar que el número de l'habitació no existeixi
+            if (habitacioDAO.obtenirHabitacio(numeroHabitacio) != null) {
+                System.err.println("Error: Ja existeix una habitació amb el número " + numeroHabitacio);
+                mesura.error();
+                return false;
+            }
+
+            // Verificar que el preu per nit sigui positiu
+            String error = validarHabitacio(preuPerNit);
+            if (error != null) {
+                System.err.println("Error: " + error);
+                mesura.error();
+                return false;
+            }
+
+            Habitacio habitacio = new Habitacio(numeroHabitacio, tipus, preuPerNit, true);
+            return mesura.correcte(habitacioDAO.afegirHabitacio(habitacio) && unitat.confirmar());
         }
+    }
 
-        // Verificar que el preu per nit sigui positiu
+    /**
+     * Valida les dades d'una habitació.
+     * @param preuPerNit El preu per nit.
+     * @return El missatge d'error, o null si les dades són vàlides.
+     */
+    public static String validarHabitacio(double preuPerNit) {
         if (preuPerNit <= 0) {
-            System.err.println("Error: El preu per nit ha de ser positiu");
-            return false;
+            return "El preu per nit ha de ser positiu";
         }
 
-        Habitacio habitacio = new Habitacio(numeroHabitacio, tipus, preuPerNit, true);
-        return habitacioDAO.afegirHabitacio(habitacio);
+        return null;
     }
 
     /**
@@ -44,13 +68,17 @@ public class HabitacioService {
      * @return true si s'ha eliminat correctament, false en cas contrari.
      */
     public boolean eliminarHabitacio(int numeroHabitacio) {
-        // Verificar que l'habitació existeixi
-        if (habitacioDAO.obtenirHabitacio(numeroHabitacio) == null) {
-            System.err.println("Error: No existeix cap habitació amb el número " + numeroHabitacio);
-            return false;
-        }
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioService.eliminarHabitacio");
+             UnitatTreball unitat = UnitatTreball.iniciar()) {
+            // Verificar que l'habitació existeixi
+            if (habitacioDAO.obtenirHabitacio(numeroHabitacio) == null) {
+                System.err.println("Error: No existeix cap habitació amb el número " + numeroHabitacio);
+                mesura.error();
+                return false;
+            }
 
-        return habitacioDAO.eliminarHabitacio(numeroHabitacio);
+            return mesura.correcte(habitacioDAO.eliminarHabitacio(numeroHabitacio) && unitat.confirmar());
+        }
     }
 
     /**
@@ -58,28 +86,34 @@ public class HabitacioService {
      * @param numeroHabitacio El número de l'habitació.
      * @param tipus El nou tipus d'habitació.
      * @param preuPerNit El nou preu per nit.
-     * @param disponible La nova disponibilitat.
+     * @param disponible Si l'habitació està en servei (false per treure-la de servei).
      * @return true si s'ha actualitzat correctament, false en cas contrari.
      */
     public boolean actualitzarHabitacio(int numeroHabitacio, String tipus, double preuPerNit, boolean disponible) {
-        // Verificar que l'habitació existeixi
-        Habitacio habitacio = habitacioDAO.obtenirHabitacio(numeroHabitacio);
-        if (habitacio == null) {
-            System.err.println("Error: No existeix cap habitació amb el número " + numeroHabitacio);
-            return false;
-        }
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioService.actualitzarHabitacio");
+             UnitatTreball unitat = UnitatTreball.iniciar()) {
+            // Verificar que l'habitació existeixi
+            Habitacio habitacio = habitacioDAO.obtenirHabitacio(numeroHabitacio);
+            if (habitacio == null) {
+                System.err.println("Error: No existeix cap habitació amb el número " + numeroHabitacio);
+                mesura.error();
+                return false;
+            }
 
-        // Verificar que el preu per nit sigui positiu
-        if (preuPerNit <= 0) {
-            System.err.println("Error: El preu per nit ha de ser positiu");
-            return false;
-        }
+            // Verificar que el preu per nit sigui positiu
+            String error = validarHabitacio(preuPerNit);
+            if (error != null) {
+                System.err.println("Error: " + error);
+                mesura.error();
+                return false;
+            }
 
-        habitacio.setTipus(tipus);
-        habitacio.setPreuPerNit(preuPerNit);
-        habitacio.setDisponible(disponible);
+            habitacio.setTipus(tipus);
+            habitacio.setPreuPerNit(preuPerNit);
+            habitacio.setDisponible(disponible);
 
-        return habitacioDAO.actualitzarHabitacio(habitacio);
+            return mesura.correcte(habitacioDAO.actualitzarHabitacio(habitacio) && unitat.confirmar());
+        }
     }
 
     /**
@@ -88,7 +122,9 @@ public class HabitacioService {
      * @return L'habitació o null si no s'ha trobat.
      */
     public Habitacio obtenirHabitacio(int numeroHabitacio) {
-        return habitacioDAO.obtenirHabitacio(numeroHabitacio);
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioService.obtenirHabitacio")) {
+            return mesura.objecte(habitacioDAO.obtenirHabitacio(numeroHabitacio));
+        }
     }
 
     /**
@@ -96,14 +132,162 @@ public class HabitacioService {
      * @return Una llista amb totes les habitacions.
      */
     public List<Habitacio> obtenirTotesLesHabitacions() {
-        return habitacioDAO.obtenirTotesLesHabitacions();
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioService.obtenirTotesLesHabitacions")) {
+            return mesura.llista(habitacioDAO.obtenirTotesLesHabitacions());
+        }
     }
 
     /**
-     * Obté totes les habitacions disponibles.
-     * @return Una llista amb totes les habitacions disponibles.
+     * Obté les habitacions disponibles ara: en servei i sense cap reserva per a la nit d'avui.
+     * @return Una llista amb les habitacions disponibles.
      */
     public List<Habitacio> obtenirHabitacionsDisponibles() {
-        return habitacioDAO.obtenirHabitacionsDisponibles();
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioService.obtenirHabitacionsDisponibles")) {
+            return mesura.llista(habitacioDAO.obtenirHabitacionsDisponibles());
+        }
+    }
+
+    /**
+     * Cerca les habitacions que es poden reservar per a una estada, filtrades per tipus i preu i ordenades per preu.
+     * @param dataEntrada La data d'entrada.
+     * @param dataSortida La data de sortida.
+     * @param tipus El tipus d'habitació, o null/buit per a qualsevol tipus.
+     * @param preuMinim El preu per nit mínim, o null per no limitar-lo.
+     * @param preuMaxim El preu per nit màxim, o null per no limitar-lo.
+     * @return Una llista amb les habitacions lliures, buida si els criteris no són vàlids.
+     */
+    public List<Habitacio> cercarHabitacionsLliures(LocalDate dataEntrada, LocalDate dataSortida, String tipus,
+                                                    Double preuMinim, Double preuMaxim) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioService.cercarHabitacionsLliures")) {
+            // Verificar que les dates siguin vàlides
+            String error = ReservaService.validarPeriode(dataEntrada, dataSortida);
+            if (error != null) {
+                System.err.println("Error: " + error);
+                mesura.error();
+                return Collections.emptyList();
+            }
+
+            // Verificar que el rang de preus sigui coherent
+            if (preuMinim != null && preuMaxim != null && preuMinim > preuMaxim) {
+                System.err.println("Error: El preu mínim no pot ser superior al preu màxim");
+                mesura.error();
+                return Collections.emptyList();
+            }
+
+            if (tipus != null && tipus.trim().isEmpty()) {
+                tipus = null;
+            }
+
+            return mesura.llista(habitacioDAO.cercarHabitacionsLliures(dataEntrada, dataSortida, tipus,
+                    preuMinim, preuMaxim));
+        }
+    }
+
+    /**
+     * Obté una pàgina d'habitacions ordenades per número.
+     * @param anterior La darrera habitació de la pàgina anterior, o null per a la primera pàgina.
+     * @param mida El nombre màxim d'habitacions de la pàgina.
+     * @return La pàgina d'habitacions.
+     */
+    public Pagina<Habitacio> obtenirHabitacionsPagina(Habitacio anterior, int mida) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("HabitacioService.obtenirHabitacionsPagina")) {
+            return mesura.pagina(habitacioDAO.obtenirHabitacionsPagina(
+                    anterior == null ? 0 : anterior.getNumeroHabitacio(), mida));
+        }
+    }
+
+    /**
+     * Obté totes les habitacions com un Stream que es llegeix a mesura que es consumeix.
+     * S'ha de tancar en acabar (per exemple amb try-with-resources).
+     * @return Un Stream amb totes les habitacions.
+     */
+    public Stream<Habitacio> streamTotesLesHabitacions() {
+        return habitacioDAO.streamTotesLesHabitacions();
+    }
+
+    // Variants asíncrones: s'executen a ExecutorAsincron i no bloquegen qui les crida
+
+    /**
+     * Versió asíncrona d'afegirHabitacio().
+     * @param numeroHabitacio El número de l'habitació.
+     * @param tipus El tipus d'habitació.
+     * @param preuPerNit El preu per nit.
+     * @return Un CompletableFuture amb true si s'ha afegit correctament, false en cas contrari.
+     */
+    public CompletableFuture<Boolean> afegirHabitacioAsync(int numeroHabitacio, String tipus, double preuPerNit) {
+        return ExecutorAsincron.executar(() -> afegirHabitacio(numeroHabitacio, tipus, preuPerNit));
+    }
+
+    /**
+     * Versió asíncrona d'eliminarHabitacio().
+     * @param numeroHabitacio El número de l'habitació a eliminar.
+     * @return Un CompletableFuture amb true si s'ha eliminat correctament, false en cas contrari.
+     */
+    public CompletableFuture<Boolean> eliminarHabitacioAsync(int numeroHabitacio) {
+        return ExecutorAsincron.executar(() -> eliminarHabitacio(numeroHabitacio));
+    }
+
+    /**
+     * Versió asíncrona d'actualitzarHabitacio().
+     * @param numeroHabitacio El número de l'habitació a actualitzar.
+     * @param tipus El nou tipus d'habitació.
+     * @param preuPerNit El nou preu per nit.
+     * @param disponible Si l'habitació està en servei (false per treure-la de servei).
+     * @return Un CompletableFuture amb true si s'ha actualitzat correctament, false en cas contrari.
+     */
+    public CompletableFuture<Boolean> actualitzarHabitacioAsync(int numeroHabitacio, String tipus, double preuPerNit,
+                                                                boolean disponible) {
+        return ExecutorAsincron.executar(() -> actualitzarHabitacio(numeroHabitacio, tipus, preuPerNit, disponible));
+    }
+
+    /**
+     * Versió asíncrona d'obtenirHabitacio().
+     * @param numeroHabitacio El número de l'habitació.
+     * @return Un CompletableFuture amb l'habitació o null si no s'ha trobat.
+     */
+    public CompletableFuture<Habitacio> obtenirHabitacioAsync(int numeroHabitacio) {
+        return ExecutorAsincron.executar(() -> obtenirHabitacio(numeroHabitacio));
+    }
+
+    /**
+     * Versió asíncrona d'obtenirTotesLesHabitacions().
+     * @return Un CompletableFuture amb una llista amb totes les habitacions.
+     */
+    public CompletableFuture<List<Habitacio>> obtenirTotesLesHabitacionsAsync() {
+        return ExecutorAsincron.executar(() -> obtenirTotesLesHabitacions());
+    }
+
+    /**
+     * Versió asíncrona d'obtenirHabitacionsDisponibles().
+     * @return Un CompletableFuture amb una llista amb les habitacions disponibles.
+     */
+    public CompletableFuture<List<Habitacio>> obtenirHabitacionsDisponiblesAsync() {
+        return ExecutorAsincron.executar(() -> obtenirHabitacionsDisponibles());
+    }
+
+    /**
+     * Versió asíncrona de cercarHabitacionsLliures().
+     * @param dataEntrada La data d'entrada.
+     * @param dataSortida La data de sortida (no inclosa).
+     * @param tipus El tipus d'habitació, o null per a qualsevol tipus.
+     * @param preuMinim El preu per nit mínim, o null per no limitar-lo.
+     * @param preuMaxim El preu per nit màxim, o null per no limitar-lo.
+     * @return Un CompletableFuture amb una llista amb les habitacions lliures.
+     */
+    public CompletableFuture<List<Habitacio>> cercarHabitacionsLliuresAsync(LocalDate dataEntrada,
+                                                                            LocalDate dataSortida, String tipus,
+                                                                            Double preuMinim, Double preuMaxim) {
+        return ExecutorAsincron.executar(() ->
+                cercarHabitacionsLliures(dataEntrada, dataSortida, tipus, preuMinim, preuMaxim));
+    }
+
+    /**
+     * Versió asíncrona d'obtenirHabitacionsPagina().
+     * @param anterior La darrera habitació de la pàgina anterior, o null per a la primera pàgina.
+     * @param mida El nombre màxim d'habitacions de la pàgina.
+     * @return Un CompletableFuture amb la pàgina d'habitacions.
+     */
+    public CompletableFuture<Pagina<Habitacio>> obtenirHabitacionsPaginaAsync(Habitacio anterior, int mida) {
+        return ExecutorAsincron.executar(() -> obtenirHabitacionsPagina(anterior, mida));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latències amb memòria fixa, segur per a diversos fils.
+ * Els valors (en nanosegons) es compten en intervals log-lineals: cada potència de dos es divideix
+ * en 32 intervals iguals, de manera que l'error dels percentils és com a màxim d'un 3%.
+ */
+public class HistogramaLatencia {
+
+    // Intervals per potència de dos (2^BITS_SUBINTERVAL)
+    private static final int BITS_SUBINTERVAL = 5;
+    private static final int SUBINTERVALS = 1 << BITS_SUBINTERVAL;
+    // Els valors menors que 2 * SUBINTERVALS es compten exactes; la resta, per potències de dos fins a 2^63
+    private static final int NOMBRE_INTERVALS = (64 - BITS_SUBINTERVAL) * SUBINTERVALS;
+
+    private final AtomicLongArray comptadors = new AtomicLongArray(NOMBRE_INTERVALS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sumaNanos = new LongAdder();
+    private final AtomicLong maximNanos = new AtomicLong();
+
+    /**
+     * Registra una latència.
+     * @param nanos La latència en nanosegons (els valors negatius es compten com a 0).
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        comptadors.incrementAndGet(interval(valor));
+        total.increment();
+        sumaNanos.add(valor);
+
+        long maxim;
+        while (valor > (maxim = maximNanos.get()) && !maximNanos.compareAndSet(maxim, valor)) {
+            // Un altre fil ha actualitzat el màxim; tornem a comparar
+        }
+    }
+
+    /**
+     * @return El nombre de latències registrades.
+     */
+    public long getComptador() {
+        return total.sum();
+    }
+
+    /**
+     * @return La latència mitjana en nanosegons, o 0 si no n'hi ha cap.
+     */
+    public long getMitjanaNanos() {
+        long comptador = total.sum();
+        return comptador == 0 ? 0 : sumaNanos.sum() / comptador;
+    }
+
+    /**
+     * @return La latència màxima registrada en nanosegons.
+     */
+    public long getMaximNanos() {
+        return maximNanos.get();
+    }
+
+    /**
+     * Calcula un percentil. El resultat és el límit superior de l'interval on cau, sense passar del màxim.
+     * @param percentil El percentil, entre 0 i 100 (per exemple 99.9).
+     * @return La latència del percentil en nanosegons, o 0 si no hi ha cap latència registrada.
+     */
+    public long percentil(double percentil) {
+        long comptador = total.sum();
+        if (comptador == 0) {
+            return 0;
+        }
+
+        long objectiu = Math.max(1, (long) Math.ceil(comptador * percentil / 100.0));
+        long acumulat = 0;
+        for (int i = 0; i < NOMBRE_INTERVALS; i++) {
+            acumulat += comptadors.get(i);
+            if (acumulat >= objectiu) {
+                return Math.min(limitSuperior(i), maximNanos.get());
+            }
+        }
+        return maximNanos.get();
+    }
+
+    /**
+     * Torna a començar el recompte.
+     */
+    public void reiniciar() {
+        for (int i = 0; i < NOMBRE_INTERVALS; i++) {
+            comptadors.set(i, 0);
+        }
+        total.reset();
+        sumaNanos.reset();
+        maximNanos.set(0);
+    }
+
+    /**
+     * Resum del comptador, la mitjana, els percentils 50, 99 i 99.9 i el màxim, en mil·lisegons.
+     * @return El resum.
+     */
+    @Override
+    public String toString() {
+        return "Latència [Comptador: " + getComptador() +
+                ", Mitjana: " + milisegons(getMitjanaNanos()) +
+                ", p50: " + milisegons(percentil(50)) +
+                ", p99: " + milisegons(percentil(99)) +
+                ", p99.9: " + milisegons(percentil(99.9)) +
+                ", Màxim: " + milisegons(getMaximNanos()) + "]";
+    }
+
+    /**
+     * Formata una latència en mil·lisegons amb tres decimals.
+     * @param nanos La latència en nanosegons.
+     * @return La latència formatada, per exemple "1.250 ms".
+     */
+    static String milisegons(long nanos) {
+        return String.format("%.3f ms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static int interval(long valor) {
+        if (valor < 2 * SUBINTERVALS) {
+            return (int) valor;
+        }
+        int desplacament = 63 - Long.numberOfLeadingZeros(valor) - BITS_SUBINTERVAL;
+        // Els BITS_SUBINTERVAL + 1 bits més alts: entre SUBINTERVALS i 2 * SUBINTERVALS - 1
+        int subinterval = (int) (valor >>> desplacament);
+        return desplacament * SUBINTERVALS + subinterval;
+    }
+
+    private static long limitSuperior(int interval) {
+        if (interval < 2 * SUBINTERVALS) {
+            return interval;
+        }
+        int desplacament = interval / SUBINTERVALS - 1;
+        long subinterval = interval % SUBINTERVALS + SUBINTERVALS;
+        return ((subinterval + 1) << desplacament) - 1;
+    }
+}
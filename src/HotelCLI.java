@@ -1,9 +1,8 @@
-import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
@@ -15,9 +14,16 @@ public class HotelCLI {
     private static final Scanner scanner = new Scanner(System.in);
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
+    // Nombre d'elements que es mostren a cada pàgina dels llistats
+    private static final int MIDA_PAGINA = 20;
+
     private static final HabitacioService habitacioService = new HabitacioService();
     private static final ClientService clientService = new ClientService();
     private static final ReservaService reservaService = new ReservaService();
+    private static final InformeService informeService = new InformeService();
+
+    // Els informes d'aquest nombre de nits o menys també mostren l'ocupació de cada nit
+    private static final int MAX_NITS_DETALL = 31;
 
     /**
      * Mètode principal de l'aplicació.
@@ -42,6 +48,12 @@ public class HotelCLI {
                 case 3:
                     gestionarReserves();
                     break;
+                case 4:
+                    mostrarEstadistiques();
+                    break;
+                case 5:
+                    mostrarInformeOcupacio();
+                    break;
                 case 0:
                     sortir = true;
                     System.out.println("Gràcies per utilitzar l'aplicació. Adéu!");
@@ -52,7 +64,7 @@ public class HotelCLI {
             }
         }
 
-        // Tancar la connexió a la base de dades en sortir de l'aplicació
+        // Tancar el pool de connexions en sortir de l'aplicació
         ConnectionManager.closeConnection();
     }
 
@@ -61,23 +73,8 @@ public class HotelCLI {
      */
     private static void setupDatabase() {
         try {
-            // Obtenir la connexió
-            Connection conn = ConnectionManager.getConnection();
-
-            // Crear les taules si no existeixen
-            String createTablesScript = ConnectionManager.getCreateTablesScript();
-            Statement stmt = conn.createStatement();
-
-            // Executar el script SQL
-            String[] statements = createTablesScript.split(";");
-            for (String statement : statements) {
-                if (!statement.trim().isEmpty()) {
-                    stmt.execute(statement);
-                }
-            }
-
+            InicialitzadorBaseDades.inicialitzar();
             System.out.println("Base de dades configurada correctament.");
-
         } catch (SQLException e) {
             System.err.println("Error en configurar la base de dades: " + e.getMessage());
             System.exit(1);
@@ -92,6 +89,8 @@ public class HotelCLI {
         System.out.println("1. Gestió d'Habitacions");
         System.out.println("2. Gestió de Clients");
         System.out.println("3. Gestió de Reserves");
+        System.out.println("4. Estadístiques");
+        System.out.println("5. Informe d'ocupació i ingressos");
         System.out.println("0. Sortir");
         System.out.print("Selecciona una opció: ");
     }
@@ -101,8 +100,17 @@ public class HotelCLI {
      * @return L'opció seleccionada.
      */
     private static int llegirOpcio() {
+        return convertirEnter(scanner.nextLine());
+    }
+
+    /**
+     * Converteix un text en un enter.
+     * @param valor El text.
+     * @return L'enter, o -1 si el text no és un enter.
+     */
+    private static int convertirEnter(String valor) {
         try {
-            return Integer.parseInt(scanner.nextLine());
+            return Integer.parseInt(valor.trim());
         } catch (NumberFormatException e) {
             return -1;
         }
@@ -232,6 +240,55 @@ public class HotelCLI {
         }
     }
 
+    /**
+     * Mostra les estadístiques del pool, de les memòries cau i de les operacions dels DAO i dels serveis.
+     */
+    private static void mostrarEstadistiques() {
+        System.out.println("\n===== ESTADÍSTIQUES =====");
+        System.out.print(Metriques.informe());
+
+        System.out.print("Reiniciar els comptadors de les operacions? (s/n): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("s")) {
+            Metriques.reiniciar();
+            System.out.println("Comptadors reiniciats.");
+        }
+    }
+
+    /**
+     * Mostra l'informe d'ocupació i ingressos d'un període: totals, xifres per tipus d'habitació i, si el període
+     * és curt, l'ocupació de cada nit.
+     */
+    private static void mostrarInformeOcupacio() {
+        System.out.println("\n===== INFORME D'OCUPACIÓ I INGRESSOS =====");
+
+        System.out.print("Data inicial (dd/mm/aaaa): ");
+        LocalDate inici = llegirData();
+
+        System.out.print("Data final, no inclosa (dd/mm/aaaa): ");
+        LocalDate fi = llegirData();
+
+        InformeOcupacio informe = informeService.generarInforme(inici, fi);
+
+        if (informe == null) {
+            System.out.println("No s'ha pogut generar l'informe.");
+            return;
+        }
+
+        System.out.println(informe);
+
+        System.out.println("\n--- Per tipus d'habitació ---");
+        for (InformeOcupacio.PerTipus xifres : informe.getPerTipus()) {
+            System.out.println(xifres);
+        }
+
+        if (informe.getNits().size() <= MAX_NITS_DETALL) {
+            System.out.println("\n--- Per nit ---");
+            for (InformeOcupacio.Nit nit : informe.getNits()) {
+                System.out.println(nit);
+            }
+        }
+    }
+
     // Mètodes per gestionar les habitacions
 
     /**
@@ -304,7 +361,7 @@ public class HotelCLI {
         String preuStr = scanner.nextLine();
         double preuPerNit = preuStr.isEmpty() ? habitacio.getPreuPerNit() : Double.parseDouble(preuStr);
 
-        System.out.print("Disponible (s/n) (deixar en blanc per mantenir l'actual): ");
+        System.out.print("En servei (s/n) (deixar en blanc per mantenir l'actual): ");
         String disponibleStr = scanner.nextLine();
         boolean disponible = disponibleStr.isEmpty() ? habitacio.isDisponible() :
                 disponibleStr.equalsIgnoreCase("s");
@@ -324,19 +381,16 @@ public class HotelCLI {
     private static void consultarTotesLesHabitacions() {
         System.out.println("\n--- Totes les habitacions ---");
 
-        List<Habitacio> habitacions = habitacioService.obtenirTotesLesHabitacions();
+        String resposta = mostrarPerPagines(
+                (Habitacio anterior) -> habitacioService.obtenirHabitacionsPagina(anterior, MIDA_PAGINA), null);
 
-        if (habitacions.isEmpty()) {
+        if (resposta == null) {
             System.out.println("No hi ha cap habitació registrada.");
-        } else {
-            for (Habitacio habitacio : habitacions) {
-                System.out.println(habitacio);
-            }
         }
     }
 
     /**
-     * Consulta les habitacions disponibles.
+     * Consulta les habitacions disponibles ara (en servei i sense reserva per a avui).
      */
     private static void consultarHabitacionsDisponibles() {
         System.out.println("\n--- Habitacions disponibles ---");
@@ -463,14 +517,11 @@ public class HotelCLI {
     private static void consultarTotsElsClients() {
         System.out.println("\n--- Tots els clients ---");
 
-        List<Client> clients = clientService.obtenirTotsElsClients();
+        String resposta = mostrarPerPagines(
+                (Client anterior) -> clientService.obtenirClientsPagina(anterior, MIDA_PAGINA), null);
 
-        if (clients.isEmpty()) {
+        if (resposta == null) {
             System.out.println("No hi ha cap client registrat.");
-        } else {
-            for (Client client : clients) {
-                System.out.println(client);
-            }
         }
     }
 
@@ -482,43 +533,49 @@ public class HotelCLI {
     private static void realitzarReserva() {
         System.out.println("\n--- Realitzar una nova reserva ---");
 
-        // Mostrar les habitacions disponibles
-        List<Habitacio> habitacionsDisponibles = habitacioService.obtenirHabitacionsDisponibles();
+        System.out.print("Data d'entrada (dd/mm/aaaa): ");
+        LocalDate dataEntrada = llegirData();
 
-        if (habitacionsDisponibles.isEmpty()) {
-            System.out.println("No hi ha cap habitació disponible.");
+        System.out.print("Data de sortida (dd/mm/aaaa): ");
+        LocalDate dataSortida = llegirData();
+
+        System.out.print("Tipus d'habitació (deixar en blanc per a qualsevol): ");
+        String tipus = scanner.nextLine();
+
+        System.out.print("Preu mínim per nit (€) (deixar en blanc per no limitar-lo): ");
+        Double preuMinim = llegirDoubleOpcional();
+
+        System.out.print("Preu màxim per nit (€) (deixar en blanc per no limitar-lo): ");
+        Double preuMaxim = llegirDoubleOpcional();
+
+        // Mostrar les habitacions lliures per al període
+        List<Habitacio> habitacionsLliures = habitacioService.cercarHabitacionsLliures(dataEntrada, dataSortida,
+                tipus, preuMinim, preuMaxim);
+
+        if (habitacionsLliures.isEmpty()) {
+            System.out.println("No hi ha cap habitació lliure amb aquests criteris.");
             return;
         }
 
-        System.out.println("Habitacions disponibles:");
-        for (Habitacio habitacio : habitacionsDisponibles) {
+        System.out.println("Habitacions lliures:");
+        for (Habitacio habitacio : habitacionsLliures) {
             System.out.println(habitacio);
         }
 
         System.out.print("Número d'habitació a reservar: ");
         int numeroHabitacio = llegirOpcio();
 
-        // Mostrar els clients
-        List<Client> clients = clientService.obtenirTotsElsClients();
+        // Mostrar els clients per pàgines fins que s'introdueixi un ID
+        System.out.println("Clients registrats:");
+        String resposta = mostrarPerPagines(
+                (Client anterior) -> clientService.obtenirClientsPagina(anterior, MIDA_PAGINA), "ID del client");
 
-        if (clients.isEmpty()) {
+        if (resposta == null) {
             System.out.println("No hi ha cap client registrat. Cal afegir un client primer.");
             return;
         }
 
-        System.out.println("Clients registrats:");
-        for (Client client : clients) {
-            System.out.println(client);
-        }
-
-        System.out.print("ID del client: ");
-        int idClient = llegirOpcio();
-
-        System.out.print("Data d'entrada (dd/mm/aaaa): ");
-        LocalDate dataEntrada = llegirData();
-
-        System.out.print("Data de sortida (dd/mm/aaaa): ");
-        LocalDate dataSortida = llegirData();
+        int idClient = convertirEnter(resposta);
 
         int idReserva = reservaService.realitzarReserva(numeroHabitacio, idClient, dataEntrada, dataSortida);
 
@@ -553,14 +610,11 @@ public class HotelCLI {
     private static void consultarReservesActives() {
         System.out.println("\n--- Reserves actives ---");
 
-        List<Reserva> reserves = reservaService.obtenirReservesActives();
+        String resposta = mostrarPerPagines(
+                (ResumReserva anterior) -> reservaService.obtenirResumsActiusPagina(anterior, MIDA_PAGINA), null);
 
-        if (reserves.isEmpty()) {
+        if (resposta == null) {
             System.out.println("No hi ha cap reserva activa.");
-        } else {
-            for (Reserva reserva : reserves) {
-                System.out.println(reserva);
-            }
         }
     }
 
@@ -573,12 +627,12 @@ public class HotelCLI {
         System.out.print("ID del client: ");
         int idClient = llegirOpcio();
 
-        List<Reserva> reserves = reservaService.obtenirReservesClient(idClient);
+        List<ResumReserva> reserves = reservaService.obtenirResumsClient(idClient);
 
         if (reserves.isEmpty()) {
             System.out.println("No hi ha cap reserva per a aquest client.");
         } else {
-            for (Reserva reserva : reserves) {
+            for (ResumReserva reserva : reserves) {
                 System.out.println(reserva);
             }
         }
@@ -586,6 +640,69 @@ public class HotelCLI {
 
     // Mètodes d'utilitat
 
+    /**
+     * Consulta que obté una pàgina d'un llistat a partir del darrer element de la pàgina anterior.
+     * @param <T> El tipus dels elements.
+     */
+    private interface ConsultaPaginada<T> {
+        Pagina<T> obtenir(T anterior);
+    }
+
+    /**
+     * Mostra un llistat per pàgines i permet anar a la pàgina següent (s) o a l'anterior (a).
+     * Cada pàgina es demana a partir del darrer element de l'anterior, de manera que no cal llegir tot el llistat.
+     * @param consulta La consulta que obté cada pàgina.
+     * @param pregunta El text per demanar una resposta després de cada pàgina, o null si només es vol mostrar el llistat.
+     * @return La primera resposta que no és de navegació (buida si no hi ha pregunta), o null si el llistat és buit.
+     */
+    private static <T> String mostrarPerPagines(ConsultaPaginada<T> consulta, String pregunta) {
+        // Darrer element abans de cada pàgina ja vista, per poder tornar enrere
+        List<T> anteriors = new ArrayList<>();
+        T anterior = null;
+
+        while (true) {
+            Pagina<T> pagina = consulta.obtenir(anterior);
+
+            if (pagina.isBuida() && anteriors.isEmpty()) {
+                return null;
+            }
+
+            for (T element : pagina.getElements()) {
+                System.out.println(element);
+            }
+
+            StringBuilder navegacio = new StringBuilder();
+            if (pagina.isHiHaMes()) {
+                navegacio.append("s: pàgina següent");
+            }
+            if (!anteriors.isEmpty()) {
+                navegacio.append(navegacio.length() > 0 ? ", " : "").append("a: pàgina anterior");
+            }
+
+            if (pregunta == null) {
+                if (navegacio.length() == 0) {
+                    return "";
+                }
+                System.out.print(navegacio + ", Enter: tornar: ");
+            } else if (navegacio.length() == 0) {
+                System.out.print(pregunta + ": ");
+            } else {
+                System.out.print(pregunta + " (" + navegacio + "): ");
+            }
+
+            String resposta = scanner.nextLine().trim();
+
+            if (resposta.equalsIgnoreCase("s") && pagina.isHiHaMes()) {
+                anteriors.add(anterior);
+                anterior = pagina.getUltim();
+            } else if (resposta.equalsIgnoreCase("a") && !anteriors.isEmpty()) {
+                anterior = anteriors.remove(anteriors.size() - 1);
+            } else {
+                return resposta;
+            }
+        }
+    }
+
     /**
      * Llegeix un valor double del teclat.
      * @return El valor double.
@@ -599,6 +716,23 @@ public class HotelCLI {
         }
     }
 
+    /**
+     * Llegeix un valor double opcional del teclat.
+     * @return El valor double, o null si es deixa en blanc o no és vàlid.
+     */
+    private static Double llegirDoubleOpcional() {
+        String valor = scanner.nextLine().trim();
+        if (valor.isEmpty()) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(valor);
+        } catch (NumberFormatException e) {
+            System.out.println("Valor no vàlid. No s'aplicarà cap límit.");
+            return null;
+        }
+    }
+
     /**
      * Llegeix una data del teclat.
      * @return La data.
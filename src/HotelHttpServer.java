@@ -0,0 +1,697 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Servidor HTTP amb una API JSON sobre els serveis de l'hotel, per als quioscos i el web.
+ * Fa servir el servidor HTTP del JDK i atén cada petició a ExecutorAsincron (fils virtuals si la JVM en té).
+ *
+ *   GET    /habitacions?despresDe=&mida=          pàgina d'habitacions
+ *   GET    /habitacions/lliures?entrada=&sortida=&tipus=&preuMinim=&preuMaxim=
+ *   GET    /habitacions/{numero}
+ *   GET    /clients?despresDe=&mida=              pàgina de clients
+ *   GET    /clients/{id}
+ *   POST   /clients                               {nom, cognoms, dataNaixement, email, telefon}
+ *   PUT    /clients/{id}                          {nom, cognoms, dataNaixement, email, telefon}
+ *   DELETE /clients/{id}
+ *   GET    /reserves?despresDe=&mida=             pàgina de reserves actives
+ *   GET    /reserves?client={id}                  reserves d'un client
+ *   GET    /reserves/{id}
+ *   POST   /reserves                              {numeroHabitacio, idClient, dataEntrada, dataSortida}
+ *   DELETE /reserves/{id}
+ *   GET    /informes/ocupacio?inici=&fi=          ocupació i ingressos del període [inici, fi)
+ *
+ * Cada petició es mesura a Metriques ("HTTP GET /clients"...), amb el seu temps de resposta i les que acaben en un
+ * error 5xx; no s'escriu cap línia per petició perquè escriure a la consola no alenteixi les respostes.
+ * En aturar la JVM (Ctrl+C) deixa d'acceptar peticions i espera que acabin les que estan en curs.
+ */
+public class HotelHttpServer {
+
+    private static final int PORT_PER_DEFECTE = 8080;
+    // Connexions pendents d'acceptar que el sistema pot encuar
+    private static final int CUA_CONNEXIONS = 1024;
+    private static final int ESPERA_TANCAMENT_S = 10;
+
+    private static final int MIDA_PAGINA_PER_DEFECTE = 20;
+    private static final int MIDA_PAGINA_MAXIMA = 100;
+
+    // Mida màxima del cos d'una petició: els cossos de l'API són objectes petits
+    private static final int MIDA_COS_MAXIMA = 64 * 1024;
+
+    private final HabitacioService habitacioService = new HabitacioService();
+    private final ClientService clientService = new ClientService();
+    private final ReservaService reservaService = new ReservaService();
+    private final InformeService informeService = new InformeService();
+
+    private final HttpServer servidor;
+
+    /**
+     * Crea el servidor, sense iniciar-lo.
+     * @param port El port on escolta.
+     * @throws IOException Si no s'ha pogut obrir el port.
+     */
+    public HotelHttpServer(int port) throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress(port), CUA_CONNEXIONS);
+        servidor.createContext("/habitacions", intercanvi -> atendre(intercanvi, this::habitacions));
+        servidor.createContext("/clients", intercanvi -> atendre(intercanvi, this::clients));
+        servidor.createContext("/reserves", intercanvi -> atendre(intercanvi, this::reserves));
+        servidor.createContext("/informes", intercanvi -> atendre(intercanvi, this::informes));
+        servidor.setExecutor(ExecutorAsincron.getExecutor());
+    }
+
+    /**
+     * Comença a acceptar peticions.
+     */
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * Deixa d'acceptar peticions, espera que acabin les que estan en curs i tanca les connexions a la base de dades.
+     * @param esperaSegons El temps màxim d'espera per a les peticions en curs.
+     */
+    public void aturar(int esperaSegons) {
+        servidor.stop(esperaSegons);
+        ExecutorAsincron.tancar(esperaSegons * 1000L);
+        ConnectionManager.closeConnection();
+    }
+
+    /**
+     * Punt d'entrada del servidor. Opcions: --port 8080
+     */
+    public static void main(String[] args) {
+        Map<String, String> opcions = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            opcions.put(args[i], args[i + 1]);
+        }
+
+        try {
+            int port = opcions.containsKey("--port") ? Integer.parseInt(opcions.get("--port")) : PORT_PER_DEFECTE;
+
+            InicialitzadorBaseDades.inicialitzar();
+            HotelHttpServer servidor = new HotelHttpServer(port);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                System.out.println("Aturant el servidor...");
+                servidor.aturar(ESPERA_TANCAMENT_S);
+                System.out.println("Servidor aturat.");
+            }, "hotel-http-aturada"));
+
+            servidor.iniciar();
+            System.out.println("Servidor HTTP escoltant al port " + port +
+                    (ExecutorAsincron.usaFilsVirtuals() ? " (fils virtuals)" : " (fils de plataforma)"));
+        } catch (NumberFormatException e) {
+            System.err.println("Opció no vàlida: " + e.getMessage());
+            System.exit(1);
+        } catch (SQLException e) {
+            System.err.println("Error en configurar la base de dades: " + e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Error en iniciar el servidor: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // Habitacions
+
+    private Resposta habitacions(Peticio peticio) {
+        peticio.exigirMetode("GET");
+        List<String> segments = peticio.segments;
+
+        if (segments.isEmpty()) {
+            Habitacio anterior = null;
+            Integer despresDe = peticio.parametreEnter("despresDe");
+            if (despresDe != null) {
+                anterior = new Habitacio();
+                anterior.setNumeroHabitacio(despresDe);
+            }
+            Pagina<Habitacio> pagina = habitacioService.obtenirHabitacionsPagina(anterior, peticio.midaPagina());
+            return Resposta.ok(json(pagina, this::json));
+        }
+
+        if (segments.size() == 1 && segments.get(0).equals("lliures")) {
+            LocalDate entrada = peticio.parametreData("entrada");
+            LocalDate sortida = peticio.parametreData("sortida");
+            String error = ReservaService.validarPeriode(entrada, sortida);
+            if (error != null) {
+                throw new ErrorPeticio(400, error);
+            }
+            Double preuMinim = peticio.parametreDecimal("preuMinim");
+            Double preuMaxim = peticio.parametreDecimal("preuMaxim");
+            if (preuMinim != null && preuMaxim != null && preuMinim > preuMaxim) {
+                throw new ErrorPeticio(400, "El preu mínim no pot ser superior al preu màxim");
+            }
+
+            List<Object> lliures = new ArrayList<>();
+            for (Habitacio habitacio : habitacioService.cercarHabitacionsLliures(entrada, sortida,
+                    peticio.parametres.get("tipus"), preuMinim, preuMaxim)) {
+                lliures.add(json(habitacio));
+            }
+            return Resposta.ok(lliures);
+        }
+
+        Habitacio habitacio = habitacioService.obtenirHabitacio(peticio.segmentEnter(0));
+        if (habitacio == null) {
+            throw new ErrorPeticio(404, "No existeix cap habitació amb aquest número");
+        }
+        return Resposta.ok(json(habitacio));
+    }
+
+    // Clients
+
+    private Resposta clients(Peticio peticio) {
+        if (peticio.segments.isEmpty()) {
+            if (peticio.metode.equals("POST")) {
+                return afegirClient(peticio);
+            }
+            peticio.exigirMetode("GET");
+
+            Client anterior = null;
+            Integer despresDe = peticio.parametreEnter("despresDe");
+            if (despresDe != null) {
+                anterior = new Client();
+                anterior.setIdClient(despresDe);
+            }
+            Pagina<Client> pagina = clientService.obtenirClientsPagina(anterior, peticio.midaPagina());
+            return Resposta.ok(json(pagina, this::json));
+        }
+
+        int idClient = peticio.segmentEnter(0);
+        switch (peticio.metode) {
+            case "GET": {
+                Client client = clientService.obtenirClient(idClient);
+                if (client == null) {
+                    throw new ErrorPeticio(404, "No existeix cap client amb aquest ID");
+                }
+                return Resposta.ok(json(client));
+            }
+            case "PUT":
+                return actualitzarClient(peticio, idClient);
+            case "DELETE":
+                if (clientService.obtenirClient(idClient) == null) {
+                    throw new ErrorPeticio(404, "No existeix cap client amb aquest ID");
+                }
+                if (!clientService.eliminarClient(idClient)) {
+                    throw new ErrorPeticio(409, "No s'ha pogut eliminar el client (pot tenir reserves)");
+                }
+                return Resposta.senseContingut();
+            default:
+                throw new ErrorPeticio(405, "Mètode no permès");
+        }
+    }
+
+    private Resposta afegirClient(Peticio peticio) {
+        Map<String, Object> cos = peticio.cos();
+        String nom = text(cos, "nom");
+        String cognoms = text(cos, "cognoms");
+        LocalDate dataNaixement = data(cos, "dataNaixement");
+        String email = text(cos, "email");
+        String telefon = text(cos, "telefon");
+
+        String error = ClientService.validarClient(nom, cognoms, dataNaixement, email, telefon);
+        if (error != null) {
+            throw new ErrorPeticio(400, error);
+        }
+
+        int idClient = clientService.afegirClient(nom, cognoms, dataNaixement, email, telefon);
+        if (idClient == -1) {
+            throw new ErrorPeticio(409, "No s'ha pogut afegir el client (pot ser que l'email ja existeixi)");
+        }
+
+        Map<String, Object> resultat = new LinkedHashMap<>();
+        resultat.put("idClient", idClient);
+        return new Resposta(201, resultat);
+    }
+
+    private Resposta actualitzarClient(Peticio peticio, int idClient) {
+        Map<String, Object> cos = peticio.cos();
+        String nom = text(cos, "nom");
+        String cognoms = text(cos, "cognoms");
+        LocalDate dataNaixement = data(cos, "dataNaixement");
+        String email = text(cos, "email");
+        String telefon = text(cos, "telefon");
+
+        String error = ClientService.validarClient(nom, cognoms, dataNaixement, email, telefon);
+        if (error != null) {
+            throw new ErrorPeticio(400, error);
+        }
+        if (clientService.obtenirClient(idClient) == null) {
+            throw new ErrorPeticio(404, "No existeix cap client amb aquest ID");
+        }
+
+        if (!clientService.actualitzarClient(idClient, nom, cognoms, dataNaixement, email, telefon)) {
+            throw new ErrorPeticio(409, "No s'ha pogut actualitzar el client (pot ser que l'email ja existeixi)");
+        }
+        return Resposta.ok(json(clientService.obtenirClient(idClient)));
+    }
+
+    // Reserves
+
+    private Resposta reserves(Peticio peticio) {
+        if (peticio.segments.isEmpty()) {
+            if (peticio.metode.equals("POST")) {
+                return realitzarReserva(peticio);
+            }
+            peticio.exigirMetode("GET");
+
+            Integer idClient = peticio.parametreEnter("client");
+            if (idClient != null) {
+                if (clientService.obtenirClient(idClient) == null) {
+                    throw new ErrorPeticio(404, "No existeix cap client amb aquest ID");
+                }
+                List<Object> reserves = new ArrayList<>();
+                for (Reserva reserva : reservaService.obtenirReservesClient(idClient)) {
+                    reserves.add(json(reserva));
+                }
+                return Resposta.ok(reserves);
+            }
+
+            Reserva anterior = null;
+            Integer despresDe = peticio.parametreEnter("despresDe");
+            if (despresDe != null) {
+                // Per paginar n'hi ha prou amb l'ID i la data d'entrada
+                anterior = reservaService.obtenirReserva(despresDe, PlaCarrega.RESERVA);
+                if (anterior == null) {
+                    throw new ErrorPeticio(400, "No existeix cap reserva amb l'ID indicat a despresDe");
+                }
+            }
+            Pagina<Reserva> pagina = reservaService.obtenirReservesActivesPagina(anterior, peticio.midaPagina());
+            return Resposta.ok(json(pagina, this::json));
+        }
+
+        int idReserva = peticio.segmentEnter(0);
+        switch (peticio.metode) {
+            case "GET": {
+                Reserva reserva = reservaService.obtenirReserva(idReserva, PlaCarrega.RESERVA);
+                if (reserva == null) {
+                    throw new ErrorPeticio(404, "No existeix cap reserva amb aquest ID");
+                }
+                return Resposta.ok(json(reserva));
+            }
+            case "DELETE":
+                if (reservaService.obtenirReserva(idReserva, PlaCarrega.RESERVA) == null) {
+                    throw new ErrorPeticio(404, "No existeix cap reserva amb aquest ID");
+                }
+                if (!reservaService.cancelarReserva(idReserva)) {
+                    throw new ErrorPeticio(409, "No s'ha pogut cancel·lar la reserva");
+                }
+                return Resposta.senseContingut();
+            default:
+                throw new ErrorPeticio(405, "Mètode no permès");
+        }
+    }
+
+    private Resposta realitzarReserva(Peticio peticio) {
+        Map<String, Object> cos = peticio.cos();
+        int numeroHabitacio = enter(cos, "numeroHabitacio");
+        int idClient = enter(cos, "idClient");
+        LocalDate dataEntrada = data(cos, "dataEntrada");
+        LocalDate dataSortida = data(cos, "dataSortida");
+
+        String error = ReservaService.validarPeriode(dataEntrada, dataSortida);
+        if (error != null) {
+            throw new ErrorPeticio(400, error);
+        }
+        if (habitacioService.obtenirHabitacio(numeroHabitacio) == null) {
+            throw new ErrorPeticio(404, "No existeix cap habitació amb aquest número");
+        }
+        if (clientService.obtenirClient(idClient) == null) {
+            throw new ErrorPeticio(404, "No existeix cap client amb aquest ID");
+        }
+
+        int idReserva = reservaService.realitzarReserva(numeroHabitacio, idClient, dataEntrada, dataSortida);
+        if (idReserva == -1) {
+            throw new ErrorPeticio(409, "No s'ha pogut fer la reserva (l'habitació està fora de servei " +
+                    "o no està disponible per al període)");
+        }
+
+        Map<String, Object> resultat = new LinkedHashMap<>();
+        resultat.put("idReserva", idReserva);
+        return new Resposta(201, resultat);
+    }
+
+    // Informes
+
+    private Resposta informes(Peticio peticio) {
+        peticio.exigirMetode("GET");
+        if (peticio.segments.size() != 1 || !peticio.segments.get(0).equals("ocupacio")) {
+            throw new ErrorPeticio(404, "Informe desconegut");
+        }
+
+        LocalDate inici = peticio.parametreData("inici");
+        LocalDate fi = peticio.parametreData("fi");
+        String error = informeService.validarPeriode(inici, fi);
+        if (error != null) {
+            throw new ErrorPeticio(400, error);
+        }
+
+        InformeOcupacio informe = informeService.generarInforme(inici, fi);
+        if (informe == null) {
+            throw new ErrorPeticio(500, "No s'ha pogut generar l'informe");
+        }
+        return Resposta.ok(json(informe));
+    }
+
+    // Conversió a JSON
+
+    private Map<String, Object> json(Habitacio habitacio) {
+        Map<String, Object> camps = new LinkedHashMap<>();
+        camps.put("numeroHabitacio", habitacio.getNumeroHabitacio());
+        camps.put("tipus", habitacio.getTipus());
+        camps.put("preuPerNit", habitacio.getPreuPerNit());
+        camps.put("disponible", habitacio.isDisponible());
+        return camps;
+    }
+
+    private Map<String, Object> json(Client client) {
+        Map<String, Object> camps = new LinkedHashMap<>();
+        camps.put("idClient", client.getIdClient());
+        camps.put("nom", client.getNom());
+        camps.put("cognoms", client.getCognoms());
+        camps.put("dataNaixement", client.getDataNaixement());
+        camps.put("email", client.getEmail());
+        camps.put("telefon", client.getTelefon());
+        return camps;
+    }
+
+    private Map<String, Object> json(Reserva reserva) {
+        Map<String, Object> camps = new LinkedHashMap<>();
+        camps.put("idReserva", reserva.getIdReserva());
+        camps.put("numeroHabitacio", reserva.getNumeroHabitacio());
+        camps.put("idClient", reserva.getIdClient());
+        camps.put("dataEntrada", reserva.getDataEntrada());
+        camps.put("dataSortida", reserva.getDataSortida());
+        camps.put("totalAPagar", reserva.getTotalAPagar());
+        return camps;
+    }
+
+    private Map<String, Object> json(InformeOcupacio informe) {
+        List<Object> perTipus = new ArrayList<>();
+        for (InformeOcupacio.PerTipus xifres : informe.getPerTipus()) {
+            Map<String, Object> camps = new LinkedHashMap<>();
+            camps.put("tipus", xifres.getTipus());
+            camps.put("habitacions", xifres.getHabitacions());
+            camps.put("nitsDisponibles", xifres.getNitsDisponibles());
+            camps.put("nitsVenudes", xifres.getNitsVenudes());
+            camps.put("ocupacio", xifres.getOcupacio());
+            camps.put("ingressos", xifres.getIngressos());
+            camps.put("adr", xifres.getAdr());
+            camps.put("revpar", xifres.getRevpar());
+            perTipus.add(camps);
+        }
+
+        List<Object> nits = new ArrayList<>();
+        for (InformeOcupacio.Nit nit : informe.getNits()) {
+            Map<String, Object> camps = new LinkedHashMap<>();
+            camps.put("data", nit.getData());
+            camps.put("nitsVenudes", nit.getNitsVenudes());
+            camps.put("ocupacio", nit.getOcupacio());
+            camps.put("ingressos", nit.getIngressos());
+            camps.put("adr", nit.getAdr());
+            camps.put("revpar", nit.getRevpar());
+            nits.add(camps);
+        }
+
+        Map<String, Object> camps = new LinkedHashMap<>();
+        camps.put("inici", informe.getInici());
+        camps.put("fi", informe.getFi());
+        camps.put("habitacions", informe.getHabitacionsEnServei());
+        camps.put("nitsDisponibles", informe.getNitsDisponibles());
+        camps.put("nitsVenudes", informe.getNitsVenudes());
+        camps.put("ocupacio", informe.getOcupacio());
+        camps.put("ingressos", informe.getIngressos());
+        camps.put("adr", informe.getAdr());
+        camps.put("revpar", informe.getRevpar());
+        camps.put("perTipus", perTipus);
+        camps.put("nits", nits);
+        return camps;
+    }
+
+    private <T> Map<String, Object> json(Pagina<T> pagina, Function<T, Object> conversio) {
+        List<Object> elements = new ArrayList<>();
+        for (T element : pagina.getElements()) {
+            elements.add(conversio.apply(element));
+        }
+        Map<String, Object> camps = new LinkedHashMap<>();
+        camps.put("elements", elements);
+        camps.put("hiHaMes", pagina.isHiHaMes());
+        return camps;
+    }
+
+    private static String text(Map<String, Object> cos, String camp) {
+        Object valor = cos.get(camp);
+        if (valor != null && !(valor instanceof String)) {
+            throw new ErrorPeticio(400, "El camp " + camp + " ha de ser un text");
+        }
+        return (String) valor;
+    }
+
+    private static int enter(Map<String, Object> cos, String camp) {
+        Object valor = cos.get(camp);
+        if (!(valor instanceof Long) || (Long) valor != ((Long) valor).intValue()) {
+            throw new ErrorPeticio(400, "El camp " + camp + " ha de ser un enter");
+        }
+        return ((Long) valor).intValue();
+    }
+
+    private static LocalDate data(Map<String, Object> cos, String camp) {
+        String valor = text(cos, camp);
+        try {
+            return valor == null ? null : LocalDate.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new ErrorPeticio(400, "El camp " + camp + " ha de ser una data (aaaa-mm-dd)");
+        }
+    }
+
+    // Atenció de les peticions
+
+    /**
+     * Gestor d'una ruta: rep la petició i retorna la resposta, o llança ErrorPeticio.
+     */
+    private interface Ruta {
+        Resposta atendre(Peticio peticio);
+    }
+
+    private void atendre(HttpExchange intercanvi, Ruta ruta) {
+        String metode = intercanvi.getRequestMethod();
+        String operacio = "HTTP " + metode + " " + intercanvi.getHttpContext().getPath();
+
+        try (Metriques.Mesura mesura = Metriques.iniciar(operacio)) {
+            Resposta resposta;
+            try {
+                resposta = ruta.atendre(new Peticio(intercanvi));
+            } catch (ErrorPeticio e) {
+                resposta = Resposta.error(e.estat, e.getMessage());
+            } catch (RuntimeException e) {
+                System.err.println("Error en atendre " + metode + " " + intercanvi.getRequestURI() + ": " + e);
+                resposta = Resposta.error(500, "Error intern del servidor");
+            }
+
+            if (resposta.estat >= 500) {
+                mesura.error();
+            }
+            enviar(intercanvi, resposta);
+        } catch (IOException e) {
+            System.err.println("Error en enviar la resposta: " + e.getMessage());
+        } finally {
+            intercanvi.close();
+        }
+    }
+
+    private static void enviar(HttpExchange intercanvi, Resposta resposta) throws IOException {
+        if (resposta.cos == null) {
+            intercanvi.sendResponseHeaders(resposta.estat, -1);
+            return;
+        }
+
+        byte[] bytes = Json.escriure(resposta.cos).getBytes(StandardCharsets.UTF_8);
+        intercanvi.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        intercanvi.sendResponseHeaders(resposta.estat, bytes.length);
+        try (OutputStream sortida = intercanvi.getResponseBody()) {
+            sortida.write(bytes);
+        }
+    }
+
+    /**
+     * Dades d'una petició: mètode, segments del camí després del context i paràmetres de la consulta.
+     */
+    private static class Peticio {
+        private final HttpExchange intercanvi;
+        private final String metode;
+        private final List<String> segments = new ArrayList<>();
+        private final Map<String, String> parametres = new HashMap<>();
+
+        Peticio(HttpExchange intercanvi) {
+            this.intercanvi = intercanvi;
+            this.metode = intercanvi.getRequestMethod();
+
+            String cami = intercanvi.getRequestURI().getPath()
+                    .substring(intercanvi.getHttpContext().getPath().length());
+            for (String segment : cami.split("/")) {
+                if (!segment.isEmpty()) {
+                    segments.add(segment);
+                }
+            }
+
+            String consulta = intercanvi.getRequestURI().getRawQuery();
+            if (consulta != null) {
+                for (String parell : consulta.split("&")) {
+                    int igual = parell.indexOf('=');
+                    if (igual > 0) {
+                        parametres.put(decodificar(parell.substring(0, igual)),
+                                decodificar(parell.substring(igual + 1)));
+                    }
+                }
+            }
+        }
+
+        void exigirMetode(String esperat) {
+            if (!metode.equals(esperat)) {
+                throw new ErrorPeticio(405, "Mètode no permès");
+            }
+        }
+
+        int segmentEnter(int index) {
+            if (segments.size() != index + 1) {
+                throw new ErrorPeticio(404, "Recurs no trobat");
+            }
+            try {
+                return Integer.parseInt(segments.get(index));
+            } catch (NumberFormatException e) {
+                throw new ErrorPeticio(404, "Recurs no trobat");
+            }
+        }
+
+        Integer parametreEnter(String nom) {
+            String valor = parametres.get(nom);
+            try {
+                return valor == null ? null : Integer.valueOf(valor);
+            } catch (NumberFormatException e) {
+                throw new ErrorPeticio(400, "El paràmetre " + nom + " ha de ser un enter");
+            }
+        }
+
+        Double parametreDecimal(String nom) {
+            String valor = parametres.get(nom);
+            try {
+                return valor == null ? null : Double.valueOf(valor);
+            } catch (NumberFormatException e) {
+                throw new ErrorPeticio(400, "El paràmetre " + nom + " ha de ser un número");
+            }
+        }
+
+        LocalDate parametreData(String nom) {
+            String valor = parametres.get(nom);
+            try {
+                return valor == null ? null : LocalDate.parse(valor);
+            } catch (DateTimeParseException e) {
+                throw new ErrorPeticio(400, "El paràmetre " + nom + " ha de ser una data (aaaa-mm-dd)");
+            }
+        }
+
+        int midaPagina() {
+            Integer mida = parametreEnter("mida");
+            if (mida == null) {
+                return MIDA_PAGINA_PER_DEFECTE;
+            }
+            if (mida < 1 || mida > MIDA_PAGINA_MAXIMA) {
+                throw new ErrorPeticio(400, "La mida de pàgina ha d'estar entre 1 i " + MIDA_PAGINA_MAXIMA);
+            }
+            return mida;
+        }
+
+        /**
+         * Llegeix el cos de la petició com un objecte JSON.
+         * Si supera MIDA_COS_MAXIMA es respon 413 sense acabar-lo de llegir.
+         */
+        Map<String, Object> cos() {
+            String longitud = intercanvi.getRequestHeaders().getFirst("Content-Length");
+            if (longitud != null && longitud.trim().matches("\\d+")
+                    && Long.parseLong(longitud.trim()) > MIDA_COS_MAXIMA) {
+                throw new ErrorPeticio(413, "El cos de la petició no pot superar els " + MIDA_COS_MAXIMA + " bytes");
+            }
+
+            try (InputStream entrada = intercanvi.getRequestBody()) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int llegits;
+                while ((llegits = entrada.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, llegits);
+                    if (bytes.size() > MIDA_COS_MAXIMA) {
+                        throw new ErrorPeticio(413, "El cos de la petició no pot superar els " + MIDA_COS_MAXIMA +
+                                " bytes");
+                    }
+                }
+                return Json.llegirObjecte(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new ErrorPeticio(400, "No s'ha pogut llegir el cos de la petició");
+            } catch (IllegalArgumentException e) {
+                throw new ErrorPeticio(400, e.getMessage());
+            }
+        }
+
+        private static String decodificar(String text) {
+            try {
+                return URLDecoder.decode(text, "UTF-8");
+            } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+                throw new ErrorPeticio(400, "Paràmetre mal codificat");
+            }
+        }
+    }
+
+    /**
+     * Resposta d'una ruta: codi d'estat i cos, que s'escriu en JSON (null per a respostes sense contingut).
+     */
+    private static class Resposta {
+        private final int estat;
+        private final Object cos;
+
+        Resposta(int estat, Object cos) {
+            this.estat = estat;
+            this.cos = cos;
+        }
+
+        static Resposta ok(Object cos) {
+            return new Resposta(200, cos);
+        }
+
+        static Resposta senseContingut() {
+            return new Resposta(204, null);
+        }
+
+        static Resposta error(int estat, String missatge) {
+            return new Resposta(estat, Collections.singletonMap("error", missatge));
+        }
+    }
+
+    /**
+     * Error que s'ha de tornar al client amb un codi d'estat concret.
+     */
+    private static class ErrorPeticio extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int estat;
+
+        ErrorPeticio(int estat, String missatge) {
+            super(missatge);
+            this.estat = estat;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Índex en memòria de les reserves de cada habitació, per comprovar la disponibilitat sense consultar la base de dades.
+ * Guarda un arbre d'intervals per número d'habitació amb les nits ocupades per les reserves que acaben
+ * a partir del dia de càrrega, i un MapaOcupacio amb les nits ocupades dels propers dos anys: les consultes
+ * que hi cauen es responen amb el mapa de bits i la resta amb l'arbre. El primer cop que es consulta cada dia, el
+ * mapa es torna a construir a partir d'avui amb les reserves dels arbres, de manera que l'horitzó avança amb el temps;
+ * getEstadistiques() mostra quantes consultes ha respost el mapa i quantes han hagut d'anar a l'arbre o a SQL.
+ * Es carrega en arrencar l'aplicació i el mantenen al dia ReservaDAO.afegirReserva i cancelarReserva.
+ *
+ * Només veu les reserves que fa el mateix procés: si un altre procés escriu a la base de dades (la CLI al costat del
+ * servidor HTTP, CarregadorMassiu des de la línia d'ordres...), l'índex d'aquest procés queda desfasat fins que es
+ * torna a carregar. Les reserves continuen sent segures, perquè afegirReserva torna a comprovar el solapament amb SQL,
+ * però les cerques de disponibilitat poden oferir habitacions ja ocupades. Quan hi ha més d'un procés que escriu,
+ * s'ha d'arrencar cadascun amb -Dhotel.index.reserves=false: aleshores l'índex no es carrega i totes les comprovacions
+ * es fan amb SQL.
+ */
+public class IndexReserves {
+
+    // Nits a partir d'avui que cobreix el mapa d'ocupació
+    private static final int HORITZO_DIES = 730;
+
+    // Propietat del sistema per no carregar l'índex quan hi ha més d'un procés que escriu reserves
+    static final String PROPIETAT_ACTIU = "hotel.index.reserves";
+
+    private static final IndexReserves instancia = new IndexReserves();
+
+    private final ConcurrentMap<Integer, ArbreIntervals> perHabitacio = new ConcurrentHashMap<>();
+
+    // Les reserves que acaben abans d'aquesta data no són a l'índex
+    private volatile LocalDate carregatDesDe = null;
+
+    private volatile MapaOcupacio mapa = null;
+
+    // Mapa que s'està construint per avançar l'horitzó: afegir() i eliminar() també l'actualitzen
+    private volatile MapaOcupacio mapaEnConstruccio = null;
+    private final AtomicBoolean avancant = new AtomicBoolean(false);
+
+    private final LongAdder respostesMapa = new LongAdder();
+    private final LongAdder respostesArbre = new LongAdder();
+    private final LongAdder cerquesSenseMapa = new LongAdder();
+    private final LongAdder avancaments = new LongAdder();
+
+    private IndexReserves() {
+    }
+
+    /**
+     * Obté l'índex compartit per tota l'aplicació.
+     * @return L'índex de reserves.
+     */
+    public static IndexReserves getInstancia() {
+        return instancia;
+    }
+
+    /**
+     * @return false si s'ha desactivat l'índex amb -Dhotel.index.reserves=false perquè no és l'únic procés que escriu.
+     */
+    public static boolean isActiu() {
+        return !"false".equalsIgnoreCase(System.getProperty(PROPIETAT_ACTIU));
+    }
+
+    /**
+     * Carrega a l'índex totes les reserves que encara no han acabat.
+     * S'ha de cridar en arrencar, abans que es facin reserves.
+     * @throws SQLException Si hi ha algun problema amb l'accés a les dades.
+     */
+    public void carregar() throws SQLException {
+        LocalDate avui = LocalDate.now();
+
+        try (Connection conn = ConnectionManager.getConnection();
+             PreparedStatement stmt = Consulta.RESERVES_VIGENTS.preparar(conn)) {
+
+            stmt.setDate(1, Date.valueOf(avui));
+
+            perHabitacio.clear();
+            mapa = new MapaOcupacio(avui, HORITZO_DIES);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    afegir(rs.getInt("numero_habitacio"), rs.getInt("id_reserva"),
+                            rs.getDate("data_entrada").toLocalDate(), rs.getDate("data_sortida").toLocalDate());
+                }
+            }
+        }
+
+        carregatDesDe = avui;
+    }
+
+    /**
+     * Indica si l'índex pot respondre sobre un període que comença en la data indicada.
+     * @param dataEntrada La data d'entrada del període.
+     * @return true si l'índex està carregat i conté totes les reserves que poden afectar el període.
+     */
+    public boolean potRespondre(LocalDate dataEntrada) {
+        LocalDate desDe = carregatDesDe;
+        return desDe != null && dataEntrada != null && !dataEntrada.isBefore(desDe);
+    }
+
+    /**
+     * Verifica si una habitació està disponible per a un període, amb el mateix criteri que
+     * ReservaDAO.esHabitacioDisponiblePerPeriode. Només és fiable si potRespondre(dataEntrada) és cert.
+     * @param numeroHabitacio El número de l'habitació.
+     * @param dataEntrada La data d'entrada.
+     * @param dataSortida La data de sortida.
+     * @return true si cap reserva de l'habitació es solapa amb el període, false en cas contrari.
+     */
+    public boolean estaDisponible(int numeroHabitacio, LocalDate dataEntrada, LocalDate dataSortida) {
+        MapaOcupacio mapa = mapaAlDia();
+        if (mapa != null && mapa.cobreix(dataEntrada, dataSortida)) {
+            respostesMapa.increment();
+            return mapa.estaLliure(numeroHabitacio, dataEntrada, dataSortida);
+        }
+        respostesArbre.increment();
+
+        ArbreIntervals arbre = perHabitacio.get(numeroHabitacio);
+        if (arbre == null || !dataEntrada.isBefore(dataSortida)) {
+            return true;
+        }
+        synchronized (arbre) {
+            return !arbre.solapa(dataEntrada.toEpochDay(), ultimaNit(dataSortida));
+        }
+    }
+
+    /**
+     * Obté les habitacions que tenen alguna reserva que es solapa amb el període, amb el mapa d'ocupació.
+     * @param dataEntrada La data d'entrada.
+     * @param dataSortida La data de sortida.
+     * @return Els números de les habitacions ocupades, o null si l'índex no pot respondre sobre el període.
+     */
+    public Set<Integer> habitacionsOcupades(LocalDate dataEntrada, LocalDate dataSortida) {
+        MapaOcupacio mapa = mapaAlDia();
+        if (mapa == null || !potRespondre(dataEntrada) || !mapa.cobreix(dataEntrada, dataSortida)) {
+            cerquesSenseMapa.increment();
+            return null;
+        }
+        respostesMapa.increment();
+        return mapa.habitacionsOcupades(dataEntrada, dataSortida);
+    }
+
+    /**
+     * Afegeix una reserva a l'índex.
+     * @param numeroHabitacio El número de l'habitació reservada.
+     * @param idReserva L'ID de la reserva.
+     * @param dataEntrada La data d'entrada.
+     * @param dataSortida La data de sortida.
+     */
+    public void afegir(int numeroHabitacio, int idReserva, LocalDate dataEntrada, LocalDate dataSortida) {
+        if (!dataEntrada.isBefore(dataSortida)) {
+            return; // Una estada sense nits no ocupa l'habitació
+        }
+        ArbreIntervals arbre = perHabitacio.computeIfAbsent(numeroHabitacio, n -> new ArbreIntervals());
+        synchronized (arbre) {
+            arbre.afegir(idReserva, dataEntrada.toEpochDay(), ultimaNit(dataSortida));
+            for (MapaOcupacio mapa : mapes()) {
+                mapa.ocupar(numeroHabitacio, dataEntrada, dataSortida);
+            }
+        }
+    }
+
+    /**
+     * Elimina una reserva de l'índex.
+     * @param numeroHabitacio El número de l'habitació reservada.
+     * @param idReserva L'ID de la reserva.
+     * @param dataEntrada La data d'entrada de la reserva.
+     * @param dataSortida La data de sortida de la reserva.
+     */
+    public void eliminar(int numeroHabitacio, int idReserva, LocalDate dataEntrada, LocalDate dataSortida) {
+        ArbreIntervals arbre = perHabitacio.get(numeroHabitacio);
+        if (arbre != null) {
+            synchronized (arbre) {
+                arbre.eliminar(idReserva, dataEntrada.toEpochDay());
+                for (MapaOcupacio mapa : mapes()) {
+                    mapa.alliberar(numeroHabitacio, dataEntrada, dataSortida);
+                    // Si hi ha reserves antigues que es solapaven amb aquesta, les seves nits continuen ocupades
+                    arbre.perCadaSolapament(dataEntrada.toEpochDay(), ultimaNit(dataSortida),
+                            (inici, fi) -> mapa.ocupar(numeroHabitacio, inici, fi));
+                }
+            }
+        }
+    }
+
+    /**
+     * Obté les estadístiques de l'índex: l'horitzó del mapa i qui ha respost les consultes.
+     * @return Les estadístiques de l'índex.
+     */
+    public Estadistiques getEstadistiques() {
+        MapaOcupacio mapa = this.mapa;
+        return new Estadistiques(mapa != null ? mapa.getPrimerDia() : null, mapa != null ? mapa.getDies() : 0,
+                respostesMapa.sum(), respostesArbre.sum(), cerquesSenseMapa.sum(), avancaments.sum());
+    }
+
+    /**
+     * Obté el mapa d'ocupació, avançant-ne abans l'horitzó si comença abans d'avui.
+     * Només un fil l'avança; mentrestant els altres continuen amb el mapa anterior, que és correcte dins del seu horitzó.
+     */
+    private MapaOcupacio mapaAlDia() {
+        MapaOcupacio mapa = this.mapa;
+        if (mapa != null && mapa.getPrimerDia().isBefore(LocalDate.now()) && avancant.compareAndSet(false, true)) {
+            try {
+                mapa = avancarHoritzo();
+            } finally {
+                avancant.set(false);
+            }
+        }
+        return mapa;
+    }
+
+    /**
+     * Construeix un mapa d'ocupació nou que comença avui a partir de les reserves dels arbres i el publica.
+     * Mentre es construeix, afegir() i eliminar() també actualitzen el mapa nou: cada habitació es copia amb el seu
+     * arbre bloquejat, de manera que cap reserva no es perd entre la còpia i la publicació.
+     */
+    private MapaOcupacio avancarHoritzo() {
+        LocalDate avui = LocalDate.now();
+        MapaOcupacio nou = new MapaOcupacio(avui, HORITZO_DIES);
+        mapaEnConstruccio = nou;
+
+        long primeraNit = avui.toEpochDay();
+        long ultimaNit = primeraNit + HORITZO_DIES - 1;
+        for (Map.Entry<Integer, ArbreIntervals> entrada : perHabitacio.entrySet()) {
+            int numeroHabitacio = entrada.getKey();
+            ArbreIntervals arbre = entrada.getValue();
+            synchronized (arbre) {
+                arbre.perCadaSolapament(primeraNit, ultimaNit, (inici, fi) -> nou.ocupar(numeroHabitacio, inici, fi));
+            }
+        }
+
+        mapa = nou;
+        mapaEnConstruccio = null;
+        avancaments.increment();
+        return nou;
+    }
+
+    /**
+     * @return Els mapes que s'han de mantenir al dia: el publicat i, si n'hi ha, el que s'està construint.
+     */
+    private MapaOcupacio[] mapes() {
+        MapaOcupacio mapa = this.mapa;
+        MapaOcupacio nou = this.mapaEnConstruccio;
+        if (nou == null || nou == mapa) {
+            return mapa != null ? new MapaOcupacio[]{mapa} : new MapaOcupacio[0];
+        }
+        return mapa != null ? new MapaOcupacio[]{mapa, nou} : new MapaOcupacio[]{nou};
+    }
+
+    /**
+     * L'arbre guarda intervals tancats de nits: l'estada [entrada, sortida) ocupa fins a la nit anterior a la sortida.
+     */
+    private static long ultimaNit(LocalDate dataSortida) {
+        return dataSortida.toEpochDay() - 1;
+    }
+
+    /**
+     * Fotografia de l'horitzó del mapa d'ocupació i dels comptadors de consultes en un moment donat.
+     */
+    public static class Estadistiques {
+        private final LocalDate primerDia;
+        private final int dies;
+        private final long respostesMapa;
+        private final long respostesArbre;
+        private final long cerquesSenseMapa;
+        private final long avancaments;
+
+        Estadistiques(LocalDate primerDia, int dies, long respostesMapa, long respostesArbre, long cerquesSenseMapa,
+                      long avancaments) {
+            this.primerDia = primerDia;
+            this.dies = dies;
+            this.respostesMapa = respostesMapa;
+            this.respostesArbre = respostesArbre;
+            this.cerquesSenseMapa = cerquesSenseMapa;
+            this.avancaments = avancaments;
+        }
+
+        /**
+         * @return La primera nit que cobreix el mapa, o null si l'índex no s'ha carregat.
+         */
+        public LocalDate getPrimerDia() {
+            return primerDia;
+        }
+
+        public int getDies() {
+            return dies;
+        }
+
+        public long getRespostesMapa() {
+            return respostesMapa;
+        }
+
+        /**
+         * @return Les comprovacions de disponibilitat que el mapa no cobria i s'han respost amb l'arbre.
+         */
+        public long getRespostesArbre() {
+            return respostesArbre;
+        }
+
+        /**
+         * @return Les cerques d'habitacions lliures que el mapa no cobria i s'han fet amb SQL.
+         */
+        public long getCerquesSenseMapa() {
+            return cerquesSenseMapa;
+        }
+
+        public long getAvancaments() {
+            return avancaments;
+        }
+
+        /**
+         * @return false si el mapa comença abans d'avui: l'horitzó no ha avançat i cobreix menys dies dels previstos.
+         */
+        public boolean isHoritzoAlDia() {
+            return primerDia != null && !primerDia.isBefore(LocalDate.now());
+        }
+
+        @Override
+        public String toString() {
+            if (primerDia == null) {
+                return "Índex reserves [no carregat]";
+            }
+            return "Índex reserves [Mapa: " + primerDia + " + " + dies + " dies" +
+                    ", Al dia: " + (isHoritzoAlDia() ? "Sí" : "No") +
+                    ", Respostes mapa: " + respostesMapa +
+                    ", Respostes arbre: " + respostesArbre +
+                    ", Cerques amb SQL: " + cerquesSenseMapa +
+                    ", Avançaments: " + avancaments + "]";
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultat de carregar un fitxer amb CarregadorMassiu: files tractades, errors, claus generades i rendiment.
+ */
+public class InformeCarrega {
+
+    // Nombre màxim d'errors que es guarden per no omplir la memòria amb fitxers molt dolents
+    private static final int MAX_ERRORS = 100;
+
+    private final String fitxer;
+    private int filesLlegides;
+    private int filesInserides;
+    private int filesRebutjades;
+    private long milisegons;
+    private final List<String> errors = new ArrayList<>();
+    private final List<Integer> clausGenerades = new ArrayList<>();
+
+    /**
+     * Constructor amb el nom del fitxer carregat.
+     * @param fitxer El nom del fitxer.
+     */
+    public InformeCarrega(String fitxer) {
+        this.fitxer = fitxer;
+    }
+
+    void filaLlegida() {
+        filesLlegides++;
+    }
+
+    void filesInserides(int files) {
+        filesInserides += files;
+    }
+
+    void filaRebutjada(int linia, String motiu) {
+        filesRebutjades++;
+        afegirError("Línia " + linia + ": " + motiu);
+    }
+
+    void lotRebutjat(int primeraLinia, int ultimaLinia, int files, String motiu) {
+        filesRebutjades += files;
+        afegirError("Línies " + primeraLinia + "-" + ultimaLinia + ": " + motiu);
+    }
+
+    void clauGenerada(int clau) {
+        clausGenerades.add(clau);
+    }
+
+    void setMilisegons(long milisegons) {
+        this.milisegons = milisegons;
+    }
+
+    private void afegirError(String error) {
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(error);
+        }
+    }
+
+    public String getFitxer() {
+        return fitxer;
+    }
+
+    public int getFilesLlegides() {
+        return filesLlegides;
+    }
+
+    public int getFilesInserides() {
+        return filesInserides;
+    }
+
+    public int getFilesRebutjades() {
+        return filesRebutjades;
+    }
+
+    public long getMilisegons() {
+        return milisegons;
+    }
+
+    /**
+     * @return Les files inserides per segon.
+     */
+    public double getFilesPerSegon() {
+        return milisegons == 0 ? filesInserides : filesInserides * 1000.0 / milisegons;
+    }
+
+    /**
+     * @return Els primers errors trobats (com a màxim 100).
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * @return Les claus generades per la base de dades, en el mateix ordre que les files inserides.
+     */
+    public List<Integer> getClausGenerades() {
+        return Collections.unmodifiableList(clausGenerades);
+    }
+
+    @Override
+    public String toString() {
+        return "Càrrega [Fitxer: " + fitxer +
+                ", Llegides: " + filesLlegides +
+                ", Inserides: " + filesInserides +
+                ", Rebutjades: " + filesRebutjades +
+                ", Temps: " + milisegons + " ms" +
+                ", Rendiment: " + String.format("%.0f", getFilesPerSegon()) + " files/s]";
+    }
+}
@@ -0,0 +1,118 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DAO de només lectura per als informes d'ocupació i ingressos.
+ * Les vendes es llegeixen de l'ocupació diària precalculada (OcupacioDiariaDAO): el cost depèn dels dies del
+ * període i dels tipus d'habitació, no del nombre de reserves.
+ */
+public class InformeDAO {
+
+    /**
+     * Obté les xifres de cada tipus d'habitació durant el període [inici, fi).
+     * Els tipus sense habitacions en servei però amb estades al període també hi surten, amb 0 nits disponibles.
+     * @param inici El primer dia del període.
+     * @param fi El primer dia que ja no entra al període.
+     * @return Una llista amb les xifres de cada tipus, o null si hi ha hagut algun error.
+     */
+    public List<InformeOcupacio.PerTipus> obtenirXifresPerTipus(LocalDate inici, LocalDate fi) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("InformeDAO.obtenirXifresPerTipus")) {
+            long dies = ChronoUnit.DAYS.between(inici, fi);
+            Map<String, Integer> habitacions = new LinkedHashMap<>();
+            Map<String, Long> nitsVenudes = new LinkedHashMap<>();
+            Map<String, Double> ingressos = new LinkedHashMap<>();
+
+            try (Connection conn = ConnectionManager.getConnection()) {
+                try (PreparedStatement stmt = Consulta.INFORME_HABITACIONS_PER_TIPUS.preparar(conn);
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        habitacions.put(rs.getString("tipus"), rs.getInt("habitacions"));
+                    }
+                }
+
+                try (PreparedStatement stmt = Consulta.INFORME_VENDES_PER_TIPUS.preparar(conn)) {
+                    stmt.setDate(1, Date.valueOf(inici));
+                    stmt.setDate(2, Date.valueOf(fi));
+
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            String tipus = rs.getString("tipus");
+                            nitsVenudes.put(tipus, rs.getLong("nits_venudes"));
+                            ingressos.put(tipus, rs.getDouble("ingressos"));
+                        }
+                    }
+                }
+
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir les xifres per tipus d'habitació: " + e.getMessage());
+                mesura.error();
+                return null;
+            }
+
+            for (String tipus : nitsVenudes.keySet()) {
+                habitacions.putIfAbsent(tipus, 0);
+            }
+
+            List<InformeOcupacio.PerTipus> xifres = new ArrayList<>();
+            for (Map.Entry<String, Integer> entrada : habitacions.entrySet()) {
+                String tipus = entrada.getKey();
+                xifres.add(new InformeOcupacio.PerTipus(tipus, entrada.getValue(), entrada.getValue() * dies,
+                        nitsVenudes.getOrDefault(tipus, 0L), ingressos.getOrDefault(tipus, 0.0)));
+            }
+            return mesura.llista(xifres);
+        }
+    }
+
+    /**
+     * Obté les nits venudes i els ingressos de cada dia del període [inici, fi) que té alguna venda.
+     * @param inici El primer dia del període.
+     * @param fi El primer dia que ja no entra al període.
+     * @return Una llista amb les vendes de cada dia, o null si hi ha hagut algun error.
+     */
+    public List<VendesDia> obtenirVendesPerDia(LocalDate inici, LocalDate fi) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("InformeDAO.obtenirVendesPerDia")) {
+            List<VendesDia> vendes = new ArrayList<>();
+
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.INFORME_VENDES_PER_NIT.preparar(conn)) {
+
+                stmt.setDate(1, Date.valueOf(inici));
+                stmt.setDate(2, Date.valueOf(fi));
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        vendes.add(new VendesDia(rs.getDate("data").toLocalDate(), rs.getInt("nits_venudes"),
+                                rs.getDouble("ingressos")));
+                    }
+                }
+
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir les vendes per dia: " + e.getMessage());
+                mesura.error();
+                return null;
+            }
+
+            return mesura.llista(vendes);
+        }
+    }
+
+    /**
+     * Nits venudes i ingressos d'un dia, sumant tots els tipus d'habitació.
+     */
+    static class VendesDia {
+        final LocalDate data;
+        final int nitsVenudes;
+        final double ingressos;
+
+        VendesDia(LocalDate data, int nitsVenudes, double ingressos) {
+            this.data = data;
+            this.nitsVenudes = nitsVenudes;
+            this.ingressos = ingressos;
+        }
+    }
+}
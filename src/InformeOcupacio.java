@@ -0,0 +1,220 @@
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Informe d'ocupació i ingressos d'un període [inici, fi): ocupació de cada nit i, per a tot el període i per
+ * a cada tipus d'habitació, nits venudes, ingressos, ocupació, ADR (ingrés mitjà per nit venuda) i
+ * RevPAR (ingrés per nit disponible).
+ * Les nits disponibles són les de les habitacions en servei; els ingressos d'una estada es reparteixen a parts
+ * iguals entre les seves nits, de manera que una estada que surt del període només hi compta les nits de dins.
+ */
+public class InformeOcupacio {
+
+    private final LocalDate inici;
+    private final LocalDate fi;
+    private final int habitacionsEnServei;
+    private final List<Nit> nits;
+    private final List<PerTipus> perTipus;
+
+    InformeOcupacio(LocalDate inici, LocalDate fi, int habitacionsEnServei, List<Nit> nits, List<PerTipus> perTipus) {
+        this.inici = inici;
+        this.fi = fi;
+        this.habitacionsEnServei = habitacionsEnServei;
+        this.nits = Collections.unmodifiableList(nits);
+        this.perTipus = Collections.unmodifiableList(perTipus);
+    }
+
+    public LocalDate getInici() {
+        return inici;
+    }
+
+    /**
+     * @return El primer dia que ja no entra a l'informe.
+     */
+    public LocalDate getFi() {
+        return fi;
+    }
+
+    public int getHabitacionsEnServei() {
+        return habitacionsEnServei;
+    }
+
+    /**
+     * @return L'ocupació de cada nit del període, en ordre.
+     */
+    public List<Nit> getNits() {
+        return nits;
+    }
+
+    /**
+     * @return Les xifres de cada tipus d'habitació, de més a menys ingressos.
+     */
+    public List<PerTipus> getPerTipus() {
+        return perTipus;
+    }
+
+    public long getNitsDisponibles() {
+        return (long) habitacionsEnServei * ChronoUnit.DAYS.between(inici, fi);
+    }
+
+    public long getNitsVenudes() {
+        long total = 0;
+        for (Nit nit : nits) {
+            total += nit.nitsVenudes;
+        }
+        return total;
+    }
+
+    public double getIngressos() {
+        double total = 0;
+        for (Nit nit : nits) {
+            total += nit.ingressos;
+        }
+        return total;
+    }
+
+    /**
+     * @return Les nits venudes entre les disponibles (0 si no n'hi ha cap de disponible).
+     */
+    public double getOcupacio() {
+        return dividir(getNitsVenudes(), getNitsDisponibles());
+    }
+
+    /**
+     * @return L'ADR: ingressos per nit venuda.
+     */
+    public double getAdr() {
+        return dividir(getIngressos(), getNitsVenudes());
+    }
+
+    /**
+     * @return El RevPAR: ingressos per nit disponible.
+     */
+    public double getRevpar() {
+        return dividir(getIngressos(), getNitsDisponibles());
+    }
+
+    static double dividir(double dividend, double divisor) {
+        return divisor == 0 ? 0 : dividend / divisor;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Informe [Període: %s - %s, Habitacions: %d, Nits venudes: %d/%d, Ocupació: %.1f%%, " +
+                        "Ingressos: %.2f€, ADR: %.2f€, RevPAR: %.2f€]", inici, fi, habitacionsEnServei,
+                getNitsVenudes(), getNitsDisponibles(), getOcupacio() * 100, getIngressos(), getAdr(), getRevpar());
+    }
+
+    /**
+     * Ocupació d'una nit.
+     */
+    public static class Nit {
+        private final LocalDate data;
+        private final int nitsVenudes;
+        private final int habitacions;
+        private final double ingressos;
+
+        Nit(LocalDate data, int nitsVenudes, int habitacions, double ingressos) {
+            this.data = data;
+            this.nitsVenudes = nitsVenudes;
+            this.habitacions = habitacions;
+            this.ingressos = ingressos;
+        }
+
+        /**
+         * @return El dia en què comença la nit.
+         */
+        public LocalDate getData() {
+            return data;
+        }
+
+        public int getNitsVenudes() {
+            return nitsVenudes;
+        }
+
+        public double getIngressos() {
+            return ingressos;
+        }
+
+        public double getOcupacio() {
+            return dividir(nitsVenudes, habitacions);
+        }
+
+        public double getAdr() {
+            return dividir(ingressos, nitsVenudes);
+        }
+
+        public double getRevpar() {
+            return dividir(ingressos, habitacions);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Nit [Data: %s, Venudes: %d, Ocupació: %.1f%%, Ingressos: %.2f€, ADR: %.2f€, " +
+                    "RevPAR: %.2f€]", data, nitsVenudes, getOcupacio() * 100, ingressos, getAdr(), getRevpar());
+        }
+    }
+
+    /**
+     * Xifres d'un tipus d'habitació per a tot el període.
+     */
+    public static class PerTipus {
+        private final String tipus;
+        private final int habitacions;
+        private final long nitsDisponibles;
+        private final long nitsVenudes;
+        private final double ingressos;
+
+        PerTipus(String tipus, int habitacions, long nitsDisponibles, long nitsVenudes, double ingressos) {
+            this.tipus = tipus;
+            this.habitacions = habitacions;
+            this.nitsDisponibles = nitsDisponibles;
+            this.nitsVenudes = nitsVenudes;
+            this.ingressos = ingressos;
+        }
+
+        public String getTipus() {
+            return tipus;
+        }
+
+        /**
+         * @return Les habitacions en servei d'aquest tipus.
+         */
+        public int getHabitacions() {
+            return habitacions;
+        }
+
+        public long getNitsDisponibles() {
+            return nitsDisponibles;
+        }
+
+        public long getNitsVenudes() {
+            return nitsVenudes;
+        }
+
+        public double getIngressos() {
+            return ingressos;
+        }
+
+        public double getOcupacio() {
+            return dividir(nitsVenudes, nitsDisponibles);
+        }
+
+        public double getAdr() {
+            return dividir(ingressos, nitsVenudes);
+        }
+
+        public double getRevpar() {
+            return dividir(ingressos, nitsDisponibles);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Tipus [Tipus: %s, Habitacions: %d, Nits venudes: %d/%d, Ocupació: %.1f%%, " +
+                            "Ingressos: %.2f€, ADR: %.2f€, RevPAR: %.2f€]", tipus, habitacions, nitsVenudes,
+                    nitsDisponibles, getOcupacio() * 100, ingressos, getAdr(), getRevpar());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Servei que genera els informes d'ocupació i ingressos a partir de l'ocupació diària precalculada, de manera que el
+ * cost d'un informe depèn dels dies del període i no de les reserves.
+ * Les lectures es fan dins d'una UnitatTreball perquè vegin totes el mateix estat.
+ */
+public class InformeService {
+
+    // Límit del període d'un informe, perquè la llista de nits no creixi sense control
+    public static final int MAX_DIES_INFORME = 3660;
+
+    private InformeDAO informeDAO;
+
+    /**
+     * Constructor que inicialitza el DAO.
+     */
+    public InformeService() {
+        this.informeDAO = new InformeDAO();
+    }
+
+    /**
+     * Genera l'informe d'ocupació i ingressos del període [inici, fi).
+     * @param inici El primer dia del període.
+     * @param fi El primer dia que ja no entra al període.
+     * @return L'informe, o null si les dates no són vàlides o hi ha hagut algun error.
+     */
+    public InformeOcupacio generarInforme(LocalDate inici, LocalDate fi) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("InformeService.generarInforme")) {
+            String error = validarPeriode(inici, fi);
+            if (error != null) {
+                System.err.println("Error: " + error);
+                mesura.error();
+                return null;
+            }
+
+            UnitatTreball unitat = UnitatTreball.iniciar();
+            try {
+                InformeOcupacio informe = generar(inici, fi);
+                if (informe == null) {
+                    mesura.error();
+                }
+                return mesura.objecte(informe);
+            } finally {
+                // Només llegeix: es confirma sempre perquè, niada dins d'una altra unitat, no la faci desfer
+                unitat.confirmar();
+                unitat.close();
+            }
+        }
+    }
+
+    /**
+     * Llegeix les vendes del període i construeix l'informe.
+     * @return L'informe, o null si hi ha hagut algun error.
+     */
+    private InformeOcupacio generar(LocalDate inici, LocalDate fi) {
+        List<InformeOcupacio.PerTipus> perTipus = informeDAO.obtenirXifresPerTipus(inici, fi);
+        List<InformeDAO.VendesDia> vendes = perTipus != null ? informeDAO.obtenirVendesPerDia(inici, fi) : null;
+        if (vendes == null) {
+            return null;
+        }
+
+        int habitacions = 0;
+        for (InformeOcupacio.PerTipus xifres : perTipus) {
+            habitacions += xifres.getHabitacions();
+        }
+
+        // Els dies sense cap venda no tenen fila
+        int dies = (int) ChronoUnit.DAYS.between(inici, fi);
+        int[] venudes = new int[dies];
+        double[] ingressos = new double[dies];
+        for (InformeDAO.VendesDia dia : vendes) {
+            int index = (int) ChronoUnit.DAYS.between(inici, dia.data);
+            venudes[index] = dia.nitsVenudes;
+            ingressos[index] = dia.ingressos;
+        }
+
+        List<InformeOcupacio.Nit> nits = new ArrayList<>(dies);
+        for (int dia = 0; dia < dies; dia++) {
+            nits.add(new InformeOcupacio.Nit(inici.plusDays(dia), venudes[dia], habitacions, ingressos[dia]));
+        }
+
+        perTipus.sort(Comparator.comparingDouble(InformeOcupacio.PerTipus::getIngressos).reversed()
+                .thenComparing(InformeOcupacio.PerTipus::getTipus));
+        return new InformeOcupacio(inici, fi, habitacions, nits, perTipus);
+    }
+
+    /**
+     * Valida el període d'un informe.
+     * @param inici El primer dia del període.
+     * @param fi El primer dia que ja no entra al període.
+     * @return El missatge d'error, o null si el període és vàlid.
+     */
+    public String validarPeriode(LocalDate inici, LocalDate fi) {
+        if (inici == null || fi == null) {
+            return "Les dates de l'informe no poden ser nul·les";
+        }
+        if (!fi.isAfter(inici)) {
+            return "La data final ha de ser posterior a la inicial";
+        }
+        if (ChronoUnit.DAYS.between(inici, fi) > MAX_DIES_INFORME) {
+            return "El període de l'informe no pot superar els " + MAX_DIES_INFORME + " dies";
+        }
+        return null;
+    }
+
+    // Variants asíncrones: s'executen a ExecutorAsincron i no bloquegen qui les crida
+
+    /**
+     * Versió asíncrona de generarInforme().
+     * @param inici El primer dia del període.
+     * @param fi El primer dia que ja no entra al període.
+     * @return Un CompletableFuture amb l'informe, o amb null si hi ha hagut algun error.
+     */
+    public CompletableFuture<InformeOcupacio> generarInformeAsync(LocalDate inici, LocalDate fi) {
+        return ExecutorAsincron.executar(() -> generarInforme(inici, fi));
+    }
+}
@@ -0,0 +1,28 @@
+import java.sql.SQLException;
+
+/**
+ * Prepara la base de dades abans de fer-la servir: aplica les migracions pendents i carrega l'índex de reserves.
+ * La comparteixen totes les aplicacions que arrenquen sobre la base de dades (CLI, simulador...).
+ */
+public class InicialitzadorBaseDades {
+
+    private InicialitzadorBaseDades() {
+    }
+
+    /**
+     * Porta l'esquema a la darrera versió i carrega l'índex de reserves en memòria, si no s'ha desactivat
+     * (vegeu IndexReserves).
+     * @throws SQLException Si no s'ha pogut preparar la base de dades.
+     */
+    public static void inicialitzar() throws SQLException {
+        // Crear o actualitzar les taules i els índexs
+        MigracionsEsquema.migrar();
+
+        // Carregar l'índex de reserves en memòria. Sense carregar, les comprovacions de disponibilitat es fan amb SQL
+        if (IndexReserves.isActiu()) {
+            IndexReserves.getInstancia().carregar();
+        } else {
+            System.out.println("Índex de reserves desactivat: la disponibilitat es comprovarà a la base de dades.");
+        }
+    }
+}
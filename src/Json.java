@@ -0,0 +1,295 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura i escriptura de JSON per al servidor HTTP, sense dependències externes.
+ * Els objectes són Map (en ordre d'inserció), els arrays List, els números Double o Long,
+ * i els valors booleans i null els de Java. Les dates s'escriuen en format ISO (aaaa-mm-dd).
+ * La lectura és recursiva: els objectes i arrays niats més de PROFUNDITAT_MAXIMA nivells es rebutgen com a JSON no
+ * vàlid, en lloc d'esgotar la pila.
+ */
+public class Json {
+
+    static final int PROFUNDITAT_MAXIMA = 32;
+
+    private final String text;
+    private int posicio = 0;
+    private int profunditat = 0;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Converteix un valor a text JSON.
+     * @param valor Un Map, Collection, String, Number, Boolean, LocalDate o null.
+     * @return El text JSON.
+     */
+    public static String escriure(Object valor) {
+        StringBuilder sb = new StringBuilder();
+        escriure(valor, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Llegeix un objecte JSON.
+     * @param text El text JSON.
+     * @return Els camps de l'objecte.
+     * @throws IllegalArgumentException Si el text no és un objecte JSON vàlid.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> llegirObjecte(String text) {
+        Json lector = new Json(text);
+        lector.saltarEspais();
+        if (!lector.queda() || lector.actual() != '{') {
+            throw lector.error("s'esperava un objecte");
+        }
+        Object valor = lector.llegirValor();
+        lector.saltarEspais();
+        if (lector.queda()) {
+            throw lector.error("text sobrant");
+        }
+        return (Map<String, Object>) valor;
+    }
+
+    private static void escriure(Object valor, StringBuilder sb) {
+        if (valor == null) {
+            sb.append("null");
+        } else if (valor instanceof String || valor instanceof LocalDate) {
+            escriureText(valor.toString(), sb);
+        } else if (valor instanceof Number || valor instanceof Boolean) {
+            sb.append(valor);
+        } else if (valor instanceof Map) {
+            sb.append('{');
+            boolean primer = true;
+            for (Map.Entry<?, ?> camp : ((Map<?, ?>) valor).entrySet()) {
+                if (!primer) {
+                    sb.append(',');
+                }
+                primer = false;
+                escriureText(String.valueOf(camp.getKey()), sb);
+                sb.append(':');
+                escriure(camp.getValue(), sb);
+            }
+            sb.append('}');
+        } else if (valor instanceof Collection) {
+            sb.append('[');
+            boolean primer = true;
+            for (Object element : (Collection<?>) valor) {
+                if (!primer) {
+                    sb.append(',');
+                }
+                primer = false;
+                escriure(element, sb);
+            }
+            sb.append(']');
+        } else {
+            throw new IllegalArgumentException("No es pot convertir a JSON: " + valor.getClass().getName());
+        }
+    }
+
+    private static void escriureText(String text, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    private Object llegirValor() {
+        saltarEspais();
+        if (!queda()) {
+            throw error("s'esperava un valor");
+        }
+        char c = actual();
+        if (c == '{' || c == '[') {
+            if (++profunditat > PROFUNDITAT_MAXIMA) {
+                throw error("més de " + PROFUNDITAT_MAXIMA + " nivells niats");
+            }
+            Object valor = c == '{' ? llegirMap() : llegirLlista();
+            profunditat--;
+            return valor;
+        }
+        if (c == '"') {
+            return llegirText();
+        }
+        if (text.startsWith("true", posicio)) {
+            posicio += 4;
+            return Boolean.TRUE;
+        }
+        if (text.startsWith("false", posicio)) {
+            posicio += 5;
+            return Boolean.FALSE;
+        }
+        if (text.startsWith("null", posicio)) {
+            posicio += 4;
+            return null;
+        }
+        return llegirNumero();
+    }
+
+    private Map<String, Object> llegirMap() {
+        Map<String, Object> camps = new LinkedHashMap<>();
+        posicio++;
+        saltarEspais();
+        if (queda() && actual() == '}') {
+            posicio++;
+            return camps;
+        }
+        while (true) {
+            saltarEspais();
+            if (!queda() || actual() != '"') {
+                throw error("s'esperava el nom d'un camp");
+            }
+            String nom = llegirText();
+            esperar(':');
+            camps.put(nom, llegirValor());
+            saltarEspais();
+            if (queda() && actual() == ',') {
+                posicio++;
+            } else {
+                esperar('}');
+                return camps;
+            }
+        }
+    }
+
+    private List<Object> llegirLlista() {
+        List<Object> elements = new ArrayList<>();
+        posicio++;
+        saltarEspais();
+        if (queda() && actual() == ']') {
+            posicio++;
+            return elements;
+        }
+        while (true) {
+            elements.add(llegirValor());
+            saltarEspais();
+            if (queda() && actual() == ',') {
+                posicio++;
+            } else {
+                esperar(']');
+                return elements;
+            }
+        }
+    }
+
+    private String llegirText() {
+        StringBuilder sb = new StringBuilder();
+        posicio++;
+        while (queda()) {
+            char c = text.charAt(posicio++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (!queda()) {
+                break;
+            }
+            char escapat = text.charAt(posicio++);
+            switch (escapat) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'u':
+                    if (posicio + 4 > text.length()) {
+                        throw error("seqüència \\u incompleta");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(text.substring(posicio, posicio + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("seqüència \\u no vàlida");
+                    }
+                    posicio += 4;
+                    break;
+                default:
+                    sb.append(escapat);
+            }
+        }
+        throw error("text sense tancar");
+    }
+
+    private Number llegirNumero() {
+        int inici = posicio;
+        while (queda() && "+-0123456789.eE".indexOf(actual()) >= 0) {
+            posicio++;
+        }
+        String numero = text.substring(inici, posicio);
+        try {
+            if (numero.indexOf('.') < 0 && numero.indexOf('e') < 0 && numero.indexOf('E') < 0) {
+                return Long.parseLong(numero);
+            }
+            return Double.parseDouble(numero);
+        } catch (NumberFormatException e) {
+            throw error("valor no vàlid");
+        }
+    }
+
+    private void esperar(char c) {
+        saltarEspais();
+        if (!queda() || actual() != c) {
+            throw error("s'esperava '" + c + "'");
+        }
+        posicio++;
+    }
+
+    private void saltarEspais() {
+        while (queda() && Character.isWhitespace(actual())) {
+            posicio++;
+        }
+    }
+
+    private boolean queda() {
+        return posicio < text.length();
+    }
+
+    private char actual() {
+        return text.charAt(posicio);
+    }
+
+    private IllegalArgumentException error(String missatge) {
+        return new IllegalArgumentException("JSON no vàlid a la posició " + posicio + ": " + missatge);
+    }
+}
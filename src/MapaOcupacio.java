@@ -0,0 +1,147 @@
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Mapa de bits de les nits ocupades de cada habitació dins d'un horitzó de dies fix.
+ * El bit i de cada habitació correspon a la nit del dia primerDia + i. Amb 730 dies són uns 100 bytes per habitació,
+ * i saber si una estada està lliure és comprovar que un rang de bits estigui a zero.
+ * Cada habitació es sincronitza pel seu BitSet; qui escriu ha d'evitar escriptures concurrents de la mateixa habitació.
+ * L'horitzó no es mou: per seguir cobrint els propers dies, IndexReserves en construeix un de nou cada dia.
+ */
+public class MapaOcupacio {
+
+    private final long primerDia;
+    private final int dies;
+    private final ConcurrentMap<Integer, BitSet> perHabitacio = new ConcurrentHashMap<>();
+
+    /**
+     * @param primerDia La primera nit de l'horitzó.
+     * @param dies El nombre de nits de l'horitzó.
+     */
+    public MapaOcupacio(LocalDate primerDia, int dies) {
+        this.primerDia = primerDia.toEpochDay();
+        this.dies = dies;
+    }
+
+    /**
+     * @return La primera nit de l'horitzó.
+     */
+    public LocalDate getPrimerDia() {
+        return LocalDate.ofEpochDay(primerDia);
+    }
+
+    /**
+     * @return El nombre de nits de l'horitzó.
+     */
+    public int getDies() {
+        return dies;
+    }
+
+    /**
+     * Indica si l'estada [dataEntrada, dataSortida) cau sencera dins de l'horitzó.
+     * @param dataEntrada La data d'entrada.
+     * @param dataSortida La data de sortida.
+     * @return true si el mapa pot respondre sobre l'estada.
+     */
+    public boolean cobreix(LocalDate dataEntrada, LocalDate dataSortida) {
+        return dataEntrada.toEpochDay() >= primerDia && dataSortida.toEpochDay() - primerDia <= dies;
+    }
+
+    /**
+     * Marca com a ocupades les nits de l'estada que cauen dins de l'horitzó.
+     * @param numeroHabitacio El número de l'habitació.
+     * @param dataEntrada La data d'entrada.
+     * @param dataSortida La data de sortida (la seva nit no s'ocupa).
+     */
+    public void ocupar(int numeroHabitacio, LocalDate dataEntrada, LocalDate dataSortida) {
+        ocupar(numeroHabitacio, dataEntrada.toEpochDay(), dataSortida.toEpochDay() - 1);
+    }
+
+    /**
+     * Marca com a ocupades les nits [primeraNit, ultimaNit], en dies d'època, que cauen dins de l'horitzó.
+     */
+    void ocupar(int numeroHabitacio, long primeraNit, long ultimaNit) {
+        int desDe = bit(primeraNit);
+        int finsA = bit(ultimaNit + 1);
+        if (desDe >= finsA) {
+            return;
+        }
+        BitSet nits = perHabitacio.computeIfAbsent(numeroHabitacio, n -> new BitSet(dies));
+        synchronized (nits) {
+            nits.set(desDe, finsA);
+        }
+    }
+
+    /**
+     * Marca com a lliures les nits de l'estada que cauen dins de l'horitzó.
+     * @param numeroHabitacio El número de l'habitació.
+     * @param dataEntrada La data d'entrada.
+     * @param dataSortida La data de sortida.
+     */
+    public void alliberar(int numeroHabitacio, LocalDate dataEntrada, LocalDate dataSortida) {
+        BitSet nits = perHabitacio.get(numeroHabitacio);
+        if (nits == null) {
+            return;
+        }
+        int desDe = bit(dataEntrada.toEpochDay());
+        int finsA = bit(dataSortida.toEpochDay());
+        if (desDe < finsA) {
+            synchronized (nits) {
+                nits.clear(desDe, finsA);
+            }
+        }
+    }
+
+    /**
+     * Indica si cap nit de l'estada està ocupada. Només és fiable si cobreix() és cert.
+     * @param numeroHabitacio El número de l'habitació.
+     * @param dataEntrada La data d'entrada.
+     * @param dataSortida La data de sortida.
+     * @return true si l'habitació està lliure tot el període.
+     */
+    public boolean estaLliure(int numeroHabitacio, LocalDate dataEntrada, LocalDate dataSortida) {
+        BitSet nits = perHabitacio.get(numeroHabitacio);
+        return nits == null || estaLliure(nits, bit(dataEntrada.toEpochDay()), bit(dataSortida.toEpochDay()));
+    }
+
+    /**
+     * Obté les habitacions que tenen alguna nit ocupada durant l'estada. Només és fiable si cobreix() és cert.
+     * @param dataEntrada La data d'entrada.
+     * @param dataSortida La data de sortida.
+     * @return Els números de les habitacions ocupades; les que no hi són estan lliures.
+     */
+    public Set<Integer> habitacionsOcupades(LocalDate dataEntrada, LocalDate dataSortida) {
+        int desDe = bit(dataEntrada.toEpochDay());
+        int finsA = bit(dataSortida.toEpochDay());
+        Set<Integer> ocupades = new HashSet<>();
+        for (Map.Entry<Integer, BitSet> entrada : perHabitacio.entrySet()) {
+            if (!estaLliure(entrada.getValue(), desDe, finsA)) {
+                ocupades.add(entrada.getKey());
+            }
+        }
+        return ocupades;
+    }
+
+    private static boolean estaLliure(BitSet nits, int desDe, int finsA) {
+        if (desDe >= finsA) {
+            return true;
+        }
+        synchronized (nits) {
+            // El primer bit ocupat a partir de l'entrada ha de quedar fora de l'estada
+            int ocupada = nits.nextSetBit(desDe);
+            return ocupada < 0 || ocupada >= finsA;
+        }
+    }
+
+    /**
+     * Converteix un dia d'època en posició del BitSet, limitada a l'horitzó.
+     */
+    private int bit(long dia) {
+        return (int) Math.max(0, Math.min(dies, dia - primerDia));
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mètriques d'una operació (un mètode d'un DAO o d'un servei): crides, errors, files retornades
+ * i histograma de latències. Es publica per JMX amb el nom hotel:type=Operacio,name=Classe.metode.
+ */
+public class MetricaOperacio implements MetricaOperacioMBean {
+
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private final String nom;
+    private final LongAdder crides = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder files = new LongAdder();
+    private final HistogramaLatencia latencia = new HistogramaLatencia();
+
+    /**
+     * Constructor amb el nom de l'operació.
+     * @param nom El nom de l'operació, per exemple "ClientDAO.obtenirClient".
+     */
+    MetricaOperacio(String nom) {
+        this.nom = nom;
+    }
+
+    void registrar(long nanos, boolean error, long files) {
+        crides.increment();
+        latencia.registrar(nanos);
+        if (error) {
+            errors.increment();
+        }
+        if (files > 0) {
+            this.files.add(files);
+        }
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    @Override
+    public long getCrides() {
+        return crides.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getFiles() {
+        return files.sum();
+    }
+
+    @Override
+    public double getLatenciaMitjanaMs() {
+        return latencia.getMitjanaNanos() / NANOS_PER_MS;
+    }
+
+    @Override
+    public double getLatenciaP50Ms() {
+        return latencia.percentil(50) / NANOS_PER_MS;
+    }
+
+    @Override
+    public double getLatenciaP99Ms() {
+        return latencia.percentil(99) / NANOS_PER_MS;
+    }
+
+    @Override
+    public double getLatenciaP999Ms() {
+        return latencia.percentil(99.9) / NANOS_PER_MS;
+    }
+
+    @Override
+    public double getLatenciaMaximaMs() {
+        return latencia.getMaximNanos() / NANOS_PER_MS;
+    }
+
+    /**
+     * Torna a començar tots els comptadors de l'operació.
+     */
+    @Override
+    public void reiniciar() {
+        crides.reset();
+        errors.reset();
+        files.reset();
+        latencia.reiniciar();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-45s %9d %7d %10d %9.3f %9.3f %9.3f %9.3f", nom, getCrides(), getErrors(), getFiles(),
+                getLatenciaMitjanaMs(), getLatenciaP50Ms(), getLatenciaP99Ms(), getLatenciaP999Ms());
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ * Interfície JMX de les mètriques d'una operació (vegeu MetricaOperacio).
+ */
+public interface MetricaOperacioMBean {
+
+    long getCrides();
+
+    long getErrors();
+
+    long getFiles();
+
+    double getLatenciaMitjanaMs();
+
+    double getLatenciaP50Ms();
+
+    double getLatenciaP99Ms();
+
+    double getLatenciaP999Ms();
+
+    double getLatenciaMaximaMs();
+
+    void reiniciar();
+}
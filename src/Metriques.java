@@ -0,0 +1,276 @@
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registre de les mètriques de les operacions dels DAO i dels serveis.
+ * Cada mètode instrumentat obre una Mesura en començar i la tanca en acabar (amb try-with-resources):
+ *
+ *   try (Metriques.Mesura mesura = Metriques.iniciar("ClientDAO.obtenirClient")) {
+ *       ...
+ *       mesura.error();                 // si l'operació ha fallat
+ *       return mesura.objecte(client);  // compta les files retornades (també llista() i pagina())
+ *   }
+ *
+ * Les mètriques es publiquen per JMX (domini "hotel") i es poden consultar des de la CLI.
+ * Només fan servir comptadors sense bloqueig, per poder-les deixar sempre activades.
+ */
+public class Metriques {
+
+    private static final String DOMINI_JMX = "hotel";
+
+    private static final Metriques instancia = new Metriques();
+
+    private final ConcurrentMap<String, MetricaOperacio> operacions = new ConcurrentHashMap<>();
+
+    private Metriques() {
+        registrarJmx(DOMINI_JMX + ":type=Estadistiques",
+                new StandardMBean(new EstatHotel(), EstatHotelMBean.class, false));
+    }
+
+    /**
+     * Comença a mesurar una crida a una operació.
+     * @param operacio El nom de l'operació, per exemple "ClientDAO.obtenirClient".
+     * @return La mesura, que s'ha de tancar en acabar la crida.
+     */
+    public static Mesura iniciar(String operacio) {
+        return new Mesura(instancia.obtenir(operacio));
+    }
+
+    /**
+     * Obté les mètriques de totes les operacions que s'han cridat alguna vegada, ordenades per nom.
+     * @return Les mètriques de les operacions.
+     */
+    public static List<MetricaOperacio> getOperacions() {
+        List<MetricaOperacio> operacions = new ArrayList<>(instancia.operacions.values());
+        operacions.sort(Comparator.comparing(MetricaOperacio::getNom));
+        return operacions;
+    }
+
+    /**
+     * Torna a començar els comptadors de totes les operacions i de les consultes registrades.
+     */
+    public static void reiniciar() {
+        for (MetricaOperacio operacio : instancia.operacions.values()) {
+            operacio.reiniciar();
+        }
+        Consulta.reiniciar();
+    }
+
+    /**
+     * Resum de l'estat del pool, de les memòries cau, de l'índex de reserves, dels bloquejos, de totes les operacions
+     * i de les consultes.
+     * @return El resum, en diverses línies.
+     */
+    public static String informe() {
+        StringBuilder informe = new StringBuilder();
+        ConnectionPool.Estadistiques pool = ConnectionManager.getPoolStatistics();
+        informe.append(pool != null ? pool.toString() : "Pool [no creat]").append('\n');
+        informe.append("Viatges a la base de dades: ").append(ComptadorViatges.getTotal()).append('\n');
+        informe.append(HabitacioDAO.obtenirEstadistiquesCache()).append('\n');
+        informe.append(ClientDAO.obtenirEstadistiquesCache()).append('\n');
+        informe.append(IndexReserves.getInstancia().getEstadistiques()).append('\n');
+        informe.append(ReservaDAO.obtenirEstadistiquesBloquejos()).append("\n\n");
+
+        informe.append(String.format("%-45s %9s %7s %10s %9s %9s %9s %9s%n", "Operació", "Crides", "Errors", "Files",
+                "Mitj. ms", "p50 ms", "p99 ms", "p99.9 ms"));
+        for (MetricaOperacio operacio : getOperacions()) {
+            informe.append(operacio).append('\n');
+        }
+
+        informe.append('\n').append(String.format("%-32s %9s %12s %9s %12s%n", "Consulta", "Execucions",
+                "Total ms", "Mitj. ms", "Preparacions"));
+        for (Consulta.Estadistiques consulta : Consulta.getEstadistiques()) {
+            informe.append(String.format("%-32s %9d %12.1f %9.3f %12d%n", consulta.getNom(), consulta.getExecucions(),
+                    consulta.getTempsTotalMicros() / 1000.0, consulta.getMitjanaMillis(), consulta.getPreparacions()));
+        }
+        return informe.toString();
+    }
+
+    private MetricaOperacio obtenir(String nom) {
+        MetricaOperacio operacio = operacions.get(nom);
+        if (operacio != null) {
+            return operacio;
+        }
+
+        MetricaOperacio nova = new MetricaOperacio(nom);
+        operacio = operacions.putIfAbsent(nom, nova);
+        if (operacio != null) {
+            return operacio;
+        }
+        registrarJmx(DOMINI_JMX + ":type=Operacio,name=" + ObjectName.quote(nom), nova);
+        return nova;
+    }
+
+    private static void registrarJmx(String nom, Object mbean) {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(nom);
+            if (!servidor.isRegistered(objectName)) {
+                servidor.registerMBean(mbean, objectName);
+            }
+        } catch (JMException e) {
+            System.err.println("Error en publicar les mètriques per JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Mesura d'una crida: en tancar-la es registra la latència, si ha fallat i les files retornades.
+     */
+    public static class Mesura implements AutoCloseable {
+        private final MetricaOperacio operacio;
+        private final long inici = System.nanoTime();
+        private boolean error = false;
+        private long files = 0;
+
+        Mesura(MetricaOperacio operacio) {
+            this.operacio = operacio;
+        }
+
+        /**
+         * Marca la crida com a fallida.
+         */
+        public void error() {
+            error = true;
+        }
+
+        /**
+         * Afegeix files retornades per la crida.
+         * @param files El nombre de files.
+         */
+        public void files(long files) {
+            this.files += files;
+        }
+
+        /**
+         * Compta els elements d'una llista com a files retornades.
+         * @param llista La llista que retorna la crida.
+         * @return La mateixa llista.
+         */
+        public <T extends Collection<?>> T llista(T llista) {
+            files(llista.size());
+            return llista;
+        }
+
+        /**
+         * Compta els elements d'una pàgina com a files retornades.
+         * @param pagina La pàgina que retorna la crida.
+         * @return La mateixa pàgina.
+         */
+        public <P extends Pagina<?>> P pagina(P pagina) {
+            files(pagina.getElements().size());
+            return pagina;
+        }
+
+        /**
+         * Compta una fila retornada si l'objecte no és null.
+         * @param objecte L'objecte que retorna la crida.
+         * @return El mateix objecte.
+         */
+        public <T> T objecte(T objecte) {
+            if (objecte != null) {
+                files(1);
+            }
+            return objecte;
+        }
+
+        /**
+         * Marca la crida com a fallida si la clau generada indica un error (-1).
+         * @param clau La clau que retorna la crida.
+         * @return La mateixa clau.
+         */
+        public int clau(int clau) {
+            if (clau < 0) {
+                error();
+            }
+            return clau;
+        }
+
+        /**
+         * Marca la crida com a fallida si el resultat és false.
+         * @param correcte El resultat de la crida.
+         * @return El mateix resultat.
+         */
+        public boolean correcte(boolean correcte) {
+            if (!correcte) {
+                error();
+            }
+            return correcte;
+        }
+
+        @Override
+        public void close() {
+            operacio.registrar(System.nanoTime() - inici, error, files);
+        }
+    }
+
+    /**
+     * Interfície JMX amb l'estat general: pool de connexions, memòries cau, bloquejos i viatges a la base de dades.
+     */
+    public interface EstatHotelMBean {
+        String getPool();
+
+        String getCacheHabitacions();
+
+        String getCacheClients();
+
+        String getBloquejosHabitacions();
+
+        long getViatgesBaseDades();
+
+        String[] getConsultes();
+
+        void reiniciarOperacions();
+    }
+
+    private static class EstatHotel implements EstatHotelMBean {
+        @Override
+        public String getPool() {
+            ConnectionPool.Estadistiques pool = ConnectionManager.getPoolStatistics();
+            return pool != null ? pool.toString() : "Pool [no creat]";
+        }
+
+        @Override
+        public String getCacheHabitacions() {
+            return HabitacioDAO.obtenirEstadistiquesCache().toString();
+        }
+
+        @Override
+        public String getCacheClients() {
+            return ClientDAO.obtenirEstadistiquesCache().toString();
+        }
+
+        @Override
+        public String getBloquejosHabitacions() {
+            return ReservaDAO.obtenirEstadistiquesBloquejos().toString();
+        }
+
+        @Override
+        public long getViatgesBaseDades() {
+            return ComptadorViatges.getTotal();
+        }
+
+        @Override
+        public String[] getConsultes() {
+            List<Consulta.Estadistiques> consultes = Consulta.getEstadistiques();
+            String[] resultat = new String[consultes.size()];
+            for (int i = 0; i < resultat.length; i++) {
+                resultat[i] = consultes.get(i).toString();
+            }
+            return resultat;
+        }
+
+        @Override
+        public void reiniciarOperacions() {
+            Metriques.reiniciar();
+        }
+    }
+}
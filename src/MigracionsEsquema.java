@@ -0,0 +1,341 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Migracions versionades de l'esquema de la base de dades.
+ * La taula esquema_versio guarda les migracions aplicades; en arrencar s'apliquen, en ordre,
+ * les que falten. Així una base de dades existent s'actualitza sense perdre dades.
+ *
+ * Per canviar l'esquema s'afegeix una migració nova al final de la llista, mai es modifica una d'existent.
+ * Els índexs es creen en línia (ALGORITHM=INPLACE, LOCK=NONE): la taula es pot continuar llegint i escrivint.
+ */
+public class MigracionsEsquema {
+
+    // Bloqueig amb nom perquè dues instàncies de l'aplicació no migrin alhora
+    private static final String BLOQUEIG = "hotel_reserves_migracions";
+    private static final int TEMPS_ESPERA_BLOQUEIG_S = 60;
+
+    /**
+     * Canvi que aplica una migració.
+     */
+    interface Pas {
+        void aplicar(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Migració amb el seu número de versió i una descripció.
+     */
+    static class Migracio {
+        private final int versio;
+        private final String descripcio;
+        private final Pas pas;
+
+        Migracio(int versio, String descripcio, Pas pas) {
+            this.versio = versio;
+            this.descripcio = descripcio;
+            this.pas = pas;
+        }
+
+        public int getVersio() {
+            return versio;
+        }
+
+        public String getDescripcio() {
+            return descripcio;
+        }
+    }
+
+    // Totes les migracions, en ordre de versió
+    private static final List<Migracio> MIGRACIONS = Collections.unmodifiableList(Arrays.asList(
+            new Migracio(1, "Taules habitacions, clients i reserves", conn -> executar(conn,
+                    "CREATE TABLE IF NOT EXISTS habitacions (\n" +
+                            "  numero_habitacio INT PRIMARY KEY,\n" +
+                            "  tipus VARCHAR(50) NOT NULL,\n" +
+                            "  preu_per_nit DOUBLE NOT NULL,\n" +
+                            "  disponible BOOLEAN NOT NULL DEFAULT TRUE\n" +
+                            ")",
+
+                    "CREATE TABLE IF NOT EXISTS clients (\n" +
+                            "  id_client INT PRIMARY KEY AUTO_INCREMENT,\n" +
+                            "  nom VARCHAR(100) NOT NULL,\n" +
+                            "  cognoms VARCHAR(200) NOT NULL,\n" +
+                            "  data_naixement DATE NOT NULL,\n" +
+                            "  email VARCHAR(200) UNIQUE NOT NULL,\n" +
+                            "  telefon VARCHAR(20) NOT NULL\n" +
+                            ")",
+
+                    "CREATE TABLE IF NOT EXISTS reserves (\n" +
+                            "  id_reserva INT PRIMARY KEY AUTO_INCREMENT,\n" +
+                            "  numero_habitacio INT NOT NULL,\n" +
+                            "  id_client INT NOT NULL,\n" +
+                            "  data_entrada DATE NOT NULL,\n" +
+                            "  data_sortida DATE NOT NULL,\n" +
+                            "  total_a_pagar DOUBLE NOT NULL,\n" +
+                            "  FOREIGN KEY (numero_habitacio) REFERENCES habitacions(numero_habitacio),\n" +
+                            "  FOREIGN KEY (id_client) REFERENCES clients(id_client)\n" +
+                            ")")),
+
+            // Comprovació de solapaments (hiHaSolapament i la cerca d'habitacions lliures):
+            // numero_habitacio = ? AND data_entrada < ? AND data_sortida > ?, resolta només amb l'índex.
+            // Substitueix l'índex implícit de la clau forana de numero_habitacio.
+            new Migracio(2, "Índex de reserves per habitació i dates", conn -> crearIndex(conn, "reserves",
+                    "idx_reserves_habitacio_dates", "numero_habitacio, data_entrada, data_sortida")),
+
+            // Reserves actives (data_sortida >= avui) i càrrega de l'índex en memòria, que només llegeix
+            // id_reserva, numero_habitacio, data_entrada i data_sortida: l'índex les cobreix totes
+            new Migracio(3, "Índex de reserves per data de sortida", conn -> crearIndex(conn, "reserves",
+                    "idx_reserves_sortida", "data_sortida, numero_habitacio, data_entrada")),
+
+            // Llistat paginat de reserves actives: ORDER BY data_entrada, id_reserva (l'ID ja és a l'índex
+            // perquè és la clau primària) filtrant data_sortida sense llegir la fila
+            new Migracio(4, "Índex de reserves per data d'entrada", conn -> crearIndex(conn, "reserves",
+                    "idx_reserves_entrada", "data_entrada, data_sortida")),
+
+            // Reserves d'un client ordenades per data d'entrada.
+            // Substitueix l'índex implícit de la clau forana d'id_client.
+            new Migracio(5, "Índex de reserves per client", conn -> crearIndex(conn, "reserves",
+                    "idx_reserves_client_entrada", "id_client, data_entrada")),
+
+            // Cerca d'habitacions lliures: disponible = TRUE, tipus opcional i rang de preu
+            new Migracio(6, "Índex d'habitacions per disponibilitat, tipus i preu", conn -> crearIndex(conn,
+                    "habitacions", "idx_habitacions_cerca", "disponible, tipus, preu_per_nit")),
+
+            // Resums de reserves (ResumReserva): els índexs de les migracions 4 i 5 s'amplien amb la resta de columnes
+            // del resum perquè els llistats no hagin de llegir la fila. Els nous comencen igual, així que els
+            // antics sobren; s'eliminen després de crear els nous perquè la clau forana d'id_client sempre en tingui un.
+            new Migracio(7, "Índexs de reserves que cobreixen els resums", conn -> {
+                crearIndex(conn, "reserves", "idx_reserves_resum_entrada",
+                        "data_entrada, data_sortida, numero_habitacio, id_client, total_a_pagar");
+                crearIndex(conn, "reserves", "idx_reserves_resum_client",
+                        "id_client, data_entrada, data_sortida, numero_habitacio, total_a_pagar");
+                eliminarIndex(conn, "reserves", "idx_reserves_entrada");
+                eliminarIndex(conn, "reserves", "idx_reserves_client_entrada");
+            }),
+
+            // Ocupació diària per tipus d'habitació, que mantenen les escriptures de reserves (OcupacioDiariaDAO).
+            // La clau primària comença per la data perquè els informes en llegeixen un rang de dies.
+            // S'omple amb les reserves existents en la mateixa transacció.
+            new Migracio(8, "Taula d'ocupació diària per tipus d'habitació", conn -> {
+                executar(conn, "CREATE TABLE IF NOT EXISTS ocupacio_diaria (\n" +
+                        "  data DATE NOT NULL,\n" +
+                        "  tipus VARCHAR(50) NOT NULL,\n" +
+                        "  nits_venudes INT NOT NULL DEFAULT 0,\n" +
+                        "  ingressos DOUBLE NOT NULL DEFAULT 0,\n" +
+                        "  PRIMARY KEY (data, tipus)\n" +
+                        ")");
+
+                conn.setAutoCommit(false);
+                try {
+                    OcupacioDiariaDAO.reconstruir(conn);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }),
+
+            // Abans cada reserva posava disponible = FALSE i només la cancel·lació el tornava a TRUE, de manera que les
+            // habitacions amb estades acabades es quedaven marcades. Ara disponible vol dir "en servei": es tornen a
+            // posar en servei les que tenen alguna reserva, que són les que una reserva pot haver marcat. Les que no en
+            // tenen cap només poden estar fora de servei perquè algú ho va indicar i es deixen com estan.
+            // Les dades no guarden qui va escriure el valor: una habitació reservada que algú havia tret de servei a mà
+            // també hi entra, i per això se n'escriuen els números.
+            new Migracio(9, "Habitacions marcades per reserves tornen a estar en servei",
+                    MigracionsEsquema::tornarAPosarEnServei),
+
+            // Els ingressos de l'ocupació diària se sumen i es resten a cada reserva i cancel·lació: amb DOUBLE
+            // s'anaven desviant. Passen a DECIMAL i la taula es torna a calcular en cèntims exactes.
+            new Migracio(10, "Ingressos de l'ocupació diària en DECIMAL", conn -> {
+                executar(conn, "ALTER TABLE ocupacio_diaria MODIFY ingressos DECIMAL(12,2) NOT NULL DEFAULT 0");
+
+                conn.setAutoCommit(false);
+                try {
+                    OcupacioDiariaDAO.reconstruir(conn);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            })
+    ));
+
+    private MigracionsEsquema() {
+    }
+
+    /**
+     * Aplica les migracions que falten, en ordre. Cada migració es registra a esquema_versio en acabar,
+     * de manera que si una falla, la següent vegada es torna a intentar des d'aquella.
+     * @return El nombre de migracions aplicades.
+     * @throws SQLException Si alguna migració ha fallat.
+     */
+    public static int migrar() throws SQLException {
+        int aplicades = 0;
+
+        try (Connection conn = ConnectionManager.getConnection()) {
+            bloquejar(conn);
+            try {
+                executar(conn, "CREATE TABLE IF NOT EXISTS esquema_versio (\n" +
+                        "  versio INT PRIMARY KEY,\n" +
+                        "  descripcio VARCHAR(200) NOT NULL,\n" +
+                        "  aplicada TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP\n" +
+                        ")");
+
+                int versioActual = obtenirVersio(conn);
+                for (Migracio migracio : MIGRACIONS) {
+                    if (migracio.versio <= versioActual) {
+                        continue;
+                    }
+
+                    migracio.pas.aplicar(conn);
+                    registrar(conn, migracio);
+                    aplicades++;
+                    System.out.println("Migració " + migracio.versio + " aplicada: " + migracio.descripcio);
+                }
+            } finally {
+                desbloquejar(conn);
+            }
+        }
+
+        return aplicades;
+    }
+
+    /**
+     * @return La versió més alta que coneix l'aplicació.
+     */
+    public static int getVersioMaxima() {
+        return MIGRACIONS.get(MIGRACIONS.size() - 1).versio;
+    }
+
+    /**
+     * @return Totes les migracions, en ordre de versió.
+     */
+    static List<Migracio> getMigracions() {
+        return MIGRACIONS;
+    }
+
+    private static int obtenirVersio(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(versio), 0) FROM esquema_versio")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void registrar(Connection conn, Migracio migracio) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO esquema_versio (versio, descripcio) VALUES (?, ?)")) {
+            stmt.setInt(1, migracio.versio);
+            stmt.setString(2, migracio.descripcio);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Torna a posar en servei les habitacions fora de servei que tenen alguna reserva i n'escriu els números, perquè
+     * es puguin tornar a treure de servei les que ho estaven per un altre motiu.
+     */
+    private static void tornarAPosarEnServei(Connection conn) throws SQLException {
+        List<Integer> numeros = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT h.numero_habitacio FROM habitacions h " +
+                     "WHERE h.disponible = FALSE " +
+                     "AND EXISTS (SELECT 1 FROM reserves r WHERE r.numero_habitacio = h.numero_habitacio) " +
+                     "ORDER BY h.numero_habitacio")) {
+            while (rs.next()) {
+                numeros.add(rs.getInt(1));
+            }
+        }
+        if (numeros.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE habitacions SET disponible = TRUE WHERE numero_habitacio = ?")) {
+            for (Integer numero : numeros) {
+                stmt.setInt(1, numero);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+
+        System.out.println("Habitacions tornades a posar en servei: " + numeros);
+        System.out.println("Si alguna d'aquestes habitacions estava fora de servei per un altre motiu, torneu-la a " +
+                "marcar com a no disponible.");
+    }
+
+    private static void executar(Connection conn, String... sentencies) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sentencia : sentencies) {
+                stmt.execute(sentencia);
+            }
+        }
+    }
+
+    /**
+     * Crea un índex en línia si encara no existeix (per exemple perquè una execució anterior
+     * l'havia creat però no havia arribat a registrar la migració).
+     */
+    private static void crearIndex(Connection conn, String taula, String nom, String columnes) throws SQLException {
+        if (existeixIndex(conn, taula, nom)) {
+            return;
+        }
+
+        executar(conn, "ALTER TABLE " + taula + " ADD INDEX " + nom + " (" + columnes + "), " +
+                "ALGORITHM=INPLACE, LOCK=NONE");
+    }
+
+    /**
+     * Elimina un índex en línia si encara existeix.
+     */
+    private static void eliminarIndex(Connection conn, String taula, String nom) throws SQLException {
+        if (!existeixIndex(conn, taula, nom)) {
+            return;
+        }
+
+        executar(conn, "ALTER TABLE " + taula + " DROP INDEX " + nom + ", ALGORITHM=INPLACE, LOCK=NONE");
+    }
+
+    private static boolean existeixIndex(Connection conn, String taula, String nom) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, taula);
+            stmt.setString(2, nom);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    private static void bloquejar(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, BLOQUEIG);
+            stmt.setInt(2, TEMPS_ESPERA_BLOQUEIG_S);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("No s'ha pogut obtenir el bloqueig de les migracions");
+                }
+            }
+        }
+    }
+
+    private static void desbloquejar(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, BLOQUEIG);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("Error en alliberar el bloqueig de les migracions: " + e.getMessage());
+        }
+    }
+}
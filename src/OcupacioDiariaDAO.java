@@ -0,0 +1,200 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * DAO de la taula ocupacio_diaria: nits venudes i ingressos de cada dia i tipus d'habitació.
+ * Els DAO que escriuen reserves hi sumen o resten les nits de cada estada dins de la seva mateixa transacció, de
+ * manera que els informes llegeixen una fila per dia i tipus en lloc de recórrer les reserves.
+ * Els ingressos d'una estada es reparteixen a parts iguals entre les seves nits, en cèntims: la darrera nit s'emporta
+ * el residu perquè la suma sigui exactament el total. La columna és DECIMAL, de manera que cancel·lar una reserva
+ * resta exactament el que s'havia sumat i la taula no acumula errors d'arrodoniment.
+ *
+ * Contenció: les reserves del mateix tipus que comparteixen alguna nit actualitzen la mateixa fila (data, tipus) i
+ * s'esperen l'una a l'altra fins que la primera confirma, encara que siguin d'habitacions diferents. Les reserves
+ * de tipus diferents o de nits diferents continuen sent independents. És el preu de tenir l'agregat sempre
+ * coherent amb les reserves dins de la mateixa transacció.
+ * Si la taula es desquadra (per exemple després d'inserir reserves directament a la base de dades), reconstruir()
+ * la torna a calcular a partir de les reserves.
+ */
+public class OcupacioDiariaDAO {
+
+    // Reserves amb el tipus de la seva habitació, per reconstruir la taula
+    private static final String SELECT_ESTADES_PER_TIPUS =
+            "SELECT h.tipus, r.data_entrada, r.data_sortida, r.total_a_pagar " +
+            "FROM reserves r JOIN habitacions h ON h.numero_habitacio = r.numero_habitacio";
+
+    /**
+     * Torna a calcular tota l'ocupació diària a partir de les reserves, en una sola transacció.
+     * Primer buida la taula, que queda bloquejada fins al final: les reserves que es fan mentrestant esperen i
+     * després hi sumen les seves nits, i les reserves que es llegeixen són les confirmades abans de buidar-la.
+     * @return El nombre de files (dia i tipus) de la taula reconstruïda, o -1 si hi ha hagut algun error.
+     */
+    public int reconstruir() {
+        try (Metriques.Mesura mesura = Metriques.iniciar("OcupacioDiariaDAO.reconstruir")) {
+            try (Connection conn = ConnectionManager.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    int files = reconstruir(conn);
+                    conn.commit();
+                    mesura.files(files);
+                    return files;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                System.err.println("Error en reconstruir l'ocupació diària: " + e.getMessage());
+                mesura.error();
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Buida la taula i la torna a omplir a partir de les reserves, sense confirmar.
+     * @param conn La connexió, amb una transacció oberta.
+     * @return El nombre de files inserides.
+     * @throws SQLException Si hi ha algun problema amb l'accés a les dades.
+     */
+    static int reconstruir(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = Consulta.OCUPACIO_DIARIA_BUIDAR.preparar(conn)) {
+            stmt.executeUpdate();
+        }
+
+        Increments increments = new Increments();
+        try (PreparedStatement stmt = StreamConsulta.preparar(conn, SELECT_ESTADES_PER_TIPUS);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                increments.afegirEstada(rs.getString("tipus"), rs.getDate("data_entrada").toLocalDate(),
+                        rs.getDate("data_sortida").toLocalDate(), rs.getDouble("total_a_pagar"));
+            }
+        }
+
+        int files = increments.perDiaITipus.size();
+        increments.aplicar(conn);
+        return files;
+    }
+
+    /**
+     * Canvis pendents a l'ocupació diària, agrupats per dia i tipus.
+     * S'apliquen amb un sol lot, en ordre de dia i tipus: dues transaccions que toquen les mateixes files les
+     * bloquegen en el mateix ordre i no es poden encallar l'una a l'altra.
+     */
+    static class Increments {
+        private final Map<Clau, Vendes> perDiaITipus = new TreeMap<>();
+
+        /**
+         * Suma les nits d'una estada [entrada, sortida) i la part del total de cadascuna.
+         */
+        void afegirEstada(String tipus, LocalDate entrada, LocalDate sortida, double total) {
+            sumar(tipus, entrada, sortida, total, 1);
+        }
+
+        /**
+         * Resta les nits d'una estada [entrada, sortida) i la part del total de cadascuna.
+         */
+        void treureEstada(String tipus, LocalDate entrada, LocalDate sortida, double total) {
+            sumar(tipus, entrada, sortida, total, -1);
+        }
+
+        private void sumar(String tipus, LocalDate entrada, LocalDate sortida, double total, int signe) {
+            long nits = sortida.toEpochDay() - entrada.toEpochDay();
+            if (nits <= 0) {
+                return;
+            }
+
+            BigDecimal totalCentims = BigDecimal.valueOf(total).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal perNit = totalCentims.divide(BigDecimal.valueOf(nits), 2, RoundingMode.DOWN);
+            BigDecimal darreraNit = totalCentims.subtract(perNit.multiply(BigDecimal.valueOf(nits - 1)));
+
+            for (LocalDate dia = entrada; dia.isBefore(sortida); dia = dia.plusDays(1)) {
+                BigDecimal ingres = dia.plusDays(1).equals(sortida) ? darreraNit : perNit;
+                Vendes vendes = perDiaITipus.computeIfAbsent(new Clau(dia, tipus), clau -> new Vendes());
+                vendes.nits += signe;
+                vendes.ingressos = signe > 0 ? vendes.ingressos.add(ingres) : vendes.ingressos.subtract(ingres);
+            }
+        }
+
+        boolean isBuit() {
+            return perDiaITipus.isEmpty();
+        }
+
+        /**
+         * @return Les nits pendents de sumar (o restar, si és negatiu) al dia i tipus indicats.
+         */
+        int getNits(LocalDate dia, String tipus) {
+            Vendes vendes = perDiaITipus.get(new Clau(dia, tipus));
+            return vendes != null ? vendes.nits : 0;
+        }
+
+        /**
+         * @return Els ingressos pendents de sumar (o restar, si és negatiu) al dia i tipus indicats.
+         */
+        BigDecimal getIngressos(LocalDate dia, String tipus) {
+            Vendes vendes = perDiaITipus.get(new Clau(dia, tipus));
+            return vendes != null ? vendes.ingressos : BigDecimal.ZERO;
+        }
+
+        /**
+         * Aplica els canvis a la taula, sense confirmar, i els descarta.
+         * @param conn La connexió, amb una transacció oberta.
+         * @throws SQLException Si hi ha algun problema amb l'accés a les dades.
+         */
+        void aplicar(Connection conn) throws SQLException {
+            if (perDiaITipus.isEmpty()) {
+                return;
+            }
+
+            try (PreparedStatement stmt = Consulta.OCUPACIO_DIARIA_SUMAR.preparar(conn)) {
+                for (Map.Entry<Clau, Vendes> entrada : perDiaITipus.entrySet()) {
+                    stmt.setDate(1, Date.valueOf(entrada.getKey().dia));
+                    stmt.setString(2, entrada.getKey().tipus);
+                    stmt.setInt(3, entrada.getValue().nits);
+                    stmt.setBigDecimal(4, entrada.getValue().ingressos);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            perDiaITipus.clear();
+        }
+    }
+
+    /**
+     * Clau d'una fila de l'ocupació diària. El tipus es compara sense distingir majúscules, com la clau primària.
+     */
+    private static class Clau implements Comparable<Clau> {
+        private final LocalDate dia;
+        private final String tipus;
+
+        Clau(LocalDate dia, String tipus) {
+            this.dia = dia;
+            this.tipus = tipus;
+        }
+
+        @Override
+        public int compareTo(Clau altra) {
+            int perDia = dia.compareTo(altra.dia);
+            return perDia != 0 ? perDia : String.CASE_INSENSITIVE_ORDER.compare(tipus, altra.tipus);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Clau && compareTo((Clau) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dia, tipus.toLowerCase());
+        }
+    }
+
+    private static class Vendes {
+        private int nits;
+        private BigDecimal ingressos = BigDecimal.ZERO;
+    }
+}
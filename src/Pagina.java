@@ -0,0 +1,56 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Pàgina d'una consulta paginada per clau (keyset): els elements de la pàgina i si n'hi ha més després.
+ * La pàgina següent es demana a partir del darrer element d'aquesta.
+ * @param <T> El tipus dels elements.
+ */
+public class Pagina<T> {
+
+    private final List<T> elements;
+    private final boolean hiHaMes;
+
+    /**
+     * Constructor amb tots els paràmetres.
+     * @param elements Els elements de la pàgina.
+     * @param hiHaMes Si hi ha més elements després del darrer d'aquesta pàgina.
+     */
+    public Pagina(List<T> elements, boolean hiHaMes) {
+        this.elements = Collections.unmodifiableList(elements);
+        this.hiHaMes = hiHaMes;
+    }
+
+    /**
+     * Crea una pàgina a partir d'una consulta que ha demanat una fila més que la mida de la pàgina.
+     * @param files Les files obtingudes (com a màxim mida + 1).
+     * @param mida La mida de la pàgina.
+     * @param <T> El tipus dels elements.
+     * @return La pàgina amb com a màxim mida elements.
+     */
+    static <T> Pagina<T> deFiles(List<T> files, int mida) {
+        if (files.size() > mida) {
+            return new Pagina<>(files.subList(0, mida), true);
+        }
+        return new Pagina<>(files, false);
+    }
+
+    public List<T> getElements() {
+        return elements;
+    }
+
+    public boolean isHiHaMes() {
+        return hiHaMes;
+    }
+
+    public boolean isBuida() {
+        return elements.isEmpty();
+    }
+
+    /**
+     * @return El darrer element de la pàgina, o null si és buida.
+     */
+    public T getUltim() {
+        return elements.isEmpty() ? null : elements.get(elements.size() - 1);
+    }
+}
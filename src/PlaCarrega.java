@@ -0,0 +1,18 @@
+/**
+ * Pla de càrrega d'una reserva: quines relacions es llegeixen amb la mateixa consulta.
+ * Les relacions que no es carreguen es llegeixen la primera vegada que es demanen (Reserva.getHabitacio() i
+ * Reserva.getClient()), normalment de la memòria cau; l'ID, les dates, el número d'habitació, l'ID del client i
+ * el total a pagar sempre hi són.
+ */
+public enum PlaCarrega {
+
+    /**
+     * Només la fila de la reserva, sense JOIN. Per a comprovacions d'existència o quan només calen les dates.
+     */
+    RESERVA,
+
+    /**
+     * La reserva amb la seva habitació i el seu client, en una sola consulta.
+     */
+    COMPLETA
+}
@@ -4,6 +4,9 @@ import java.time.temporal.ChronoUnit;
 
 /**
  * JavaBean que representa una reserva de l'hotel.
+ * Si el DAO l'ha carregada amb PlaCarrega.RESERVA, l'habitació i el client es carreguen la primera vegada que es
+ * demanen, amb el CarregadorRelacions que li ha passat el DAO; el número d'habitació i l'ID del client sempre es
+ * poden consultar sense carregar-los.
  */
 public class Reserva implements Serializable {
 
@@ -12,10 +15,24 @@ public class Reserva implements Serializable {
     private int idReserva;
     private Habitacio habitacio;
     private Client client;
+    private int numeroHabitacio;
+    private int idClient;
     private LocalDate dataEntrada;
     private LocalDate dataSortida;
     private double totalAPagar;
 
+    // Qui carrega l'habitació i el client si no hi són; no es serialitza
+    private transient CarregadorRelacions carregador;
+
+    /**
+     * Carrega les relacions d'una reserva que el DAO no ha llegit amb la mateixa consulta.
+     */
+    interface CarregadorRelacions {
+        Habitacio carregarHabitacio(int numeroHabitacio);
+
+        Client carregarClient(int idClient);
+    }
+
     /**
      * Constructor per defecte (requerit per JavaBean)
      */
@@ -29,15 +46,52 @@ public class Reserva implements Serializable {
         this.idReserva = idReserva;
         this.habitacio = habitacio;
         this.client = client;
+        this.numeroHabitacio = habitacio != null ? habitacio.getNumeroHabitacio() : 0;
+        this.idClient = client != null ? client.getIdClient() : 0;
         this.dataEntrada = dataEntrada;
         this.dataSortida = dataSortida;
         calcularTotalAPagar();
     }
 
     /**
-     * Calcula el total a pagar en funció dels dies d'estada i el preu per nit de l'habitació
+     * Constructor per al DAO quan es carrega la reserva amb l'habitació i el client: el total a pagar és el guardat,
+     * no es torna a calcular amb el preu actual de l'habitació.
+     */
+    Reserva(int idReserva, Habitacio habitacio, Client client, LocalDate dataEntrada, LocalDate dataSortida,
+            double totalAPagar) {
+        this(idReserva, habitacio.getNumeroHabitacio(), client.getIdClient(), dataEntrada, dataSortida, totalAPagar);
+        this.habitacio = habitacio;
+        this.client = client;
+    }
+
+    /**
+     * Constructor per al DAO quan es carrega només la fila de la reserva: l'habitació i el client es carreguen
+     * amb el carregador en demanar-los i el total a pagar és el guardat.
+     */
+    Reserva(int idReserva, int numeroHabitacio, int idClient, LocalDate dataEntrada, LocalDate dataSortida,
+            double totalAPagar, CarregadorRelacions carregador) {
+        this(idReserva, numeroHabitacio, idClient, dataEntrada, dataSortida, totalAPagar);
+        this.carregador = carregador;
+    }
+
+    private Reserva(int idReserva, int numeroHabitacio, int idClient, LocalDate dataEntrada, LocalDate dataSortida,
+                    double totalAPagar) {
+        this.idReserva = idReserva;
+        this.numeroHabitacio = numeroHabitacio;
+        this.idClient = idClient;
+        this.dataEntrada = dataEntrada;
+        this.dataSortida = dataSortida;
+        this.totalAPagar = totalAPagar;
+    }
+
+    /**
+     * Calcula el total a pagar en funció dels dies d'estada i el preu per nit de l'habitació.
+     * Si l'habitació encara no s'ha carregat, es manté el total guardat: no es carrega des d'aquí.
      */
     private void calcularTotalAPagar() {
+        if (habitacio == null && numeroHabitacio != 0) {
+            return;
+        }
         if (dataEntrada != null && dataSortida != null && habitacio != null) {
             long dies = ChronoUnit.DAYS.between(dataEntrada, dataSortida);
             this.totalAPagar = dies * habitacio.getPreuPerNit();
@@ -56,21 +110,58 @@ public class Reserva implements Serializable {
         this.idReserva = idReserva;
     }
 
+    /**
+     * Obté l'habitació, carregant-la la primera vegada si la reserva s'ha carregat sense.
+     * @return L'habitació, o null si no n'hi ha cap.
+     */
     public Habitacio getHabitacio() {
+        if (habitacio == null && numeroHabitacio != 0 && carregador != null) {
+            habitacio = carregador.carregarHabitacio(numeroHabitacio);
+        }
         return habitacio;
     }
 
     public void setHabitacio(Habitacio habitacio) {
         this.habitacio = habitacio;
+        this.numeroHabitacio = habitacio != null ? habitacio.getNumeroHabitacio() : 0;
         calcularTotalAPagar(); // Recalcular si es canvia l'habitació
     }
 
+    /**
+     * Obté el client, carregant-lo la primera vegada si la reserva s'ha carregat sense.
+     * @return El client, o null si no n'hi ha cap.
+     */
     public Client getClient() {
+        if (client == null && idClient != 0 && carregador != null) {
+            client = carregador.carregarClient(idClient);
+        }
         return client;
     }
 
     public void setClient(Client client) {
         this.client = client;
+        this.idClient = client != null ? client.getIdClient() : 0;
+    }
+
+    /**
+     * @return El número de l'habitació, sense haver de carregar-la.
+     */
+    public int getNumeroHabitacio() {
+        return numeroHabitacio;
+    }
+
+    /**
+     * @return L'ID del client, sense haver de carregar-lo.
+     */
+    public int getIdClient() {
+        return idClient;
+    }
+
+    /**
+     * @return true si l'habitació i el client ja s'han carregat.
+     */
+    public boolean isRelacionsCarregades() {
+        return (habitacio != null || numeroHabitacio == 0) && (client != null || idClient == 0);
     }
 
     public LocalDate getDataEntrada() {
@@ -102,11 +193,16 @@ public class Reserva implements Serializable {
 
     @Override
     public String toString() {
-        String habitacioInfo = (habitacio != null) ?
-                String.valueOf(habitacio.getNumeroHabitacio()) : "No disponible";
+        String habitacioInfo = (numeroHabitacio != 0) ?
+                String.valueOf(numeroHabitacio) : "No disponible";
 
-        String clientInfo = (client != null) ?
-                client.getNom() + " " + client.getCognoms() : "No disponible";
+        // Només es mostra el que ja hi és: imprimir una reserva no ha de consultar la base de dades
+        String clientInfo;
+        if (client != null) {
+            clientInfo = client.getNom() + " " + client.getCognoms();
+        } else {
+            clientInfo = (idClient != 0) ? "ID " + idClient : "No disponible";
+        }
 
         return "Reserva [ID: " + idReserva +
                 ", Habitació: " + habitacioInfo +
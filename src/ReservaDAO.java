@@ -1,128 +1,242 @@
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * DAO per gestionar les operacions CRUD de reserves a la base de dades.
  */
 public class ReservaDAO {
 
-    private HabitacioDAO habitacioDAO;
-    private ClientDAO clientDAO;
+    // Reserva amb la seva habitació i el seu client en una sola consulta
+    static final String SELECT_RESERVA_COMPLETA =
+            "SELECT r.id_reserva, r.numero_habitacio, r.id_client, r.data_entrada, r.data_sortida, r.total_a_pagar, " +
+            "h.tipus, h.preu_per_nit, h.disponible, " +
+            "c.nom, c.cognoms, c.data_naixement, c.email, c.telefon " +
+            "FROM reserves r " +
+            "JOIN habitacions h ON h.numero_habitacio = r.numero_habitacio " +
+            "JOIN clients c ON c.id_client = r.id_client";
+
+    // Resum d'una reserva per als llistats: les columnes de reserves les cobreixen els índexs
+    // idx_reserves_resum_entrada i idx_reserves_resum_client, i del client només es llegeix el nom
+    static final String SELECT_RESUM =
+            "SELECT r.id_reserva, r.numero_habitacio, r.id_client, r.data_entrada, r.data_sortida, r.total_a_pagar, " +
+            "c.nom, c.cognoms " +
+            "FROM reserves r " +
+            "JOIN clients c ON c.id_client = r.id_client";
+
+    // Carrega les relacions de les reserves llegides amb PlaCarrega.RESERVA, passant per les memòries cau
+    private static final Reserva.CarregadorRelacions CARREGADOR_RELACIONS = new Reserva.CarregadorRelacions() {
+        @Override
+        public Habitacio carregarHabitacio(int numeroHabitacio) {
+            return new HabitacioDAO().obtenirHabitacio(numeroHabitacio);
+        }
+
+        @Override
+        public Client carregarClient(int idClient) {
+            return new ClientDAO().obtenirClient(idClient);
+        }
+    };
 
     /**
-     * Constructor que inicialitza els DAO necessaris.
+     * Obté les estadístiques d'espera dels bloquejos per habitació que fa servir afegirReserva.
+     * @return Les estadístiques dels bloquejos.
      */
-    public ReservaDAO() {
-        this.habitacioDAO = new HabitacioDAO();
-        this.clientDAO = new ClientDAO();
+    public static BloquejosHabitacions.Estadistiques obtenirEstadistiquesBloquejos() {
+        return BloquejosHabitacions.getInstancia().getEstadistiques();
     }
 
     /**
      * Afegeix una nova reserva a la base de dades.
+     * Les reserves d'una mateixa habitació s'executen una darrere l'altra: primer amb un bloqueig en memòria
+     * per habitació i després, dins la transacció, bloquejant la fila de l'habitació amb SELECT ... FOR UPDATE.
+     * Així la comprovació de disponibilitat i la inserció són atòmiques encara que hi hagi reserves simultànies.
+     * Les nits de la reserva se sumen a l'ocupació diària dins de la mateixa transacció.
+     * Si el fil té una UnitatTreball oberta, la transacció és la de la unitat i la fila queda bloquejada fins que es
+     * confirma; si la reserva falla, la unitat es desfà.
      * @param reserva La reserva a afegir.
      * @return l'ID de la reserva afegida o -1 si hi ha hagut algun error.
      */
     public int afegirReserva(Reserva reserva) {
-        String sql = "INSERT INTO reserves (numero_habitacio, id_client, data_entrada, data_sortida, total_a_pagar) VALUES (?, ?, ?, ?, ?)";
-
-        try (Connection conn = ConnectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            stmt.setInt(1, reserva.getHabitacio().getNumeroHabitacio());
-            stmt.setInt(2, reserva.getClient().getIdClient());
-            stmt.setDate(3, Date.valueOf(reserva.getDataEntrada()));
-            stmt.setDate(4, Date.valueOf(reserva.getDataSortida()));
-            stmt.setDouble(5, reserva.getTotalAPagar());
-
-            int files = stmt.executeUpdate();
-
-            if (files > 0) {
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        int idReserva = generatedKeys.getInt(1);
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaDAO.afegirReserva")) {
+            int numeroHabitacio = reserva.getNumeroHabitacio();
+            int idReserva = -1;
+
+            // El bloqueig en memòria s'allibera al final, després de confirmar i tornar la connexió
+            BloquejosHabitacions.Bloqueig bloqueig = BloquejosHabitacions.getInstancia().bloquejar(numeroHabitacio);
+            try (Connection conn = ConnectionManager.getConnection()) {
+                conn.setAutoCommit(false);
+
+                // Bloquejar la fila de l'habitació serialitza les reserves també entre processos diferents
+                String tipus = bloquejarHabitacio(conn, numeroHabitacio);
+                if (tipus == null) {
+                    conn.rollback();
+                    System.err.println("Error en afegir la reserva: no existeix l'habitació " + numeroHabitacio);
+                    mesura.error();
+                    return -1;
+                }
 
-                        // Actualitzar la disponibilitat de l'habitació
-                        Habitacio habitacio = reserva.getHabitacio();
-                        habitacio.setDisponible(false);
-                        habitacioDAO.actualitzarHabitacio(habitacio);
+                if (hiHaSolapament(conn, numeroHabitacio, reserva.getDataEntrada(), reserva.getDataSortida(), true)) {
+                    conn.rollback();
+                    System.err.println("Error en afegir la reserva: l'habitació " + numeroHabitacio + " ja està reservada per al període");
+                    mesura.error();
+                    return -1;
+                }
 
-                        return idReserva;
+                try (PreparedStatement stmt = Consulta.RESERVA_INSERIR.preparar(conn)) {
+                    stmt.setInt(1, numeroHabitacio);
+                    stmt.setInt(2, reserva.getIdClient());
+                    stmt.setDate(3, Date.valueOf(reserva.getDataEntrada()));
+                    stmt.setDate(4, Date.valueOf(reserva.getDataSortida()));
+                    stmt.setDouble(5, reserva.getTotalAPagar());
+
+                    int files = stmt.executeUpdate();
+
+                    if (files > 0) {
+                        try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                            if (generatedKeys.next()) {
+                                idReserva = generatedKeys.getInt(1);
+                            }
+                        }
                     }
                 }
+
+                if (idReserva < 0) {
+                    conn.rollback();
+                    return -1;
+                }
+
+                OcupacioDiariaDAO.Increments increments = new OcupacioDiariaDAO.Increments();
+                increments.afegirEstada(tipus, reserva.getDataEntrada(), reserva.getDataSortida(),
+                        reserva.getTotalAPagar());
+                increments.aplicar(conn);
+                conn.commit();
+
+            } catch (SQLException e) {
+                System.err.println("Error en afegir la reserva: " + e.getMessage());
+                mesura.error();
+                return -1;
+            } finally {
+                bloqueig.close();
             }
 
-        } catch (SQLException e) {
-            System.err.println("Error en afegir la reserva: " + e.getMessage());
-        }
+            // La disponibilitat de l'habitació es dedueix de les reserves: no cal tocar la taula habitacions.
+            // Dins d'una unitat de treball, l'índex s'actualitza quan es confirma
+            int id = idReserva;
+            UnitatTreball.executarDespresDeConfirmar(() -> IndexReserves.getInstancia().afegir(numeroHabitacio, id,
+                    reserva.getDataEntrada(), reserva.getDataSortida()));
 
-        return -1;
+            return idReserva;
+        }
     }
 
     /**
-     * Cancel·la una reserva (elimina la reserva i marca l'habitació com a disponible).
+     * Cancel·la una reserva (elimina la reserva i allibera les seves nits a l'índex de reserves).
+     * Les nits de la reserva es resten de l'ocupació diària dins de la mateixa transacció, amb la fila de
+     * l'habitació bloquejada perquè el tipus no canviï entremig.
      * @param idReserva L'ID de la reserva a cancel·lar.
      * @return true si s'ha cancel·lat correctament, false en cas contrari.
      */
     public boolean cancelarReserva(int idReserva) {
-        // Primer, obtenim la reserva per actualitzar la disponibilitat de l'habitació
-        Reserva reserva = obtenirReserva(idReserva);
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaDAO.cancelarReserva")) {
+            // Primer, obtenim la reserva per saber quines nits s'alliberen (n'hi ha prou amb la fila de la reserva)
+            Reserva reserva = obtenirReserva(idReserva, PlaCarrega.RESERVA);
 
-        if (reserva == null) {
-            return false;
-        }
+            if (reserva == null) {
+                return false;
+            }
 
-        // Eliminar la reserva
-        String sql = "DELETE FROM reserves WHERE id_reserva = ?";
+            // Eliminar la reserva
 
-        try (Connection conn = ConnectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (Connection conn = ConnectionManager.getConnection()) {
+                conn.setAutoCommit(false);
 
-            stmt.setInt(1, idReserva);
+                String tipus = bloquejarHabitacio(conn, reserva.getNumeroHabitacio());
+                int files;
+                try (PreparedStatement stmt = Consulta.RESERVA_ELIMINAR.preparar(conn)) {
+                    stmt.setInt(1, idReserva);
+                    files = stmt.executeUpdate();
+                }
 
-            int files = stmt.executeUpdate();
+                if (files == 0 || tipus == null) {
+                    conn.rollback();
+                    return false;
+                }
 
-            if (files > 0) {
-                // Actualitzar la disponibilitat de l'habitació
-                Habitacio habitacio = reserva.getHabitacio();
-                habitacio.setDisponible(true);
-                habitacioDAO.actualitzarHabitacio(habitacio);
+                OcupacioDiariaDAO.Increments increments = new OcupacioDiariaDAO.Increments();
+                increments.treureEstada(tipus, reserva.getDataEntrada(), reserva.getDataSortida(),
+                        reserva.getTotalAPagar());
+                increments.aplicar(conn);
+                conn.commit();
 
+                UnitatTreball.oblidar(Reserva.class, idReserva);
+                UnitatTreball.executarDespresDeConfirmar(() -> IndexReserves.getInstancia().eliminar(
+                        reserva.getNumeroHabitacio(), idReserva,
+                        reserva.getDataEntrada(), reserva.getDataSortida()));
                 return true;
+
+            } catch (SQLException e) {
+                System.err.println("Error en cancel·lar la reserva: " + e.getMessage());
+                mesura.error();
             }
 
-        } catch (SQLException e) {
-            System.err.println("Error en cancel·lar la reserva: " + e.getMessage());
+            return false;
         }
+    }
 
-        return false;
+    /**
+     * Obté una reserva pel seu ID, amb la seva habitació i el seu client.
+     * @param idReserva L'ID de la reserva a obtenir.
+     * @return La reserva o null si no s'ha trobat.
+     */
+    public Reserva obtenirReserva(int idReserva) {
+        return obtenirReserva(idReserva, PlaCarrega.COMPLETA);
     }
 
     /**
      * Obté una reserva pel seu ID.
      * @param idReserva L'ID de la reserva a obtenir.
+     * @param pla Les relacions que es carreguen amb la reserva; la resta es carreguen en demanar-les.
      * @return La reserva o null si no s'ha trobat.
      */
-    public Reserva obtenirReserva(int idReserva) {
-        String sql = "SELECT * FROM reserves WHERE id_reserva = ?";
+    public Reserva obtenirReserva(int idReserva, PlaCarrega pla) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaDAO.obtenirReserva")) {
+            // Dins d'una unitat de treball, la mateixa instància que ja s'hi hagi carregat
+            Reserva carregada = UnitatTreball.buscar(Reserva.class, idReserva);
+            if (carregada != null) {
+                if (pla == PlaCarrega.COMPLETA) {
+                    carregada.getHabitacio();
+                    carregada.getClient();
+                }
+                return mesura.objecte(carregada);
+            }
 
-        try (Connection conn = ConnectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            Consulta consulta = pla == PlaCarrega.COMPLETA
+                    ? Consulta.RESERVA_PER_ID : Consulta.RESERVA_PER_ID_SENSE_RELACIONS;
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = consulta.preparar(conn)) {
 
-            stmt.setInt(1, idReserva);
+                stmt.setInt(1, idReserva);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToReserva(rs);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        Reserva reserva = pla == PlaCarrega.COMPLETA
+                                ? mapResultSetToReserva(rs, new HashMap<>(), new HashMap<>())
+                                : mapResultSetToReservaSenseRelacions(rs);
+                        return mesura.objecte(reserva);
+                    }
                 }
+
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir la reserva: " + e.getMessage());
+                mesura.error();
             }
 
-        } catch (SQLException e) {
-            System.err.println("Error en obtenir la reserva: " + e.getMessage());
+            return null;
         }
-
-        return null;
     }
 
     /**
@@ -130,74 +244,72 @@ public class ReservaDAO {
      * @return Una llista amb totes les reserves actives.
      */
     public List<Reserva> obtenirReservesActives() {
-        System.out.println("Iniciando obtenirReservesActives()");
-        List<Reserva> reserves = new ArrayList<>();
-        String sql = "SELECT * FROM reserves WHERE data_sortida >= CURRENT_DATE() ORDER BY data_entrada";
-
-        // Listas para almacenar IDs temporalmente
-        List<Integer> reservaIds = new ArrayList<>();
-        List<Integer> habitacioIds = new ArrayList<>();
-        List<Integer> clientIds = new ArrayList<>();
-
-        try (Connection conn = ConnectionManager.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            System.out.println("Consulta ejecutada correctamente");
-
-            while (rs.next()) {
-                int idReserva = rs.getInt("id_reserva");
-                int numeroHabitacio = rs.getInt("numero_habitacio");
-                int idClient = rs.getInt("id_client");
-                LocalDate dataEntrada = rs.getDate("data_entrada").toLocalDate();
-                LocalDate dataSortida = rs.getDate("data_sortida").toLocalDate();
-
-                // Guardar IDs para uso posterior
-                reservaIds.add(idReserva);
-                habitacioIds.add(numeroHabitacio);
-                clientIds.add(idClient);
-
-                // Crear la reserva con datos básicos
-                Reserva reserva = new Reserva();
-                reserva.setIdReserva(idReserva);
-                reserva.setDataEntrada(dataEntrada);
-                reserva.setDataSortida(dataSortida);
-
-                reserves.add(reserva);
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaDAO.obtenirReservesActives")) {
+            List<Reserva> reserves = new ArrayList<>();
+
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.RESERVES_ACTIVES.preparar(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+
+                // Una sola instància per habitació i per client, encara que apareguin a diverses reserves
+                Map<Integer, Habitacio> habitacions = new HashMap<>();
+                Map<Integer, Client> clients = new HashMap<>();
+
+                while (rs.next()) {
+                    reserves.add(mapResultSetToReserva(rs, habitacions, clients));
+                }
+
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir les reserves actives: " + e.getMessage());
+                mesura.error();
             }
-        } catch (SQLException e) {
-            System.err.println("Error al consultar reservas: " + e.getMessage());
-            e.printStackTrace();
-            return reserves; // Retornar lista vacía en caso de error
+
+            return mesura.llista(reserves);
         }
+    }
 
-        // Ahora que el ResultSet está cerrado, completar las reservas con habitaciones y clientes
-        for (int i = 0; i < reserves.size(); i++) {
-            Reserva reserva = reserves.get(i);
-
-            // Obtener y establecer la habitación
-            try {
-                int numeroHabitacio = habitacioIds.get(i);
-                Habitacio habitacio = habitacioDAO.obtenirHabitacio(numeroHabitacio);
-                reserva.setHabitacio(habitacio);
-                System.out.println("Habitación obtenida correctamente: " + numeroHabitacio);
-            } catch (Exception e) {
-                System.err.println("Error al obtener la habitación: " + e.getMessage());
-            }
+    /**
+     * Obté una pàgina de reserves actives ordenades per data d'entrada i ID, a partir de la darrera reserva
+     * de la pàgina anterior. L'ID desempata les reserves que comencen el mateix dia.
+     * @param anterior La darrera reserva de la pàgina anterior, o null per a la primera pàgina.
+     * @param mida El nombre màxim de reserves de la pàgina.
+     * @return La pàgina de reserves, buida si hi ha hagut algun error.
+     */
+    public Pagina<Reserva> obtenirReservesActivesPagina(Reserva anterior, int mida) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaDAO.obtenirReservesActivesPagina")) {
+            Consulta consulta = anterior == null
+                    ? Consulta.RESERVES_ACTIVES_PRIMERA_PAGINA : Consulta.RESERVES_ACTIVES_PAGINA;
+            List<Reserva> reserves = new ArrayList<>();
+
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = consulta.preparar(conn)) {
+
+                int parametre = 1;
+                if (anterior != null) {
+                    Date dataEntrada = Date.valueOf(anterior.getDataEntrada());
+                    stmt.setDate(parametre++, dataEntrada);
+                    stmt.setDate(parametre++, dataEntrada);
+                    stmt.setInt(parametre++, anterior.getIdReserva());
+                }
+                // Demanem una fila de més per saber si hi ha una pàgina següent
+                stmt.setInt(parametre, mida + 1);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    Map<Integer, Habitacio> habitacions = new HashMap<>();
+                    Map<Integer, Client> clients = new HashMap<>();
 
-            // Obtener y establecer el cliente
-            try {
-                int idClient = clientIds.get(i);
-                Client client = clientDAO.obtenirClient(idClient);
-                reserva.setClient(client);
-                System.out.println("Cliente obtenido correctamente: " + idClient);
-            } catch (Exception e) {
-                System.err.println("Error al obtener el cliente: " + e.getMessage());
+                    while (rs.next()) {
+                        reserves.add(mapResultSetToReserva(rs, habitacions, clients));
+                    }
+                }
+
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir la pàgina de reserves actives: " + e.getMessage());
+                mesura.error();
             }
-        }
 
-        System.out.println("Finalizando obtenirReservesActives() con " + reserves.size() + " reservas");
-        return reserves;
+            return mesura.pagina(Pagina.deFiles(reserves, mida));
+        }
     }
 
     /**
@@ -206,133 +318,324 @@ public class ReservaDAO {
      * @return Una llista amb totes les reserves del client.
      */
     public List<Reserva> obtenirReservesClient(int idClient) {
-        System.out.println("Iniciando obtenirReservesClient() para cliente ID: " + idClient);
-        List<Reserva> reserves = new ArrayList<>();
-        String sql = "SELECT * FROM reserves WHERE id_client = ? ORDER BY data_entrada";
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaDAO.obtenirReservesClient")) {
+            List<Reserva> reserves = new ArrayList<>();
 
-        // Lista para almacenar IDs de habitaciones temporalmente
-        List<Integer> habitacioIds = new ArrayList<>();
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.RESERVES_CLIENT.preparar(conn)) {
 
-        try (Connection conn = ConnectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, idClient);
 
-            stmt.setInt(1, idClient);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    // El client és el mateix per a totes les reserves; les habitacions es comparteixen
+                    Map<Integer, Habitacio> habitacions = new HashMap<>();
+                    Map<Integer, Client> clients = new HashMap<>();
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                System.out.println("Consulta ejecutada correctamente");
+                    while (rs.next()) {
+                        reserves.add(mapResultSetToReserva(rs, habitacions, clients));
+                    }
+                }
 
-                while (rs.next()) {
-                    int idReserva = rs.getInt("id_reserva");
-                    int numeroHabitacio = rs.getInt("numero_habitacio");
-                    LocalDate dataEntrada = rs.getDate("data_entrada").toLocalDate();
-                    LocalDate dataSortida = rs.getDate("data_sortida").toLocalDate();
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir les reserves del client: " + e.getMessage());
+                mesura.error();
+            }
 
-                    // Guardar ID de habitación para uso posterior
-                    habitacioIds.add(numeroHabitacio);
+            return mesura.llista(reserves);
+        }
+    }
 
-                    // Crear la reserva con datos básicos
-                    Reserva reserva = new Reserva();
-                    reserva.setIdReserva(idReserva);
-                    reserva.setDataEntrada(dataEntrada);
-                    reserva.setDataSortida(dataSortida);
+    /**
+     * Obté totes les reserves, amb la seva habitació i el seu client, com un Stream que es llegeix
+     * a mesura que es consumeix. Les habitacions es comparteixen entre reserves; els clients no,
+     * perquè la memòria no creixi amb el nombre de clients diferents. Tampoc no es registra res a la unitat de
+     * treball oberta, per la mateixa raó (vegeu mapResultSetToReservaStream).
+     * El Stream manté una connexió oberta i s'ha de tancar (per exemple amb try-with-resources).
+     * @return Un Stream amb totes les reserves, buit si hi ha hagut algun error.
+     */
+    public Stream<Reserva> streamTotesLesReserves() {
+        String sql = SELECT_RESERVA_COMPLETA + " ORDER BY r.id_reserva";
+        Map<Integer, Habitacio> habitacions = new HashMap<>();
+        // La mesura dura fins que es tanca el Stream i compta les files que s'han llegit
+        Metriques.Mesura mesura = Metriques.iniciar("ReservaDAO.streamTotesLesReserves");
 
-                    reserves.add(reserva);
-                }
-            }
+        try {
+            return StreamConsulta.executar(sql, rs -> {
+                mesura.files(1);
+                return mapResultSetToReservaStream(rs, habitacions);
+            }).onClose(mesura::close);
         } catch (SQLException e) {
-            System.err.println("Error al consultar reservas del cliente: " + e.getMessage());
-            e.printStackTrace();
-            return reserves; // Retornar lista vacía en caso de error
+            System.err.println("Error en obtenir totes les reserves: " + e.getMessage());
+            mesura.error();
+            mesura.close();
+            return Stream.empty();
         }
+    }
 
-        // Obtener el cliente una sola vez (es el mismo para todas las reservas)
-        Client client = null;
-        try {
-            client = clientDAO.obtenirClient(idClient);
-            System.out.println("Cliente obtenido correctamente: " + client.getIdClient());
-        } catch (Exception e) {
-            System.err.println("Error al obtener el cliente: " + e.getMessage());
+    /**
+     * Obté una pàgina de resums de reserves actives, amb el mateix ordre que obtenirReservesActivesPagina.
+     * @param anterior El darrer resum de la pàgina anterior, o null per a la primera pàgina.
+     * @param mida El nombre màxim de resums de la pàgina.
+     * @return La pàgina de resums, buida si hi ha hagut algun error.
+     */
+    public Pagina<ResumReserva> obtenirResumsActiusPagina(ResumReserva anterior, int mida) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaDAO.obtenirResumsActiusPagina")) {
+            Consulta consulta = anterior == null
+                    ? Consulta.RESUMS_ACTIUS_PRIMERA_PAGINA : Consulta.RESUMS_ACTIUS_PAGINA;
+            List<ResumReserva> resums = new ArrayList<>();
+
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = consulta.preparar(conn)) {
+
+                int parametre = 1;
+                if (anterior != null) {
+                    Date dataEntrada = Date.valueOf(anterior.getDataEntrada());
+                    stmt.setDate(parametre++, dataEntrada);
+                    stmt.setDate(parametre++, dataEntrada);
+                    stmt.setInt(parametre++, anterior.getIdReserva());
+                }
+                // Demanem una fila de més per saber si hi ha una pàgina següent
+                stmt.setInt(parametre, mida + 1);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        resums.add(mapResultSetToResum(rs));
+                    }
+                }
+
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir la pàgina de resums de reserves actives: " + e.getMessage());
+                mesura.error();
+            }
+
+            return mesura.pagina(Pagina.deFiles(resums, mida));
         }
+    }
+
+    /**
+     * Obté els resums de totes les reserves d'un client, ordenats per data d'entrada.
+     * @param idClient L'ID del client.
+     * @return Una llista amb els resums de les reserves del client.
+     */
+    public List<ResumReserva> obtenirResumsClient(int idClient) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaDAO.obtenirResumsClient")) {
+            List<ResumReserva> resums = new ArrayList<>();
+
+            try (Connection conn = ConnectionManager.getConnection();
+                 PreparedStatement stmt = Consulta.RESUMS_CLIENT.preparar(conn)) {
 
-        // Completar las reservas con el cliente y las habitaciones
-        for (int i = 0; i < reserves.size(); i++) {
-            Reserva reserva = reserves.get(i);
-
-            // Asignar el cliente
-            reserva.setClient(client);
-
-            // Obtener y establecer la habitación
-            try {
-                int numeroHabitacio = habitacioIds.get(i);
-                Habitacio habitacio = habitacioDAO.obtenirHabitacio(numeroHabitacio);
-                reserva.setHabitacio(habitacio);
-                System.out.println("Habitación obtenida correctamente: " + numeroHabitacio);
-            } catch (Exception e) {
-                System.err.println("Error al obtener la habitación: " + e.getMessage());
+                stmt.setInt(1, idClient);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        resums.add(mapResultSetToResum(rs));
+                    }
+                }
+
+            } catch (SQLException e) {
+                System.err.println("Error en obtenir els resums de reserves del client: " + e.getMessage());
+                mesura.error();
             }
+
+            return mesura.llista(resums);
         }
+    }
+
+    /**
+     * Obté els resums de totes les reserves com un Stream que es llegeix a mesura que es consumeix
+     * (per exemple per exportar-les). El Stream manté una connexió oberta i s'ha de tancar.
+     * @return Un Stream amb els resums de totes les reserves, buit si hi ha hagut algun error.
+     */
+    public Stream<ResumReserva> streamTotsElsResums() {
+        String sql = SELECT_RESUM + " ORDER BY r.id_reserva";
+        // La mesura dura fins que es tanca el Stream i compta les files que s'han llegit
+        Metriques.Mesura mesura = Metriques.iniciar("ReservaDAO.streamTotsElsResums");
 
-        System.out.println("Finalizando obtenirReservesClient() con " + reserves.size() + " reservas");
-        return reserves;
+        try {
+            return StreamConsulta.executar(sql, rs -> {
+                mesura.files(1);
+                return mapResultSetToResum(rs);
+            }).onClose(mesura::close);
+        } catch (SQLException e) {
+            System.err.println("Error en obtenir els resums de reserves: " + e.getMessage());
+            mesura.error();
+            mesura.close();
+            return Stream.empty();
+        }
     }
 
     /**
      * Verifica si una habitació està disponible per reservar en un període de dates.
+     * El període inclou la data d'entrada però no la de sortida.
+     * Respon amb l'índex en memòria (IndexReserves) sempre que pot i només consulta la base de dades si no.
      * @param numeroHabitacio El número de l'habitació.
      * @param dataEntrada La data d'entrada.
      * @param dataSortida La data de sortida.
      * @return true si l'habitació està disponible, false en cas contrari.
      */
     public boolean esHabitacioDisponiblePerPeriode(int numeroHabitacio, LocalDate dataEntrada, LocalDate dataSortida) {
-        String sql = "SELECT COUNT(*) FROM reserves WHERE numero_habitacio = ? AND " +
-                "((data_entrada BETWEEN ? AND ?) OR " +
-                "(data_sortida BETWEEN ? AND ?) OR " +
-                "(data_entrada <= ? AND data_sortida >= ?))";
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaDAO.esHabitacioDisponiblePerPeriode")) {
+            IndexReserves index = IndexReserves.getInstancia();
+            if (index.potRespondre(dataEntrada)) {
+                return index.estaDisponible(numeroHabitacio, dataEntrada, dataSortida);
+            }
+
+            try (Connection conn = ConnectionManager.getConnection()) {
+                return !hiHaSolapament(conn, numeroHabitacio, dataEntrada, dataSortida, false);
+            } catch (SQLException e) {
+                System.err.println("Error en comprovar la disponibilitat de l'habitació: " + e.getMessage());
+                mesura.error();
+            }
 
-        try (Connection conn = ConnectionManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            return false;
+        }
+    }
+
+    /**
+     * Comprova a la base de dades si alguna reserva de l'habitació es solapa amb el període [dataEntrada, dataSortida).
+     * El dia de sortida d'una reserva pot ser el dia d'entrada d'una altra.
+     * @param conn La connexió on s'ha de fer la consulta.
+     * @param numeroHabitacio El número de l'habitació.
+     * @param dataEntrada La data d'entrada.
+     * @param dataSortida La data de sortida.
+     * @param bloquejant Si és cert, és una lectura bloquejant (FOR UPDATE) que sempre veu les darreres dades confirmades.
+     * @return true si hi ha alguna reserva en el període, false en cas contrari.
+     * @throws SQLException Si hi ha algun problema amb l'accés a les dades.
+     */
+    static boolean hiHaSolapament(Connection conn, int numeroHabitacio, LocalDate dataEntrada, LocalDate dataSortida,
+                                  boolean bloquejant) throws SQLException {
+        Consulta consulta = bloquejant ? Consulta.RESERVA_SOLAPAMENT_BLOQUEJANT : Consulta.RESERVA_SOLAPAMENT;
+
+        try (PreparedStatement stmt = consulta.preparar(conn)) {
 
             stmt.setInt(1, numeroHabitacio);
-            stmt.setDate(2, Date.valueOf(dataEntrada));
-            stmt.setDate(3, Date.valueOf(dataSortida));
-            stmt.setDate(4, Date.valueOf(dataEntrada));
-            stmt.setDate(5, Date.valueOf(dataSortida));
-            stmt.setDate(6, Date.valueOf(dataEntrada));
-            stmt.setDate(7, Date.valueOf(dataSortida));
+            stmt.setDate(2, Date.valueOf(dataSortida));
+            stmt.setDate(3, Date.valueOf(dataEntrada));
 
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) == 0; // Si no hi ha cap reserva en el període, l'habitació està disponible
-                }
+                return rs.next() && rs.getInt(1) > 0;
             }
+        }
+    }
 
-        } catch (SQLException e) {
-            System.err.println("Error en comprovar la disponibilitat de l'habitació: " + e.getMessage());
+    /**
+     * Bloqueja la fila de l'habitació fins al final de la transacció.
+     * @param conn La connexió, amb una transacció oberta.
+     * @param numeroHabitacio El número de l'habitació.
+     * @return El tipus de l'habitació, o null si no existeix.
+     * @throws SQLException Si hi ha algun problema amb l'accés a les dades.
+     */
+    static String bloquejarHabitacio(Connection conn, int numeroHabitacio) throws SQLException {
+        try (PreparedStatement stmt = Consulta.HABITACIO_BLOQUEJAR.preparar(conn)) {
+            stmt.setInt(1, numeroHabitacio);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString("tipus") : null;
+            }
         }
+    }
 
-        return false;
+    /**
+     * Converteix una fila de SELECT_RESUM en un ResumReserva.
+     * @param rs El ResultSet amb les dades del resum.
+     * @return El resum de la reserva.
+     * @throws SQLException Si hi ha algun problema amb l'accés a les dades.
+     */
+    private ResumReserva mapResultSetToResum(ResultSet rs) throws SQLException {
+        return new ResumReserva(rs.getInt("id_reserva"), rs.getInt("numero_habitacio"), rs.getInt("id_client"),
+                rs.getString("nom"), rs.getString("cognoms"), rs.getDate("data_entrada").toLocalDate(),
+                rs.getDate("data_sortida").toLocalDate(), rs.getDouble("total_a_pagar"));
     }
 
     /**
-     * Converteix un ResultSet en un objecte Reserva.
+     * Converteix una fila de la taula reserves en un objecte Reserva que carregarà l'habitació i el client
+     * quan es demanin.
      * @param rs El ResultSet amb les dades de la reserva.
      * @return L'objecte Reserva.
      * @throws SQLException Si hi ha algun problema amb l'accés a les dades.
      */
-    private Reserva mapResultSetToReserva(ResultSet rs) throws SQLException {
-        Reserva reserva = new Reserva();
-        reserva.setIdReserva(rs.getInt("id_reserva"));
+    private Reserva mapResultSetToReservaSenseRelacions(ResultSet rs) throws SQLException {
+        int idReserva = rs.getInt("id_reserva");
+        Reserva reserva = new Reserva(idReserva, rs.getInt("numero_habitacio"), rs.getInt("id_client"),
+                rs.getDate("data_entrada").toLocalDate(), rs.getDate("data_sortida").toLocalDate(),
+                rs.getDouble("total_a_pagar"), CARREGADOR_RELACIONS);
+        return UnitatTreball.registrar(Reserva.class, idReserva, reserva);
+    }
 
-        // Obtenir l'habitació i el client
-        Habitacio habitacio = habitacioDAO.obtenirHabitacio(rs.getInt("numero_habitacio"));
-        Client client = clientDAO.obtenirClient(rs.getInt("id_client"));
+    /**
+     * Converteix una fila de SELECT_RESERVA_COMPLETA en un objecte Reserva amb la seva habitació i el seu client.
+     * Les habitacions i els clients ja vistos es reutilitzen en lloc de tornar-los a crear, i dins d'una unitat de
+     * treball es fan servir les instàncies que ja s'hi hagin carregat.
+     * @param rs El ResultSet amb les dades de la reserva, l'habitació i el client.
+     * @param habitacions Habitacions ja construïdes, indexades pel número.
+     * @param clients Clients ja construïts, indexats per l'ID.
+     * @return L'objecte Reserva.
+     * @throws SQLException Si hi ha algun problema amb l'accés a les dades.
+     */
+    private Reserva mapResultSetToReserva(ResultSet rs, Map<Integer, Habitacio> habitacions,
+                                          Map<Integer, Client> clients) throws SQLException {
+        int idReserva = rs.getInt("id_reserva");
+        Reserva carregada = UnitatTreball.buscar(Reserva.class, idReserva);
+        if (carregada != null) {
+            return carregada;
+        }
+
+        int numeroHabitacio = rs.getInt("numero_habitacio");
+        Habitacio habitacio = habitacions.get(numeroHabitacio);
+        if (habitacio == null) {
+            habitacio = UnitatTreball.registrar(Habitacio.class, numeroHabitacio,
+                    HabitacioDAO.mapResultSetToHabitacio(rs));
+            habitacions.put(numeroHabitacio, habitacio);
+        }
+
+        int idClient = rs.getInt("id_client");
+        Client client = clients.get(idClient);
+        if (client == null) {
+            client = UnitatTreball.registrar(Client.class, idClient, ClientDAO.mapResultSetToClient(rs));
+            clients.put(idClient, client);
+        }
+
+        // El total és el que es va guardar en reservar, encara que el preu de l'habitació hagi canviat després
+        Reserva reserva = new Reserva(idReserva, habitacio, client, rs.getDate("data_entrada").toLocalDate(),
+                rs.getDate("data_sortida").toLocalDate(), rs.getDouble("total_a_pagar"));
+
+        return UnitatTreball.registrar(Reserva.class, idReserva, reserva);
+    }
+
+    /**
+     * Converteix una fila de SELECT_RESERVA_COMPLETA en un objecte Reserva per a un Stream, sense registrar-lo a la
+     * unitat de treball: si no, dins d'una unitat oberta totes les reserves llegides quedarien a l'identity map fins
+     * que es tanqués. Les instàncies que la unitat ja tenia sí que es reutilitzen.
+     * @param rs El ResultSet amb les dades de la reserva, l'habitació i el client.
+     * @param habitacions Habitacions ja construïdes, indexades pel número.
+     * @return L'objecte Reserva.
+     * @throws SQLException Si hi ha algun problema amb l'accés a les dades.
+     */
+    private Reserva mapResultSetToReservaStream(ResultSet rs, Map<Integer, Habitacio> habitacions)
+            throws SQLException {
+        int idReserva = rs.getInt("id_reserva");
+        Reserva carregada = UnitatTreball.buscar(Reserva.class, idReserva);
+        if (carregada != null) {
+            return carregada;
+        }
 
-        reserva.setHabitacio(habitacio);
-        reserva.setClient(client);
-        reserva.setDataEntrada(rs.getDate("data_entrada").toLocalDate());
-        reserva.setDataSortida(rs.getDate("data_sortida").toLocalDate());
-        // No cal establir el total_a_pagar ja que es calcula automàticament al establir les dates i l'habitació
+        int numeroHabitacio = rs.getInt("numero_habitacio");
+        Habitacio habitacio = habitacions.get(numeroHabitacio);
+        if (habitacio == null) {
+            habitacio = UnitatTreball.buscar(Habitacio.class, numeroHabitacio);
+            if (habitacio == null) {
+                habitacio = HabitacioDAO.mapResultSetToHabitacio(rs);
+            }
+            habitacions.put(numeroHabitacio, habitacio);
+        }
+
+        int idClient = rs.getInt("id_client");
+        Client client = UnitatTreball.buscar(Client.class, idClient);
+        if (client == null) {
+            client = ClientDAO.mapResultSetToClient(rs);
+        }
 
-        return reserva;
+        return new Reserva(idReserva, habitacio, client, rs.getDate("data_entrada").toLocalDate(),
+                rs.getDate("data_sortida").toLocalDate(), rs.getDouble("total_a_pagar"));
     }
 }
\ No newline at end of file
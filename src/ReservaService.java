@@ -1,9 +1,12 @@
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 import java.util.Collections;
 
 /**
  * Servei que gestiona les operacions de negoci relacionades amb les reserves.
+ * Cada operació que escriu s'executa dins d'una UnitatTreball: una sola connexió i un sol commit.
  */
 public class ReservaService {
 
@@ -29,28 +32,78 @@ public class ReservaService {
      * @return l'ID de la reserva realitzada o -1 si hi ha hagut algun error.
      */
     public int realitzarReserva(int numeroHabitacio, int idClient, LocalDate dataEntrada, LocalDate dataSortida) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaService.realitzarReserva");
+             UnitatTreball unitat = UnitatTreball.iniciar()) {
+            Habitacio habitacio = habitacioService.obtenirHabitacio(numeroHabitacio);
+            // Si l'habitació no existeix no cal consultar el client
+            Client client = habitacio != null ? clientService.obtenirClient(idClient) : null;
+
+            int idReserva = reservar(habitacio, client, numeroHabitacio, idClient, dataEntrada, dataSortida);
+            return mesura.clau(idReserva != -1 && unitat.confirmar() ? idReserva : -1);
+        }
+    }
+
+    /**
+     * Versió asíncrona de realitzarReserva(). L'habitació i el client es consulten alhora.
+     * S'executa sempre en una unitat de treball pròpia, encara que qui la crida en tingui una d'oberta: la reserva es
+     * confirma pel seu compte i no es desfà si es desfà la unitat de qui la crida (vegeu ExecutorAsincron).
+     * @param numeroHabitacio El número de l'habitació a reservar.
+     * @param idClient L'ID del client que fa la reserva.
+     * @param dataEntrada La data d'entrada.
+     * @param dataSortida La data de sortida.
+     * @return Un CompletableFuture amb l'ID de la reserva realitzada o -1 si hi ha hagut algun error.
+     */
+    public CompletableFuture<Integer> realitzarReservaAsync(int numeroHabitacio, int idClient, LocalDate dataEntrada,
+                                                            LocalDate dataSortida) {
+        // La mesura es tanca quan acaba el darrer pas
+        Metriques.Mesura mesura = Metriques.iniciar("ReservaService.realitzarReservaAsync");
+
+        CompletableFuture<Habitacio> habitacio = habitacioService.obtenirHabitacioAsync(numeroHabitacio);
+        CompletableFuture<Client> client = clientService.obtenirClientAsync(idClient);
+
+        return habitacio.thenCombineAsync(client, (h, c) ->
+                        mesura.clau(reservar(h, c, numeroHabitacio, idClient, dataEntrada, dataSortida)),
+                ExecutorAsincron.getExecutor())
+                .whenComplete((idReserva, excepcio) -> {
+                    if (excepcio != null) {
+                        mesura.error();
+                    }
+                    mesura.close();
+                });
+    }
+
+    /**
+     * Valida la reserva amb l'habitació i el client ja consultats i, si tot és correcte, la crea
+     * dins d'una unitat de treball: la del fil, si n'hi ha una d'oberta. Des de realitzarReservaAsync el fil és el
+     * de l'executor, que no en té cap, i la unitat és sempre nova.
+     * @return l'ID de la reserva realitzada o -1 si hi ha hagut algun error.
+     */
+    private int reservar(Habitacio habitacio, Client client, int numeroHabitacio, int idClient,
+                         LocalDate dataEntrada, LocalDate dataSortida) {
+        try (UnitatTreball unitat = UnitatTreball.iniciar()) {
+            int idReserva = validarIReservar(habitacio, client, numeroHabitacio, idClient, dataEntrada, dataSortida);
+            return idReserva != -1 && unitat.confirmar() ? idReserva : -1;
+        }
+    }
+
+    private int validarIReservar(Habitacio habitacio, Client client, int numeroHabitacio, int idClient,
+                                 LocalDate dataEntrada, LocalDate dataSortida) {
         // Verificar que l'habitació existeixi
-        Habitacio habitacio = habitacioService.obtenirHabitacio(numeroHabitacio);
         if (habitacio == null) {
             System.err.println("Error: No existeix cap habitació amb el número " + numeroHabitacio);
             return -1;
         }
 
         // Verificar que el client existeixi
-        Client client = clientService.obtenirClient(idClient);
         if (client == null) {
             System.err.println("Error: No existeix cap client amb l'ID " + idClient);
             return -1;
         }
 
         // Verificar que les dates siguin vàlides
-        if (dataEntrada == null || dataSortida == null) {
-            System.err.println("Error: Les dates d'entrada i sortida no poden estar buides");
-            return -1;
-        }
-
-        if (dataEntrada.isAfter(dataSortida)) {
-            System.err.println("Error: La data d'entrada no pot ser posterior a la data de sortida");
+        String error = validarPeriode(dataEntrada, dataSortida);
+        if (error != null) {
+            System.err.println("Error: " + error);
             return -1;
         }
 
@@ -59,9 +112,9 @@ public class ReservaService {
             return -1;
         }
 
-        // Verificar que l'habitació estigui disponible per al període
+        // Verificar que l'habitació estigui en servei i lliure per al període
         if (!habitacio.isDisponible()) {
-            System.err.println("Error: L'habitació no està disponible");
+            System.err.println("Error: L'habitació està fora de servei");
             return -1;
         }
 
@@ -75,20 +128,42 @@ public class ReservaService {
         return reservaDAO.afegirReserva(reserva);
     }
 
+    /**
+     * Valida les dates d'una estada.
+     * @param dataEntrada La data d'entrada.
+     * @param dataSortida La data de sortida.
+     * @return El missatge d'error, o null si les dates són vàlides.
+     */
+    public static String validarPeriode(LocalDate dataEntrada, LocalDate dataSortida) {
+        if (dataEntrada == null || dataSortida == null) {
+            return "Les dates d'entrada i sortida no poden estar buides";
+        }
+
+        if (!dataEntrada.isBefore(dataSortida)) {
+            return "La data de sortida ha de ser posterior a la data d'entrada";
+        }
+
+        return null;
+    }
+
     /**
      * Cancel·la una reserva.
      * @param idReserva L'ID de la reserva a cancel·lar.
      * @return true si s'ha cancel·lat correctament, false en cas contrari.
      */
     public boolean cancelarReserva(int idReserva) {
-        // Verificar que la reserva existeixi
-        Reserva reserva = reservaDAO.obtenirReserva(idReserva);
-        if (reserva == null) {
-            System.err.println("Error: No existeix cap reserva amb l'ID " + idReserva);
-            return false;
-        }
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaService.cancelarReserva");
+             UnitatTreball unitat = UnitatTreball.iniciar()) {
+            // Verificar que la reserva existeixi (no cal carregar l'habitació ni el client)
+            Reserva reserva = reservaDAO.obtenirReserva(idReserva, PlaCarrega.RESERVA);
+            if (reserva == null) {
+                System.err.println("Error: No existeix cap reserva amb l'ID " + idReserva);
+                mesura.error();
+                return false;
+            }
 
-        return reservaDAO.cancelarReserva(idReserva);
+            return mesura.correcte(reservaDAO.cancelarReserva(idReserva) && unitat.confirmar());
+        }
     }
 
     /**
@@ -97,7 +172,21 @@ public class ReservaService {
      * @return La reserva o null si no s'ha trobat.
      */
     public Reserva obtenirReserva(int idReserva) {
-        return reservaDAO.obtenirReserva(idReserva);
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaService.obtenirReserva")) {
+            return mesura.objecte(reservaDAO.obtenirReserva(idReserva));
+        }
+    }
+
+    /**
+     * Obté una reserva pel seu ID amb un pla de càrrega.
+     * @param idReserva L'ID de la reserva.
+     * @param pla Les relacions que es carreguen amb la reserva; la resta es carreguen en demanar-les.
+     * @return La reserva o null si no s'ha trobat.
+     */
+    public Reserva obtenirReserva(int idReserva, PlaCarrega pla) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaService.obtenirReserva")) {
+            return mesura.objecte(reservaDAO.obtenirReserva(idReserva, pla));
+        }
     }
 
     /**
@@ -105,7 +194,9 @@ public class ReservaService {
      * @return Una llista amb totes les reserves actives.
      */
     public List<Reserva> obtenirReservesActives() {
-        return reservaDAO.obtenirReservesActives();
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaService.obtenirReservesActives")) {
+            return mesura.llista(reservaDAO.obtenirReservesActives());
+        }
     }
 
     /**
@@ -114,13 +205,159 @@ public class ReservaService {
      * @return Una llista amb totes les reserves del client.
      */
     public List<Reserva> obtenirReservesClient(int idClient) {
-        // Verificar que el client existeixi
-        Client client = clientService.obtenirClient(idClient);
-        if (client == null) {
-            System.err.println("Error: No existeix cap client amb l'ID " + idClient);
-            return Collections.emptyList();
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaService.obtenirReservesClient")) {
+            // Verificar que el client existeixi
+            Client client = clientService.obtenirClient(idClient);
+            if (client == null) {
+                System.err.println("Error: No existeix cap client amb l'ID " + idClient);
+                mesura.error();
+                return Collections.emptyList();
+            }
+
+            return mesura.llista(reservaDAO.obtenirReservesClient(idClient));
         }
+    }
 
-        return reservaDAO.obtenirReservesClient(idClient);
+    /**
+     * Obté una pàgina de reserves actives ordenades per data d'entrada.
+     * @param anterior La darrera reserva de la pàgina anterior, o null per a la primera pàgina.
+     * @param mida El nombre màxim de reserves de la pàgina.
+     * @return La pàgina de reserves actives.
+     */
+    public Pagina<Reserva> obtenirReservesActivesPagina(Reserva anterior, int mida) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaService.obtenirReservesActivesPagina")) {
+            return mesura.pagina(reservaDAO.obtenirReservesActivesPagina(anterior, mida));
+        }
+    }
+
+    /**
+     * Obté totes les reserves com un Stream que es llegeix a mesura que es consumeix (per exemple per exportar-les).
+     * S'ha de tancar en acabar (per exemple amb try-with-resources).
+     * @return Un Stream amb totes les reserves.
+     */
+    public Stream<Reserva> streamTotesLesReserves() {
+        return reservaDAO.streamTotesLesReserves();
+    }
+
+    // Resums per als llistats: només les dades que es mostren, sense construir les reserves senceres
+
+    /**
+     * Obté una pàgina de resums de reserves actives ordenades per data d'entrada.
+     * @param anterior El darrer resum de la pàgina anterior, o null per a la primera pàgina.
+     * @param mida El nombre màxim de resums de la pàgina.
+     * @return La pàgina de resums de reserves actives.
+     */
+    public Pagina<ResumReserva> obtenirResumsActiusPagina(ResumReserva anterior, int mida) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaService.obtenirResumsActiusPagina")) {
+            return mesura.pagina(reservaDAO.obtenirResumsActiusPagina(anterior, mida));
+        }
+    }
+
+    /**
+     * Obté els resums de totes les reserves d'un client.
+     * @param idClient L'ID del client.
+     * @return Una llista amb els resums de les reserves del client.
+     */
+    public List<ResumReserva> obtenirResumsClient(int idClient) {
+        try (Metriques.Mesura mesura = Metriques.iniciar("ReservaService.obtenirResumsClient")) {
+            // Verificar que el client existeixi
+            if (clientService.obtenirClient(idClient) == null) {
+                System.err.println("Error: No existeix cap client amb l'ID " + idClient);
+                mesura.error();
+                return Collections.emptyList();
+            }
+
+            return mesura.llista(reservaDAO.obtenirResumsClient(idClient));
+        }
+    }
+
+    /**
+     * Obté els resums de totes les reserves com un Stream que es llegeix a mesura que es consumeix
+     * (per exemple per exportar-les). S'ha de tancar en acabar (per exemple amb try-with-resources).
+     * @return Un Stream amb els resums de totes les reserves.
+     */
+    public Stream<ResumReserva> streamTotsElsResums() {
+        return reservaDAO.streamTotsElsResums();
+    }
+
+    // Variants asíncrones: s'executen a ExecutorAsincron i no bloquegen qui les crida
+
+    /**
+     * Versió asíncrona de cancelarReserva().
+     * @param idReserva L'ID de la reserva a cancel·lar.
+     * @return Un CompletableFuture amb true si s'ha cancel·lat correctament, false en cas contrari.
+     */
+    public CompletableFuture<Boolean> cancelarReservaAsync(int idReserva) {
+        return ExecutorAsincron.executar(() -> cancelarReserva(idReserva));
+    }
+
+    /**
+     * Versió asíncrona d'obtenirReserva().
+     * @param idReserva L'ID de la reserva.
+     * @return Un CompletableFuture amb la reserva o null si no s'ha trobat.
+     */
+    public CompletableFuture<Reserva> obtenirReservaAsync(int idReserva) {
+        return ExecutorAsincron.executar(() -> obtenirReserva(idReserva));
+    }
+
+    /**
+     * Versió asíncrona d'obtenirReservesActives().
+     * @return Un CompletableFuture amb una llista amb totes les reserves actives.
+     */
+    public CompletableFuture<List<Reserva>> obtenirReservesActivesAsync() {
+        return ExecutorAsincron.executar(this::obtenirReservesActives);
+    }
+
+    /**
+     * Versió asíncrona d'obtenirReservesClient(). Com a la versió síncrona, les reserves només es consulten si el
+     * client existeix: la consulta s'encadena a la del client sense bloquejar cap fil mentre s'espera.
+     * @param idClient L'ID del client.
+     * @return Un CompletableFuture amb una llista amb totes les reserves del client.
+     */
+    public CompletableFuture<List<Reserva>> obtenirReservesClientAsync(int idClient) {
+        Metriques.Mesura mesura = Metriques.iniciar("ReservaService.obtenirReservesClientAsync");
+
+        return clientService.obtenirClientAsync(idClient).thenCompose(client -> {
+            if (client == null) {
+                System.err.println("Error: No existeix cap client amb l'ID " + idClient);
+                mesura.error();
+                return CompletableFuture.completedFuture(Collections.<Reserva>emptyList());
+            }
+            return ExecutorAsincron.executar(() -> mesura.llista(reservaDAO.obtenirReservesClient(idClient)));
+        }).whenComplete((llista, excepcio) -> {
+            if (excepcio != null) {
+                mesura.error();
+            }
+            mesura.close();
+        });
+    }
+
+    /**
+     * Versió asíncrona d'obtenirReservesActivesPagina().
+     * @param anterior La darrera reserva de la pàgina anterior, o null per a la primera pàgina.
+     * @param mida El nombre màxim de reserves de la pàgina.
+     * @return Un CompletableFuture amb la pàgina de reserves actives.
+     */
+    public CompletableFuture<Pagina<Reserva>> obtenirReservesActivesPaginaAsync(Reserva anterior, int mida) {
+        return ExecutorAsincron.executar(() -> obtenirReservesActivesPagina(anterior, mida));
+    }
+
+    /**
+     * Versió asíncrona d'obtenirResumsActiusPagina().
+     * @param anterior El darrer resum de la pàgina anterior, o null per a la primera pàgina.
+     * @param mida El nombre màxim de resums de la pàgina.
+     * @return Un CompletableFuture amb la pàgina de resums de reserves actives.
+     */
+    public CompletableFuture<Pagina<ResumReserva>> obtenirResumsActiusPaginaAsync(ResumReserva anterior, int mida) {
+        return ExecutorAsincron.executar(() -> obtenirResumsActiusPagina(anterior, mida));
+    }
+
+    /**
+     * Versió asíncrona d'obtenirResumsClient().
+     * @param idClient L'ID del client.
+     * @return Un CompletableFuture amb una llista amb els resums de les reserves del client.
+     */
+    public CompletableFuture<List<ResumReserva>> obtenirResumsClientAsync(int idClient) {
+        return ExecutorAsincron.executar(() -> obtenirResumsClient(idClient));
     }
-}
\ No newline at end of file
+}
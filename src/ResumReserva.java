@@ -0,0 +1,76 @@
+import java.time.LocalDate;
+
+/**
+ * Resum d'una reserva per als llistats: només les dades que es mostren, llegides amb una consulta que
+ * l'índex de reserves cobreix i el nom del client per la clau primària.
+ * És immutable; per modificar una reserva s'ha de fer servir Reserva.
+ */
+public final class ResumReserva {
+
+    private final int idReserva;
+    private final int numeroHabitacio;
+    private final int idClient;
+    private final String nomClient;
+    private final String cognomsClient;
+    private final LocalDate dataEntrada;
+    private final LocalDate dataSortida;
+    private final double totalAPagar;
+
+    /**
+     * Constructor amb tots els paràmetres.
+     */
+    public ResumReserva(int idReserva, int numeroHabitacio, int idClient, String nomClient, String cognomsClient,
+                        LocalDate dataEntrada, LocalDate dataSortida, double totalAPagar) {
+        this.idReserva = idReserva;
+        this.numeroHabitacio = numeroHabitacio;
+        this.idClient = idClient;
+        this.nomClient = nomClient;
+        this.cognomsClient = cognomsClient;
+        this.dataEntrada = dataEntrada;
+        this.dataSortida = dataSortida;
+        this.totalAPagar = totalAPagar;
+    }
+
+    public int getIdReserva() {
+        return idReserva;
+    }
+
+    public int getNumeroHabitacio() {
+        return numeroHabitacio;
+    }
+
+    public int getIdClient() {
+        return idClient;
+    }
+
+    public String getNomClient() {
+        return nomClient;
+    }
+
+    public String getCognomsClient() {
+        return cognomsClient;
+    }
+
+    public LocalDate getDataEntrada() {
+        return dataEntrada;
+    }
+
+    public LocalDate getDataSortida() {
+        return dataSortida;
+    }
+
+    public double getTotalAPagar() {
+        return totalAPagar;
+    }
+
+    @Override
+    public String toString() {
+        // Mateix format que Reserva, perquè els llistats es vegin igual
+        return "Reserva [ID: " + idReserva +
+                ", Habitació: " + numeroHabitacio +
+                ", Client: " + nomClient + " " + cognomsClient +
+                ", Data Entrada: " + dataEntrada +
+                ", Data Sortida: " + dataSortida +
+                ", Total a Pagar: " + totalAPagar + "€]";
+    }
+}
@@ -0,0 +1,492 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulador de càrrega: molts recepcionistes virtuals fan reserves, cancel·lacions i consultes alhora
+ * a través dels serveis, sobre un hotel sintètic de N habitacions i M clients creat per a la simulació.
+ * En acabar mostra el rendiment, els percentils de latència i els viatges a la base de dades per operació,
+ * i la proporció de reserves rebutjades (conflictes).
+ * Només s'executa sobre una base de dades de proves indicada amb -Dhotel.db.url, mai sobre la de l'hotel, i en
+ * acabar esborra les habitacions, els clients i les reserves que ha creat.
+ *
+ * Ús: java -Dhotel.db.url=jdbc:mysql://localhost:3306/hotel_simulacio SimuladorCarrega [--habitacions 200]
+ *          [--clients 2000] [--recepcionistes 16] [--segons 60] [--escalfament 10] [--dies 180]
+ */
+public class SimuladorCarrega {
+
+    // Mida de les pàgines dels llistats, com a la CLI
+    private static final int MIDA_PAGINA = 20;
+    private static final int NITS_MAXIMES = 7;
+    private static final String[] TIPUS = {"individual", "doble", "suite"};
+
+    /**
+     * Operacions que fan els recepcionistes, amb el pes de cadascuna dins la barreja.
+     */
+    private enum Operacio {
+        RESERVAR("reservar", 40),
+        CANCELAR("cancel·lar", 10),
+        CERCAR_HABITACIONS("cercar habitacions", 25),
+        LLISTAR_CLIENTS("llistar clients", 10),
+        LLISTAR_RESERVES("llistar reserves", 10),
+        CONSULTAR_CLIENT("consultar client", 5);
+
+        private final String nom;
+        private final int pes;
+
+        Operacio(String nom, int pes) {
+            this.nom = nom;
+            this.pes = pes;
+        }
+    }
+
+    /**
+     * Latències, errors i viatges a la base de dades d'una operació.
+     */
+    private static class Mesures {
+        private final HistogramaLatencia latencia = new HistogramaLatencia();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder viatges = new LongAdder();
+    }
+
+    private final int nombreHabitacions;
+    private final int nombreClients;
+    private final int recepcionistes;
+    private final int segons;
+    private final int segonsEscalfament;
+    private final int diesHoritzo;
+
+    private final HabitacioService habitacioService = new HabitacioService();
+    private final ClientService clientService = new ClientService();
+    private final ReservaService reservaService = new ReservaService();
+
+    private final Map<Operacio, Mesures> mesures = new EnumMap<>(Operacio.class);
+    private final LongAdder reservesRebutjades = new LongAdder();
+    // Reserves fetes durant la simulació, que es poden cancel·lar
+    private final ConcurrentLinkedQueue<Integer> reservesFetes = new ConcurrentLinkedQueue<>();
+    private final int pesTotal;
+
+    private int[] numerosHabitacions;
+    private int[] idsClients;
+    private volatile boolean mesurant = false;
+    private volatile boolean aturar = false;
+
+    /**
+     * Constructor amb la configuració de la simulació.
+     * @param nombreHabitacions Habitacions de l'hotel sintètic.
+     * @param nombreClients Clients de l'hotel sintètic.
+     * @param recepcionistes Fils que fan operacions alhora.
+     * @param segons Durada de la mesura.
+     * @param segonsEscalfament Durada de l'escalfament previ, que no es mesura.
+     * @param diesHoritzo Dies a partir d'avui on poden començar les reserves.
+     */
+    public SimuladorCarrega(int nombreHabitacions, int nombreClients, int recepcionistes, int segons,
+                            int segonsEscalfament, int diesHoritzo) {
+        this.nombreHabitacions = nombreHabitacions;
+        this.nombreClients = nombreClients;
+        this.recepcionistes = recepcionistes;
+        this.segons = segons;
+        this.segonsEscalfament = segonsEscalfament;
+        this.diesHoritzo = diesHoritzo;
+
+        int pes = 0;
+        for (Operacio operacio : Operacio.values()) {
+            mesures.put(operacio, new Mesures());
+            pes += operacio.pes;
+        }
+        this.pesTotal = pes;
+    }
+
+    /**
+     * Crea les habitacions i els clients de l'hotel sintètic amb la càrrega massiva.
+     * Les habitacions es numeren després de les que ja existeixen i els emails dels clients són únics per simulació.
+     * @return true si s'han creat totes les habitacions i tots els clients, false en cas contrari.
+     * @throws IOException Si hi ha algun problema en generar les dades.
+     */
+    public boolean preparar() throws IOException {
+        int primerNumero = 1;
+        for (Habitacio habitacio : habitacioService.obtenirTotesLesHabitacions()) {
+            primerNumero = Math.max(primerNumero, habitacio.getNumeroHabitacio() + 1);
+        }
+
+        numerosHabitacions = new int[nombreHabitacions];
+        StringBuilder habitacions = new StringBuilder("numero_habitacio,tipus,preu_per_nit\n");
+        for (int i = 0; i < nombreHabitacions; i++) {
+            numerosHabitacions[i] = primerNumero + i;
+            habitacions.append(numerosHabitacions[i]).append(',').append(TIPUS[i % TIPUS.length]).append(',')
+                    .append(50 + (i % TIPUS.length) * 40).append('\n');
+        }
+
+        String marca = Long.toString(System.currentTimeMillis(), 36);
+        StringBuilder clients = new StringBuilder("nom,cognoms,data_naixement,email,telefon\n");
+        for (int i = 0; i < nombreClients; i++) {
+            clients.append("Client").append(i).append(",Simulació,1980-01-01,simulacio-").append(marca).append('-')
+                    .append(i).append("@hotel.cat,").append(String.format("6%08d", i)).append('\n');
+        }
+
+        CarregadorMassiu carregador = new CarregadorMassiu();
+        InformeCarrega informeHabitacions = carregador.carregarHabitacions("habitacions sintètiques",
+                new StringReader(habitacions.toString()));
+        InformeCarrega informeClients = carregador.carregarClients("clients sintètics",
+                new StringReader(clients.toString()));
+        System.out.println(informeHabitacions);
+        System.out.println(informeClients);
+
+        List<Integer> claus = informeClients.getClausGenerades();
+        idsClients = new int[claus.size()];
+        for (int i = 0; i < idsClients.length; i++) {
+            idsClients[i] = claus.get(i);
+        }
+
+        return informeHabitacions.getFilesInserides() == nombreHabitacions && idsClients.length == nombreClients;
+    }
+
+    /**
+     * Esborra l'hotel sintètic en una sola transacció: les reserves de les seves habitacions (restant-ne les nits de
+     * l'ocupació diària), les habitacions i els clients. Es pot cridar encara que preparar() no hagi acabat bé.
+     * @return true si s'ha esborrat tot, false si hi ha hagut algun error.
+     */
+    public boolean netejar() {
+        if (numerosHabitacions == null) {
+            return true;
+        }
+        int primerNumero = numerosHabitacions[0];
+        int darrerNumero = numerosHabitacions[numerosHabitacions.length - 1];
+
+        List<ReservaSintetica> reserves = new ArrayList<>();
+        try (Connection conn = ConnectionManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                OcupacioDiariaDAO.Increments increments = new OcupacioDiariaDAO.Increments();
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT r.id_reserva, r.numero_habitacio, " +
+                        "r.data_entrada, r.data_sortida, r.total_a_pagar, h.tipus FROM reserves r " +
+                        "JOIN habitacions h ON h.numero_habitacio = r.numero_habitacio " +
+                        "WHERE r.numero_habitacio BETWEEN ? AND ? FOR UPDATE")) {
+                    stmt.setInt(1, primerNumero);
+                    stmt.setInt(2, darrerNumero);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            ReservaSintetica reserva = new ReservaSintetica();
+                            reserva.idReserva = rs.getInt("id_reserva");
+                            reserva.numeroHabitacio = rs.getInt("numero_habitacio");
+                            reserva.dataEntrada = rs.getDate("data_entrada").toLocalDate();
+                            reserva.dataSortida = rs.getDate("data_sortida").toLocalDate();
+                            increments.treureEstada(rs.getString("tipus"), reserva.dataEntrada, reserva.dataSortida,
+                                    rs.getDouble("total_a_pagar"));
+                            reserves.add(reserva);
+                        }
+                    }
+                }
+                increments.aplicar(conn);
+
+                for (String sql : new String[]{"DELETE FROM reserves WHERE numero_habitacio BETWEEN ? AND ?",
+                        "DELETE FROM habitacions WHERE numero_habitacio BETWEEN ? AND ?"}) {
+                    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                        stmt.setInt(1, primerNumero);
+                        stmt.setInt(2, darrerNumero);
+                        stmt.executeUpdate();
+                    }
+                }
+
+                if (idsClients != null && idsClients.length > 0) {
+                    try (PreparedStatement stmt = Consulta.CLIENT_ELIMINAR.preparar(conn)) {
+                        for (int idClient : idsClients) {
+                            stmt.setInt(1, idClient);
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error en esborrar l'hotel sintètic: " + e.getMessage());
+            return false;
+        } finally {
+            CacheHabitacions.getInstancia().invalidarTot();
+        }
+
+        // Els clients esborrats poden quedar a la memòria cau de clients, però el procés acaba just després
+        for (ReservaSintetica reserva : reserves) {
+            IndexReserves.getInstancia().eliminar(reserva.numeroHabitacio, reserva.idReserva, reserva.dataEntrada,
+                    reserva.dataSortida);
+        }
+        System.out.println("Hotel sintètic esborrat: " + numerosHabitacions.length + " habitacions, " +
+                (idsClients != null ? idsClients.length : 0) + " clients i " + reserves.size() + " reserves.");
+        return true;
+    }
+
+    /**
+     * Executa la simulació: escalfament, mesura i aturada dels recepcionistes.
+     * Els missatges d'error dels serveis (per exemple les reserves rebutjades) no es mostren durant la simulació;
+     * només se'n compta el nombre.
+     * @return L'informe amb els resultats.
+     * @throws InterruptedException Si s'interromp l'espera.
+     */
+    public String executar() throws InterruptedException {
+        PrintStream errOriginal = System.err;
+        ComptadorLinies liniesError = new ComptadorLinies();
+        System.setErr(new PrintStream(liniesError, true));
+
+        ExecutorService executor = Executors.newFixedThreadPool(recepcionistes);
+        long iniciMesura;
+        long finalMesura;
+        try {
+            for (int i = 0; i < recepcionistes; i++) {
+                executor.execute(this::treballar);
+            }
+
+            TimeUnit.SECONDS.sleep(segonsEscalfament);
+            for (Mesures mesura : mesures.values()) {
+                mesura.latencia.reiniciar();
+            }
+            liniesError.reiniciar();
+            mesurant = true;
+            iniciMesura = System.nanoTime();
+
+            TimeUnit.SECONDS.sleep(segons);
+            mesurant = false;
+            finalMesura = System.nanoTime();
+        } finally {
+            aturar = true;
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            System.setErr(errOriginal);
+        }
+
+        return informe((finalMesura - iniciMesura) / 1e9, liniesError.getLinies());
+    }
+
+    /**
+     * Bucle d'un recepcionista: tria operacions a l'atzar segons la barreja fins que s'atura la simulació.
+     */
+    private void treballar() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        while (!aturar) {
+            Operacio operacio = triarOperacio(random);
+            Mesures mesura = mesures.get(operacio);
+            boolean mesurar = mesurant;
+
+            long viatgesAbans = ComptadorViatges.getViatgesFil();
+            long inici = System.nanoTime();
+            try {
+                executarOperacio(operacio, random, mesurar);
+            } catch (RuntimeException e) {
+                if (mesurar) {
+                    mesura.errors.increment();
+                }
+            }
+            long durada = System.nanoTime() - inici;
+
+            if (mesurar && mesurant) {
+                mesura.latencia.registrar(durada);
+                mesura.viatges.add(ComptadorViatges.getViatgesFil() - viatgesAbans);
+            }
+        }
+    }
+
+    private Operacio triarOperacio(ThreadLocalRandom random) {
+        int valor = random.nextInt(pesTotal);
+        for (Operacio operacio : Operacio.values()) {
+            valor -= operacio.pes;
+            if (valor < 0) {
+                return operacio;
+            }
+        }
+        return Operacio.RESERVAR;
+    }
+
+    private void executarOperacio(Operacio operacio, ThreadLocalRandom random, boolean mesurar) {
+        LocalDate entrada = LocalDate.now().plusDays(random.nextInt(diesHoritzo));
+        LocalDate sortida = entrada.plusDays(1 + random.nextInt(NITS_MAXIMES));
+
+        switch (operacio) {
+            case RESERVAR:
+                int idReserva = reservaService.realitzarReserva(
+                        numerosHabitacions[random.nextInt(numerosHabitacions.length)],
+                        idsClients[random.nextInt(idsClients.length)], entrada, sortida);
+                if (idReserva > 0) {
+                    reservesFetes.add(idReserva);
+                } else if (mesurar) {
+                    reservesRebutjades.increment();
+                }
+                break;
+            case CANCELAR:
+                Integer aCancelar = reservesFetes.poll();
+                if (aCancelar != null && !reservaService.cancelarReserva(aCancelar) && mesurar) {
+                    mesures.get(operacio).errors.increment();
+                }
+                break;
+            case CERCAR_HABITACIONS:
+                habitacioService.cercarHabitacionsLliures(entrada, sortida, null, null, null);
+                break;
+            case LLISTAR_CLIENTS:
+                // Una pàgina qualsevol del llistat, com qui busca un client
+                Client anterior = new Client();
+                anterior.setIdClient(idsClients[random.nextInt(idsClients.length)]);
+                clientService.obtenirClientsPagina(anterior, MIDA_PAGINA);
+                break;
+            case LLISTAR_RESERVES:
+                reservaService.obtenirReservesActivesPagina(null, MIDA_PAGINA);
+                break;
+            case CONSULTAR_CLIENT:
+                clientService.obtenirClient(idsClients[random.nextInt(idsClients.length)]);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private String informe(double segonsMesurats, long liniesError) {
+        StringBuilder informe = new StringBuilder("\n===== RESULTATS DE LA SIMULACIÓ =====\n");
+        informe.append(String.format("Habitacions: %d, clients: %d, recepcionistes: %d, durada: %.1f s%n",
+                nombreHabitacions, nombreClients, recepcionistes, segonsMesurats));
+
+        long totalOperacions = 0;
+        for (Mesures mesura : mesures.values()) {
+            totalOperacions += mesura.latencia.getComptador();
+        }
+        informe.append(String.format("Operacions: %d (%.1f op/s)%n%n", totalOperacions, totalOperacions / segonsMesurats));
+
+        informe.append(String.format("%-20s %9s %9s %10s %10s %10s %7s %11s%n",
+                "Operació", "Nombre", "op/s", "p50 ms", "p99 ms", "p99.9 ms", "Errors", "Viatges/op"));
+        for (Operacio operacio : Operacio.values()) {
+            Mesures mesura = mesures.get(operacio);
+            HistogramaLatencia latencia = mesura.latencia;
+            long nombre = latencia.getComptador();
+            informe.append(String.format("%-20s %9d %9.1f %10.3f %10.3f %10.3f %7d %11.2f%n",
+                    operacio.nom, nombre, nombre / segonsMesurats,
+                    latencia.percentil(50) / 1e6, latencia.percentil(99) / 1e6, latencia.percentil(99.9) / 1e6,
+                    mesura.errors.sum(), nombre == 0 ? 0.0 : mesura.viatges.sum() / (double) nombre));
+        }
+
+        long intents = mesures.get(Operacio.RESERVAR).latencia.getComptador();
+        long rebutjades = reservesRebutjades.sum();
+        informe.append(String.format("%nReserves rebutjades: %d de %d (%.1f%%)%n", rebutjades, intents,
+                intents == 0 ? 0.0 : rebutjades * 100.0 / intents));
+        informe.append("Missatges d'error dels serveis: ").append(liniesError).append('\n');
+        informe.append(ConnectionManager.getPoolStatistics()).append('\n');
+        informe.append(ReservaDAO.obtenirEstadistiquesBloquejos()).append('\n');
+        return informe.toString();
+    }
+
+    /**
+     * Reserva de l'hotel sintètic que s'esborra en acabar.
+     */
+    private static class ReservaSintetica {
+        private int idReserva;
+        private int numeroHabitacio;
+        private LocalDate dataEntrada;
+        private LocalDate dataSortida;
+    }
+
+    /**
+     * Sortida que descarta el text i només en compta les línies.
+     */
+    private static class ComptadorLinies extends OutputStream {
+        private final LongAdder linies = new LongAdder();
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                linies.increment();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+
+        long getLinies() {
+            return linies.sum();
+        }
+
+        void reiniciar() {
+            linies.reset();
+        }
+    }
+
+    /**
+     * Crea l'hotel sintètic, executa la simulació, en mostra els resultats i l'esborra.
+     * @param args Arguments de la línia d'ordres (vegeu la descripció de la classe).
+     */
+    public static void main(String[] args) {
+        Map<String, String> opcions = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            opcions.put(args[i], args[i + 1]);
+        }
+
+        try {
+            SimuladorCarrega simulador = new SimuladorCarrega(
+                    enter(opcions, "--habitacions", 200, 1),
+                    enter(opcions, "--clients", 2000, 1),
+                    enter(opcions, "--recepcionistes", 16, 1),
+                    enter(opcions, "--segons", 60, 1),
+                    enter(opcions, "--escalfament", 10, 0),
+                    enter(opcions, "--dies", 180, 1));
+
+            if (ConnectionManager.isBaseDadesHotel()) {
+                System.err.println("El simulador crea i esborra dades: indiqueu una base de dades de proves amb " +
+                        "-D" + ConnectionManager.PROPIETAT_URL + "=jdbc:mysql://.../hotel_simulacio");
+                return;
+            }
+
+            InicialitzadorBaseDades.inicialitzar();
+            try {
+                if (!simulador.preparar()) {
+                    System.err.println("No s'ha pogut crear l'hotel sintètic.");
+                    return;
+                }
+                System.out.println(simulador.executar());
+            } finally {
+                simulador.netejar();
+            }
+
+        } catch (NumberFormatException e) {
+            System.err.println("Paràmetre no vàlid: " + e.getMessage());
+        } catch (SQLException | IOException e) {
+            System.err.println("Error en la simulació: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("S'ha interromput la simulació.");
+        } finally {
+            ConnectionManager.closeConnection();
+        }
+    }
+
+    private static int enter(Map<String, String> opcions, String nom, int perDefecte, int minim) {
+        String valor = opcions.get(nom);
+        if (valor == null) {
+            return perDefecte;
+        }
+        int enter = Integer.parseInt(valor);
+        if (enter < minim) {
+            throw new NumberFormatException(nom + " ha de ser com a mínim " + minim);
+        }
+        return enter;
+    }
+}
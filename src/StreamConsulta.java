@@ -0,0 +1,125 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Converteix una consulta en un Stream que llegeix les files a mesura que es consumeixen,
+ * en lloc de carregar tot el resultat en una llista.
+ * El Stream manté oberta la connexió fins que es tanca, per tant s'ha d'utilitzar amb try-with-resources.
+ */
+public class StreamConsulta {
+
+    // Nombre de files que es porten del servidor cada vegada
+    static final int MIDA_FETCH = 500;
+
+    /**
+     * Funció que converteix la fila actual d'un ResultSet en un objecte.
+     * @param <T> El tipus d'objecte.
+     */
+    public interface MapejadorFila<T> {
+        T mapejar(ResultSet rs) throws SQLException;
+    }
+
+    private StreamConsulta() {
+    }
+
+    /**
+     * Prepara una consulta de només lectura i només endavant, amb una mida de fetch limitada,
+     * perquè el driver no porti tot el resultat a memòria.
+     * @param conn La connexió.
+     * @param sql La consulta.
+     * @return La sentència preparada.
+     * @throws SQLException Si hi ha algun problema amb l'accés a les dades.
+     */
+    public static PreparedStatement preparar(Connection conn, String sql) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(MIDA_FETCH);
+        return stmt;
+    }
+
+    /**
+     * Obre una connexió del pool, executa la consulta i en retorna les files com a Stream.
+     * @param sql La consulta, sense paràmetres.
+     * @param mapejador La funció que converteix cada fila.
+     * @param <T> El tipus dels elements.
+     * @return Un Stream tancable amb les files convertides.
+     * @throws SQLException Si no s'ha pogut executar la consulta.
+     */
+    public static <T> Stream<T> executar(String sql, MapejadorFila<T> mapejador) throws SQLException {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = ConnectionManager.getConnection();
+            stmt = preparar(conn, sql);
+            rs = stmt.executeQuery();
+            return crear(conn, stmt, rs, mapejador);
+        } catch (SQLException e) {
+            tancar(conn, stmt, rs);
+            throw e;
+        }
+    }
+
+    /**
+     * Crea un Stream sobre el ResultSet. En tancar el Stream es tanquen el ResultSet, la sentència i la connexió.
+     * @param conn La connexió de la consulta.
+     * @param stmt La sentència de la consulta.
+     * @param rs El resultat de la consulta.
+     * @param mapejador La funció que converteix cada fila.
+     * @param <T> El tipus dels elements.
+     * @return Un Stream seqüencial i tancable amb les files convertides.
+     */
+    public static <T> Stream<T> crear(Connection conn, PreparedStatement stmt, ResultSet rs, MapejadorFila<T> mapejador) {
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> accio) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    accio.accept(mapejador.mapejar(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Error en llegir el resultat de la consulta: " + e.getMessage(), e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> tancar(conn, stmt, rs));
+    }
+
+    /**
+     * Tanca els recursos d'una consulta, per exemple si falla abans de crear el Stream.
+     * @param conn La connexió (pot ser null).
+     * @param stmt La sentència (pot ser null).
+     * @param rs El resultat (pot ser null).
+     */
+    public static void tancar(Connection conn, PreparedStatement stmt, ResultSet rs) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error en tancar la consulta: " + e.getMessage());
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.close();
+                }
+            } catch (SQLException e) {
+                System.err.println("Error en tancar la connexió: " + e.getMessage());
+            }
+        }
+    }
+}
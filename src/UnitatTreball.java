@@ -0,0 +1,308 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unitat de treball: agrupa totes les operacions dels DAO d'una operació de negoci en una sola transacció.
+ * Mentre està oberta, ConnectionManager.getConnection() retorna al fil actual sempre la mateixa connexió,
+ * sense autocommit, i els commit i close dels DAO no fan res: es confirma una sola vegada amb confirmar().
+ * Si es tanca sense confirmar, o algun DAO fa rollback, es desfà tot.
+ * La connexió es demana al pool la primera vegada que es fa servir, i les unitats niades formen part de l'externa.
+ * També fa de mapa d'identitats: els DAO hi registren les reserves, habitacions i clients que carreguen,
+ * de manera que dins d'una mateixa operació cada fila es llegeix una sola vegada i sempre és la mateixa instància.
+ * S'ha de fer servir amb try-with-resources i només des del fil que l'ha iniciada:
+ * <pre>
+ * try (UnitatTreball unitat = UnitatTreball.iniciar()) {
+ *     ...
+ *     return dao.operacio(...) &amp;&amp; unitat.confirmar();
+ * }
+ * </pre>
+ */
+public class UnitatTreball implements AutoCloseable {
+
+    private static final ThreadLocal<UnitatTreball> actual = new ThreadLocal<>();
+
+    // La unitat externa, que és la que té la connexió; per a ella mateixa és this
+    private final UnitatTreball arrel;
+
+    private Connection connexio = null;
+    private Connection vista = null;
+    private boolean perDesfer = false;
+    private boolean confirmada = false;
+    private boolean acabada = false;
+
+    // Només a la unitat externa
+    private final List<Runnable> despresDeConfirmar;
+    private final List<Runnable> enAcabar;
+    private final Map<Class<?>, Map<Object, Object>> identitats;
+
+    private UnitatTreball(UnitatTreball externa) {
+        this.arrel = externa != null ? externa : this;
+        this.despresDeConfirmar = externa != null ? null : new ArrayList<>();
+        this.enAcabar = externa != null ? null : new ArrayList<>();
+        this.identitats = externa != null ? null : new HashMap<>();
+    }
+
+    /**
+     * Inicia una unitat de treball al fil actual. Si ja n'hi ha una d'oberta, la nova en forma part
+     * i no es confirma res fins que no es confirma l'externa.
+     * @return La unitat de treball.
+     */
+    public static UnitatTreball iniciar() {
+        UnitatTreball externa = actual.get();
+        if (externa != null) {
+            return new UnitatTreball(externa);
+        }
+        UnitatTreball unitat = new UnitatTreball(null);
+        actual.set(unitat);
+        return unitat;
+    }
+
+    /**
+     * @return La unitat de treball oberta al fil actual, o null si no n'hi ha cap.
+     */
+    public static UnitatTreball getActual() {
+        return actual.get();
+    }
+
+    /**
+     * Executa una acció quan es confirmi la unitat de treball del fil actual (per exemple, actualitzar un índex
+     * en memòria que no s'ha de veure si la transacció es desfà). Si no n'hi ha cap d'oberta, l'executa ara.
+     * @param accio L'acció a executar.
+     */
+    public static void executarDespresDeConfirmar(Runnable accio) {
+        UnitatTreball unitat = actual.get();
+        if (unitat == null) {
+            accio.run();
+        } else {
+            unitat.despresDeConfirmar(accio);
+        }
+    }
+
+    /**
+     * Busca una entitat que ja s'hagi carregat a la unitat de treball del fil actual.
+     * @param tipus La classe de l'entitat.
+     * @param clau La clau primària.
+     * @return L'entitat, o null si no hi ha cap unitat oberta o encara no s'ha carregat.
+     */
+    public static <T> T buscar(Class<T> tipus, Object clau) {
+        UnitatTreball unitat = actual.get();
+        if (unitat == null) {
+            return null;
+        }
+        Map<Object, Object> perClau = unitat.arrel.identitats.get(tipus);
+        return perClau == null ? null : tipus.cast(perClau.get(clau));
+    }
+
+    /**
+     * Registra una entitat carregada a la unitat de treball del fil actual.
+     * Si ja n'hi havia una amb la mateixa clau, es manté la que hi era perquè tota l'operació comparteixi la instància.
+     * @param tipus La classe de l'entitat.
+     * @param clau La clau primària.
+     * @param entitat L'entitat carregada.
+     * @return La instància que s'ha de fer servir: la registrada abans o, si no n'hi havia cap (o no hi ha cap
+     * unitat oberta), la mateixa entitat.
+     */
+    public static <T> T registrar(Class<T> tipus, Object clau, T entitat) {
+        UnitatTreball unitat = actual.get();
+        if (unitat == null || entitat == null) {
+            return entitat;
+        }
+        Map<Object, Object> perClau = unitat.arrel.identitats.computeIfAbsent(tipus, t -> new HashMap<>());
+        Object registrada = perClau.putIfAbsent(clau, entitat);
+        return registrada != null ? tipus.cast(registrada) : entitat;
+    }
+
+    /**
+     * Treu una entitat de la unitat de treball del fil actual (per exemple, perquè s'ha eliminat).
+     * @param tipus La classe de l'entitat.
+     * @param clau La clau primària.
+     */
+    public static void oblidar(Class<?> tipus, Object clau) {
+        UnitatTreball unitat = actual.get();
+        if (unitat != null) {
+            Map<Object, Object> perClau = unitat.arrel.identitats.get(tipus);
+            if (perClau != null) {
+                perClau.remove(clau);
+            }
+        }
+    }
+
+    /**
+     * Registra una acció per executar després de confirmar la unitat externa, ja amb la connexió retornada al pool.
+     * @param accio L'acció a executar.
+     */
+    public void despresDeConfirmar(Runnable accio) {
+        arrel.despresDeConfirmar.add(accio);
+    }
+
+    /**
+     * Registra una acció per executar quan acabi la unitat externa, tant si s'ha confirmat com si s'ha desfet
+     * (per exemple, invalidar una memòria cau on s'hagi pogut guardar una fila encara sense confirmar).
+     * @param accio L'acció a executar.
+     */
+    public void enAcabar(Runnable accio) {
+        arrel.enAcabar.add(accio);
+    }
+
+    /**
+     * Marca la unitat de treball perquè es desfaci en tancar-la, encara que després es cridi confirmar().
+     */
+    public void marcarPerDesfer() {
+        arrel.perDesfer = true;
+    }
+
+    /**
+     * Connexió de la unitat de treball, que es demana al pool el primer cop.
+     * Es retorna una vista que no es pot tancar ni confirmar; un rollback marca la unitat per desfer-la.
+     * @return La connexió.
+     * @throws SQLException Si no s'ha pogut obtenir cap connexió del pool.
+     */
+    Connection getConnexio() throws SQLException {
+        if (arrel != this) {
+            return arrel.getConnexio();
+        }
+        if (acabada) {
+            throw new SQLException("La unitat de treball ja s'ha tancat");
+        }
+        if (connexio == null) {
+            Connection nova = ConnectionManager.getConnexioPool();
+            try {
+                nova.setAutoCommit(false);
+            } catch (SQLException e) {
+                nova.close();
+                throw e;
+            }
+            connexio = nova;
+            vista = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new VistaConnexio());
+        }
+        return vista;
+    }
+
+    /**
+     * Confirma la unitat de treball. Només la unitat externa fa el commit; una de niada només indica que
+     * la seva part ha anat bé.
+     * @return true si s'ha confirmat (o, si és niada, si la unitat encara es pot confirmar), false si s'ha de desfer.
+     */
+    public boolean confirmar() {
+        if (arrel != this) {
+            confirmada = !arrel.perDesfer;
+            return confirmada;
+        }
+        if (perDesfer || acabada) {
+            return false;
+        }
+        if (connexio != null) {
+            try {
+                connexio.commit();
+            } catch (SQLException e) {
+                System.err.println("Error en confirmar la unitat de treball: " + e.getMessage());
+                perDesfer = true;
+                return false;
+            }
+        }
+        confirmada = true;
+        return true;
+    }
+
+    /**
+     * Tanca la unitat de treball. Si és l'externa, desfà el que no s'hagi confirmat, torna la connexió al pool
+     * i executa les accions registrades. Si és niada i no s'ha confirmat, marca l'externa per desfer-la.
+     */
+    @Override
+    public void close() {
+        if (arrel != this) {
+            if (!confirmada) {
+                arrel.perDesfer = true;
+            }
+            return;
+        }
+        if (acabada) {
+            return;
+        }
+        acabada = true;
+        actual.remove();
+
+        if (connexio != null) {
+            try {
+                if (!confirmada) {
+                    connexio.rollback();
+                }
+            } catch (SQLException e) {
+                System.err.println("Error en desfer la unitat de treball: " + e.getMessage());
+            }
+            try {
+                connexio.close();
+            } catch (SQLException e) {
+                System.err.println("Error en tornar la connexió de la unitat de treball: " + e.getMessage());
+            }
+        }
+
+        if (confirmada) {
+            executar(despresDeConfirmar);
+        }
+        executar(enAcabar);
+    }
+
+    private static void executar(List<Runnable> accions) {
+        for (Runnable accio : accions) {
+            try {
+                accio.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error en una acció de la unitat de treball: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Connexió que es lliura als DAO: delega a la connexió de la unitat però no la deixa tancar ni confirmar.
+     */
+    private class VistaConnexio implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    // Els gestiona la unitat de treball
+                    return null;
+                case "getAutoCommit":
+                    return false;
+                case "isClosed":
+                    return acabada || connexio.isClosed();
+                case "rollback":
+                    if (args == null) {
+                        perDesfer = true;
+                        return null;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "UnitatTreball[" + connexio + "]";
+                default:
+                    break;
+            }
+
+            if (acabada) {
+                throw new SQLException("La unitat de treball ja s'ha tancat");
+            }
+            try {
+                return method.invoke(connexio, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
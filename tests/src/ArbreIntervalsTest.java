@@ -0,0 +1,105 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Proves de l'arbre d'intervals tancats.
+ */
+public class ArbreIntervalsTest {
+
+    @Test
+    public void elsExtremsSonInclosos() {
+        ArbreIntervals arbre = new ArbreIntervals();
+        arbre.afegir(1, 10, 20);
+
+        assertTrue(arbre.solapa(20, 25));
+        assertTrue(arbre.solapa(5, 10));
+        assertFalse(arbre.solapa(21, 25));
+        assertFalse(arbre.solapa(5, 9));
+    }
+
+    @Test
+    public void eliminarNomesTreuLIntervalIndicat() {
+        ArbreIntervals arbre = new ArbreIntervals();
+        arbre.afegir(1, 10, 20);
+        arbre.afegir(2, 10, 12);
+
+        assertFalse(arbre.eliminar(1, 11));
+        assertTrue(arbre.eliminar(1, 10));
+        assertFalse(arbre.eliminar(1, 10));
+        assertEquals(1, arbre.getMida());
+        assertTrue(arbre.solapa(12, 12));
+        assertFalse(arbre.solapa(13, 20));
+    }
+
+    @Test
+    public void afegirElMateixIntervalNomesActualitzaElFinal() {
+        ArbreIntervals arbre = new ArbreIntervals();
+        arbre.afegir(1, 10, 20);
+        arbre.afegir(1, 10, 30);
+
+        assertEquals(1, arbre.getMida());
+        assertTrue(arbre.solapa(25, 25));
+    }
+
+    @Test
+    public void elsSolapamentsEsRecorrenEnOrdreDInici() {
+        ArbreIntervals arbre = new ArbreIntervals();
+        arbre.afegir(3, 30, 40);
+        arbre.afegir(1, 0, 100);
+        arbre.afegir(2, 15, 18);
+        arbre.afegir(4, 60, 70);
+
+        List<Long> inicis = new ArrayList<>();
+        arbre.perCadaSolapament(17, 35, (inici, fi) -> inicis.add(inici));
+
+        assertEquals(3, inicis.size());
+        assertEquals(Long.valueOf(0), inicis.get(0));
+        assertEquals(Long.valueOf(15), inicis.get(1));
+        assertEquals(Long.valueOf(30), inicis.get(2));
+    }
+
+    @Test
+    public void responComUnaCercaExhaustiva() {
+        Random random = new Random(42);
+        ArbreIntervals arbre = new ArbreIntervals();
+        List<long[]> intervals = new ArrayList<>();
+
+        for (int id = 0; id < 2000; id++) {
+            long inici = random.nextInt(5000);
+            long fi = inici + random.nextInt(30);
+            arbre.afegir(id, inici, fi);
+            intervals.add(new long[] {id, inici, fi});
+
+            // De tant en tant n'eliminem un d'anterior, per provar també els reequilibris en eliminar
+            if (id % 3 == 0) {
+                long[] eliminat = intervals.remove(random.nextInt(intervals.size()));
+                assertTrue(arbre.eliminar((int) eliminat[0], eliminat[1]));
+            }
+        }
+        assertEquals(intervals.size(), arbre.getMida());
+
+        for (int consulta = 0; consulta < 2000; consulta++) {
+            long inici = random.nextInt(5100) - 50;
+            long fi = inici + random.nextInt(20);
+
+            int esperats = 0;
+            for (long[] interval : intervals) {
+                if (interval[1] <= fi && interval[2] >= inici) {
+                    esperats++;
+                }
+            }
+            int[] trobats = {0};
+            arbre.perCadaSolapament(inici, fi, (i, f) -> trobats[0]++);
+
+            assertEquals(esperats > 0, arbre.solapa(inici, fi));
+            assertEquals(esperats, trobats[0]);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Proves de la memòria cau de clients: còpies, versions, invalidació, caducitat i expulsió LRU.
+ */
+public class CacheClientsTest {
+
+    private static final long UNA_HORA = 3_600_000L;
+
+    @Test
+    public void retornaCopiesIndependents() {
+        CacheClients cache = new CacheClients(100, UNA_HORA);
+        Client original = client(1);
+        cache.guardar(original, cache.getVersio());
+        original.setNom("Modificat");
+
+        Client llegit = cache.obtenir(1);
+        assertEquals("Nom1", llegit.getNom());
+        llegit.setNom("Modificat");
+        assertEquals("Nom1", cache.obtenir(1).getNom());
+        assertNotSame(cache.obtenir(1), cache.obtenir(1));
+    }
+
+    @Test
+    public void noDesaLecturesAnteriorsAUnaInvalidacio() {
+        CacheClients cache = new CacheClients(100, UNA_HORA);
+        long versio = cache.getVersio();
+        cache.invalidar(1);
+        cache.guardar(client(1), versio);
+
+        assertNull(cache.obtenir(1));
+    }
+
+    @Test
+    public void invalidarTreuElClientPerIdIPerEmail() {
+        CacheClients cache = new CacheClients(100, UNA_HORA);
+        cache.guardar(client(1), cache.getVersio());
+
+        assertNotNull(cache.obtenirPerEmail(" CLIENT1@Exemple.cat "));
+        cache.invalidar(1);
+        assertNull(cache.obtenir(1));
+        assertNull(cache.obtenirPerEmail("client1@exemple.cat"));
+    }
+
+    @Test
+    public void canviarLEmailDeixaDeTrobarLAnterior() {
+        CacheClients cache = new CacheClients(100, UNA_HORA);
+        cache.guardar(client(1), cache.getVersio());
+        Client modificat = client(1);
+        modificat.setEmail("nou@exemple.cat");
+        cache.guardar(modificat, cache.getVersio());
+
+        assertNull(cache.obtenirPerEmail("client1@exemple.cat"));
+        assertEquals(1, cache.obtenirPerEmail("nou@exemple.cat").getIdClient());
+    }
+
+    @Test
+    public void elsClientsCaduquen() throws InterruptedException {
+        CacheClients cache = new CacheClients(100, 1);
+        cache.guardar(client(1), cache.getVersio());
+        Thread.sleep(20);
+
+        assertNull(cache.obtenir(1));
+        assertEquals(1, cache.getEstadistiques().getExpiracions());
+        assertEquals(0, cache.getEstadistiques().getEntrades());
+    }
+
+    @Test
+    public void expulsaElMenysUtilitzatRecentmentDelSegment() {
+        List<Integer> mateixSegment = idsDelMateixSegment(3);
+        int a = mateixSegment.get(0);
+        int b = mateixSegment.get(1);
+        int c = mateixSegment.get(2);
+
+        // 32 entrades en 16 segments: dues per segment
+        CacheClients cache = new CacheClients(32, UNA_HORA);
+        cache.guardar(client(a), cache.getVersio());
+        cache.guardar(client(b), cache.getVersio());
+        cache.obtenir(a);
+        cache.guardar(client(c), cache.getVersio());
+
+        assertNotNull(cache.obtenir(a));
+        assertNull(cache.obtenir(b));
+        assertNull(cache.obtenirPerEmail("client" + b + "@exemple.cat"));
+        assertNotNull(cache.obtenir(c));
+        assertEquals(1, cache.getEstadistiques().getExpulsions());
+    }
+
+    /**
+     * Busca IDs que caiguin al mateix segment amb una memòria cau d'una entrada per segment:
+     * guardar-ne un altre del mateix segment expulsa el primer.
+     */
+    private static List<Integer> idsDelMateixSegment(int quantitat) {
+        List<Integer> ids = new ArrayList<>();
+        ids.add(1);
+        for (int id = 2; ids.size() < quantitat; id++) {
+            CacheClients sonda = new CacheClients(16, UNA_HORA);
+            sonda.guardar(client(1), sonda.getVersio());
+            sonda.guardar(client(id), sonda.getVersio());
+            if (sonda.obtenir(1) == null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static Client client(int id) {
+        return new Client(id, "Nom" + id, "Cognoms", LocalDate.of(1990, 1, 1), "client" + id + "@exemple.cat",
+                "600000000");
+    }
+}
@@ -0,0 +1,104 @@
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Proves de la lectura i l'escriptura de JSON.
+ */
+public class JsonTest {
+
+    @Test
+    public void escriureILlegirTornaElMateixObjecte() {
+        Map<String, Object> objecte = new LinkedHashMap<>();
+        objecte.put("nom", "Anna \"la\" Puig\\\n\t");
+        objecte.put("habitacio", 101L);
+        objecte.put("preu", 89.5);
+        objecte.put("pagat", true);
+        objecte.put("notes", null);
+        objecte.put("nits", Arrays.asList(1L, 2L, 3L));
+
+        assertEquals(objecte, Json.llegirObjecte(Json.escriure(objecte)));
+    }
+
+    @Test
+    public void lesDatesSEscriuenEnFormatIso() {
+        Map<String, Object> objecte = new LinkedHashMap<>();
+        objecte.put("entrada", LocalDate.of(2026, 7, 4));
+
+        assertEquals("{\"entrada\":\"2026-07-04\"}", Json.escriure(objecte));
+    }
+
+    @Test
+    public void elsCaractersDeControlSEscapen() {
+        assertEquals("\"a\\u0001b\"", Json.escriure("a\u0001b"));
+        assertEquals("aé\u0001", Json.llegirObjecte("{\"t\": \"a\\u00e9\\u0001\"}").get("t"));
+    }
+
+    @Test
+    public void elsEntersSonLongIElsDecimalsDouble() {
+        Map<String, Object> objecte = Json.llegirObjecte("{\"a\": 12, \"b\": -3.25, \"c\": 1e2}");
+
+        assertEquals(12L, objecte.get("a"));
+        assertEquals(-3.25, objecte.get("b"));
+        assertEquals(100.0, objecte.get("c"));
+    }
+
+    @Test
+    public void lesEstructuresNiadesEsLlegeixen() {
+        Map<String, Object> objecte = Json.llegirObjecte("{\"a\": {\"b\": [{}, []]}, \"c\": null}");
+
+        Map<?, ?> a = (Map<?, ?>) objecte.get("a");
+        List<?> b = (List<?>) a.get("b");
+        assertEquals(2, b.size());
+        assertNull(objecte.get("c"));
+    }
+
+    @Test
+    public void esRebutjaElJsonNoValid() {
+        rebutjat("[1, 2]");
+        rebutjat("{\"a\": 1} {}");
+        rebutjat("{\"a\": \"sense tancar}");
+        rebutjat("{\"a\": 1,}");
+        rebutjat("{\"a\": \"\\u12\"}");
+        rebutjat("{a: 1}");
+        rebutjat("");
+    }
+
+    @Test
+    public void esRebutjaMassaProfunditat() {
+        StringBuilder permes = new StringBuilder("{\"a\":");
+        StringBuilder excessiu = new StringBuilder("{\"a\":");
+        for (int i = 1; i < Json.PROFUNDITAT_MAXIMA; i++) {
+            permes.append('[');
+        }
+        for (int i = 0; i < Json.PROFUNDITAT_MAXIMA; i++) {
+            excessiu.append('[');
+        }
+        for (int i = 1; i < Json.PROFUNDITAT_MAXIMA; i++) {
+            permes.append(']');
+        }
+        for (int i = 0; i < Json.PROFUNDITAT_MAXIMA; i++) {
+            excessiu.append(']');
+        }
+
+        Json.llegirObjecte(permes.append('}').toString());
+        rebutjat(excessiu.append('}').toString());
+    }
+
+    private static void rebutjat(String text) {
+        try {
+            Json.llegirObjecte(text);
+            fail("S'havia d'haver rebutjat: " + text);
+        } catch (IllegalArgumentException e) {
+            // Esperat
+        }
+    }
+}
@@ -0,0 +1,73 @@
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Proves del mapa de bits de nits ocupades.
+ */
+public class MapaOcupacioTest {
+
+    private static final LocalDate INICI = LocalDate.of(2026, 1, 1);
+
+    @Test
+    public void laNitDeSortidaQuedaLliure() {
+        MapaOcupacio mapa = new MapaOcupacio(INICI, 30);
+        mapa.ocupar(101, dia(5), dia(8));
+
+        assertFalse(mapa.estaLliure(101, dia(7), dia(9)));
+        assertFalse(mapa.estaLliure(101, dia(3), dia(6)));
+        assertTrue(mapa.estaLliure(101, dia(8), dia(10)));
+        assertTrue(mapa.estaLliure(101, dia(2), dia(5)));
+        assertTrue(mapa.estaLliure(102, dia(5), dia(8)));
+    }
+
+    @Test
+    public void cobreixNomesLesEstadesDinsDeLHoritzo() {
+        MapaOcupacio mapa = new MapaOcupacio(INICI, 30);
+
+        assertTrue(mapa.cobreix(dia(0), dia(30)));
+        assertFalse(mapa.cobreix(dia(-1), dia(3)));
+        assertFalse(mapa.cobreix(dia(28), dia(31)));
+    }
+
+    @Test
+    public void alliberarTornaAPosarLesNitsLliures() {
+        MapaOcupacio mapa = new MapaOcupacio(INICI, 30);
+        mapa.ocupar(101, dia(5), dia(10));
+        mapa.alliberar(101, dia(5), dia(10));
+
+        assertTrue(mapa.estaLliure(101, dia(0), dia(30)));
+    }
+
+    @Test
+    public void habitacionsOcupadesNomesTornaLesQueTenenAlgunaNit() {
+        MapaOcupacio mapa = new MapaOcupacio(INICI, 30);
+        mapa.ocupar(101, dia(5), dia(8));
+        mapa.ocupar(102, dia(8), dia(12));
+        mapa.ocupar(103, dia(20), dia(22));
+
+        assertEquals(Collections.singleton(101), mapa.habitacionsOcupades(dia(6), dia(8)));
+        assertEquals(2, mapa.habitacionsOcupades(dia(7), dia(9)).size());
+        assertTrue(mapa.habitacionsOcupades(dia(12), dia(20)).isEmpty());
+    }
+
+    @Test
+    public void lesEstadesEsRetallenALHoritzo() {
+        MapaOcupacio mapa = new MapaOcupacio(INICI, 30);
+        mapa.ocupar(101, dia(-5), dia(2));
+        mapa.ocupar(101, dia(28), dia(40));
+
+        assertFalse(mapa.estaLliure(101, dia(1), dia(2)));
+        assertTrue(mapa.estaLliure(101, dia(2), dia(28)));
+        assertFalse(mapa.estaLliure(101, dia(29), dia(30)));
+    }
+
+    private static LocalDate dia(int desDeLInici) {
+        return INICI.plusDays(desDeLInici);
+    }
+}
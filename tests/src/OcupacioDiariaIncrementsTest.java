@@ -0,0 +1,64 @@
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Proves del repartiment dels ingressos d'una estada entre les seves nits.
+ */
+public class OcupacioDiariaIncrementsTest {
+
+    private static final LocalDate ENTRADA = LocalDate.of(2026, 3, 1);
+
+    @Test
+    public void laDarreraNitSEmportaElResidu() {
+        OcupacioDiariaDAO.Increments increments = new OcupacioDiariaDAO.Increments();
+        increments.afegirEstada("Doble", ENTRADA, ENTRADA.plusDays(3), 100.00);
+
+        assertEquals(new BigDecimal("33.33"), increments.getIngressos(ENTRADA, "Doble"));
+        assertEquals(new BigDecimal("33.33"), increments.getIngressos(ENTRADA.plusDays(1), "Doble"));
+        assertEquals(new BigDecimal("33.34"), increments.getIngressos(ENTRADA.plusDays(2), "Doble"));
+        assertEquals(0, increments.getNits(ENTRADA.plusDays(3), "Doble"));
+
+        BigDecimal suma = BigDecimal.ZERO;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, increments.getNits(ENTRADA.plusDays(i), "Doble"));
+            suma = suma.add(increments.getIngressos(ENTRADA.plusDays(i), "Doble"));
+        }
+        assertEquals(new BigDecimal("100.00"), suma);
+    }
+
+    @Test
+    public void treureLEstadaRestaExactamentElQueSHaviaSumat() {
+        OcupacioDiariaDAO.Increments increments = new OcupacioDiariaDAO.Increments();
+        increments.afegirEstada("Doble", ENTRADA, ENTRADA.plusDays(7), 999.99);
+        increments.treureEstada("Doble", ENTRADA, ENTRADA.plusDays(7), 999.99);
+
+        for (int i = 0; i < 7; i++) {
+            assertEquals(0, increments.getNits(ENTRADA.plusDays(i), "Doble"));
+            assertEquals(0, increments.getIngressos(ENTRADA.plusDays(i), "Doble").signum());
+        }
+    }
+
+    @Test
+    public void lesEstadesSenseNitsNoSumenRes() {
+        OcupacioDiariaDAO.Increments increments = new OcupacioDiariaDAO.Increments();
+        increments.afegirEstada("Doble", ENTRADA, ENTRADA, 50.0);
+        increments.afegirEstada("Doble", ENTRADA, ENTRADA.minusDays(1), 50.0);
+
+        assertTrue(increments.isBuit());
+    }
+
+    @Test
+    public void elTipusNoDistingeixMajuscules() {
+        OcupacioDiariaDAO.Increments increments = new OcupacioDiariaDAO.Increments();
+        increments.afegirEstada("Doble", ENTRADA, ENTRADA.plusDays(1), 80.0);
+        increments.afegirEstada("DOBLE", ENTRADA, ENTRADA.plusDays(1), 70.0);
+
+        assertEquals(2, increments.getNits(ENTRADA, "doble"));
+        assertEquals(new BigDecimal("150.00"), increments.getIngressos(ENTRADA, "doble"));
+    }
+}
@@ -0,0 +1,59 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Proves de la construcció de pàgines a partir d'una fila de més.
+ */
+public class PaginaTest {
+
+    @Test
+    public void unaFilaDeMesIndicaQueHiHaMes() {
+        Pagina<Integer> pagina = Pagina.deFiles(Arrays.asList(1, 2, 3, 4), 3);
+
+        assertEquals(Arrays.asList(1, 2, 3), pagina.getElements());
+        assertTrue(pagina.isHiHaMes());
+        assertEquals(Integer.valueOf(3), pagina.getUltim());
+    }
+
+    @Test
+    public void senseFilaDeMesEsLaDarreraPagina() {
+        Pagina<Integer> completa = Pagina.deFiles(Arrays.asList(1, 2, 3), 3);
+        Pagina<Integer> incompleta = Pagina.deFiles(Arrays.asList(1, 2), 3);
+
+        assertFalse(completa.isHiHaMes());
+        assertEquals(3, completa.getElements().size());
+        assertFalse(incompleta.isHiHaMes());
+        assertEquals(Integer.valueOf(2), incompleta.getUltim());
+    }
+
+    @Test
+    public void unaPaginaBuidaNoTeDarrerElement() {
+        Pagina<Integer> pagina = Pagina.deFiles(Collections.<Integer>emptyList(), 3);
+
+        assertTrue(pagina.isBuida());
+        assertFalse(pagina.isHiHaMes());
+        assertNull(pagina.getUltim());
+    }
+
+    @Test
+    public void elsElementsNoEsPodenModificar() {
+        Pagina<Integer> pagina = Pagina.deFiles(new ArrayList<>(Arrays.asList(1, 2)), 3);
+        List<Integer> elements = pagina.getElements();
+        try {
+            elements.add(3);
+            fail("Els elements d'una pàgina no s'haurien de poder modificar");
+        } catch (UnsupportedOperationException e) {
+            // Esperat
+        }
+    }
+}